@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * 
+ * Entry point of the benchmarks jar. Delegates to the JMH command line, but writes the results as JSON to
+ * jmh-result.json unless a result format or file is given, so results can be compared between releases.
+ * 
+ * <pre>
+ *     java -jar target/benchmarks.jar [JMH options]
+ * </pre>
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class BenchmarkRunner {
+
+	private static final String	RESULT_FORMAT	= "-rf";
+	private static final String	RESULT_FILE		= "-rff";
+
+	private BenchmarkRunner() {
+
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+		if (!arguments.contains(RESULT_FORMAT)) {
+			arguments.add(RESULT_FORMAT);
+			arguments.add("json");
+		}
+		if (!arguments.contains(RESULT_FILE)) {
+			arguments.add(RESULT_FILE);
+			arguments.add("jmh-result.json");
+		}
+		Main.main(arguments.toArray(new String[arguments.size()]));
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.domain.HoldRequest;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.service.TicketService;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ * 
+ * Compares findAndHoldSeatsBatch against the same number of findAndHoldSeats calls, reported per request.
+ * 
+ * Every hold is released again right away, as in {@link FindAndHoldSeatsBenchmark}.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindAndHoldSeatsBatchBenchmark {
+
+	private static final int	BATCH_SIZE	= 100;
+
+	private TicketHoldCache		ticketHoldCache;
+	private TicketService		ticketService;
+	private List<HoldRequest>	holdRequests;
+
+	@Setup
+	public void setUp() {
+		ticketHoldCache = new TicketHoldCache();
+		ticketService = new TicketServiceImpl(ticketHoldCache);
+		holdRequests = new ArrayList<HoldRequest>(BATCH_SIZE);
+		for (int index = 0; index < BATCH_SIZE; index++) {
+			holdRequests.add(new HoldRequest(index % 10 + 1, Optional.empty(), Optional.empty(), Venues.CUSTOMER_EMAIL));
+		}
+	}
+
+	@Benchmark
+	@Threads(8)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<SeatHold> holdBatch() {
+		List<SeatHold> seatHolds = ticketService.findAndHoldSeatsBatch(holdRequests);
+		for (SeatHold seatHold : seatHolds) {
+			release(seatHold);
+		}
+		return seatHolds;
+	}
+
+	@Benchmark
+	@Threads(8)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public SeatHold holdOneByOne() {
+		SeatHold seatHold = null;
+		for (HoldRequest holdRequest : holdRequests) {
+			seatHold = ticketService.findAndHoldSeats(holdRequest.getNumSeats(), holdRequest.getMinLevel(),
+					holdRequest.getMaxLevel(), holdRequest.getCustomerEmail());
+			release(seatHold);
+		}
+		return seatHold;
+	}
+
+	private void release(SeatHold seatHold) {
+		ticketHoldCache.remove(seatHold);
+		seatHold.expire();
+	}
+
+}
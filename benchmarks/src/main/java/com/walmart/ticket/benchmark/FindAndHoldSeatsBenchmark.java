@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ * 
+ * Measures findAndHoldSeats for party sizes 1 to 10 at 1, 8 and 32 threads, with shared and sequenced level inventories.
+ * 
+ * Every hold is released again right away, so the venue stays in a steady state instead of selling out during the run.
+ * The measured time therefore covers one hold and one release.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindAndHoldSeatsBenchmark {
+
+	@Param({ "1", "2", "3", "4", "5", "6", "7", "8", "9", "10" })
+	private int					partySize;
+
+	@Param({ "SHARED", "SEQUENCED" })
+	private InventoryMode		inventoryMode;
+
+	private TicketHoldCache		ticketHoldCache;
+	private TicketServiceImpl	ticketService;
+
+	@Setup
+	public void setUp() {
+		ticketHoldCache = new TicketHoldCache();
+		ticketService = new TicketServiceImpl(ticketHoldCache, SeatAllocation.FIRST_AVAILABLE, inventoryMode);
+	}
+
+	@TearDown
+	public void tearDown() {
+		ticketService.destroy();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public SeatHold holdSingleThread() {
+		return holdAndRelease();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public SeatHold hold8Threads() {
+		return holdAndRelease();
+	}
+
+	@Benchmark
+	@Threads(32)
+	public SeatHold hold32Threads() {
+		return holdAndRelease();
+	}
+
+	private SeatHold holdAndRelease() {
+		SeatHold seatHold = ticketService.findAndHoldSeats(partySize, Optional.empty(), Optional.empty(), Venues.CUSTOMER_EMAIL);
+		ticketHoldCache.remove(seatHold);
+		seatHold.expire();
+		return seatHold;
+	}
+
+}
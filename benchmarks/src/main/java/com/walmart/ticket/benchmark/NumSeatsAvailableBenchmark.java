@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticket.service.TicketService;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ * 
+ * Measures numSeatsAvailable for the whole venue and for a single level on an empty, half full and nearly full venue.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumSeatsAvailableBenchmark {
+
+	@Param({ "0", "50", "95" })
+	private int							occupancyPercent;
+
+	private final Optional<Integer>		venueLevel	= Optional.of(2);
+	private TicketService				ticketService;
+
+	@Setup
+	public void setUp() {
+		ticketService = new TicketServiceImpl();
+		Venues.fill(ticketService, occupancyPercent);
+	}
+
+	@Benchmark
+	public int venue() {
+		return ticketService.numSeatsAvailable(Optional.empty());
+	}
+
+	@Benchmark
+	public int level() {
+		return ticketService.numSeatsAvailable(venueLevel);
+	}
+
+}
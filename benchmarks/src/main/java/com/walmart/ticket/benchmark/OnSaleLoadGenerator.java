@@ -0,0 +1,406 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.exception.InvalidVenueLevelException;
+import com.walmart.ticket.exception.TicketHoldNotFoundException;
+import com.walmart.ticket.service.TicketService;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ * 
+ * Rehearses an on-sale against a {@link TicketService} in-process: a number of simulated customers, each holding seats
+ * for a party, optionally restricted to a range of levels, then thinking and reserving or walking away. Every customer
+ * is drawn up front from a seeded random generator, so two runs with the same seed send exactly the same requests and
+ * different engines can be compared. Only the order in which concurrent customers reach the service varies.
+ * 
+ * Worker threads act as concurrent customers, each serving the next customer once the previous one is done. A
+ * customer who walks away leaves the hold to expire, as in the real world.
+ * 
+ * <pre>
+ *     java -cp target/benchmarks.jar com.walmart.ticket.benchmark.OnSaleLoadGenerator [--customers 100000]
+ *         [--threads 8] [--seed 42] [--party-sizes 1:10,2:40,3:15,4:25,5:5,6:5] [--levels *:50,1:20,1-2:15,3-4:15]
+ *         [--conversion 0.7] [--think-time 0] [--report-interval 1000] [--inventory-mode SHARED|SEQUENCED]
+ *         [--seat-allocation FIRST_AVAILABLE|TOGETHER|BEST_AVAILABLE]
+ * </pre>
+ * 
+ * Party sizes and levels are weighted choices, {@code 2:40} is a party of two with weight 40, {@code 1-2:15} a hold on
+ * level 1 or 2 with weight 15 and {@code *} a hold on any level. The conversion is the share of customers who reserve
+ * their hold, the think time the longest pause in milliseconds between hold and reservation.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class OnSaleLoadGenerator {
+
+	private int		customers				= 100000;
+	private int		threads					= 8;
+	private long	seed					= 42;
+	private String	partySizes				= "1:10,2:40,3:15,4:25,5:5,6:5";
+	private String	levels					= "*:50,1:20,1-2:15,3-4:15";
+	private double	conversion				= 0.7;
+	private int		thinkTimeMillis;
+	private long	reportIntervalMillis	= 1000;
+
+	/**
+	 * @param customers the number of simulated customers
+	 */
+	public void setCustomers(int customers) {
+		this.customers = customers;
+	}
+
+	/**
+	 * @param threads the number of customers served concurrently
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * @param seed the seed the customers are drawn from
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param partySizes weighted party sizes, e.g. {@code 1:10,2:40,4:25}
+	 */
+	public void setPartySizes(String partySizes) {
+		this.partySizes = partySizes;
+	}
+
+	/**
+	 * @param levels weighted level ranges, e.g. {@code *:50,1:20,3-4:15}
+	 */
+	public void setLevels(String levels) {
+		this.levels = levels;
+	}
+
+	/**
+	 * @param conversion the share of customers who reserve their hold, between 0 and 1
+	 */
+	public void setConversion(double conversion) {
+		this.conversion = conversion;
+	}
+
+	/**
+	 * @param thinkTimeMillis the longest pause between hold and reservation
+	 */
+	public void setThinkTimeMillis(int thinkTimeMillis) {
+		this.thinkTimeMillis = thinkTimeMillis;
+	}
+
+	/**
+	 * @param reportIntervalMillis the length of the intervals throughput is reported for
+	 */
+	public void setReportIntervalMillis(long reportIntervalMillis) {
+		this.reportIntervalMillis = reportIntervalMillis;
+	}
+
+	/**
+	 * 
+	 * Run the on-sale until every customer was served.
+	 * 
+	 * @param ticketService the service to rehearse against
+	 * @return the report of the run
+	 * @throws InterruptedException
+	 */
+	public OnSaleReport run(final TicketService ticketService) throws InterruptedException {
+		if (customers < 0 || threads <= 0 || conversion < 0 || conversion > 1 || thinkTimeMillis < 0 || reportIntervalMillis <= 0) {
+			throw new IllegalArgumentException("Invalid on-sale settings");
+		}
+		int[][] levelChoices = parse(levels, true);
+		checkLevels(levelChoices, ticketService);
+		final Customers plan = new Customers(customers, seed, parse(partySizes, false), levelChoices, conversion, thinkTimeMillis);
+		final OnSaleReport onSaleReport = new OnSaleReport();
+		final AtomicInteger nextCustomer = new AtomicInteger();
+		final AtomicLong sellOutNanos = new AtomicLong();
+		final LongAdder holds = new LongAdder();
+		final LongAdder failedHolds = new LongAdder();
+		final LongAdder seatsHeld = new LongAdder();
+		final LongAdder reservations = new LongAdder();
+		final LongAdder failedReservations = new LongAdder();
+		final LongAdder seatsReserved = new LongAdder();
+		final LongAdder holdErrors = new LongAdder();
+		final LongAdder reservationErrors = new LongAdder();
+		final AtomicReference<Throwable> firstError = new AtomicReference<Throwable>();
+		final CountDownLatch done = new CountDownLatch(threads);
+		final long startTime = System.nanoTime();
+
+		for (int thread = 0; thread < threads; thread++) {
+			Thread worker = new Thread("OnSaleCustomer-" + thread) {
+				public void run() {
+					try {
+						int customer;
+						while ((customer = nextCustomer.getAndIncrement()) < plan.size) {
+							int partySize = plan.partySizes[customer];
+							String customerEmail = "customer" + customer + "@onsale.test";
+							long holdTime = System.nanoTime();
+							SeatHold seatHold;
+							try {
+								seatHold = ticketService.findAndHoldSeats(partySize, level(plan.minLevels[customer]),
+										level(plan.maxLevels[customer]), customerEmail);
+							} catch (RuntimeException runtimeException) {
+								holdErrors.increment();
+								firstError.compareAndSet(null, runtimeException);
+								continue;
+							} finally {
+								onSaleReport.getHoldLatency().recordSince(holdTime);
+							}
+							if (seatHold == null) {
+								failedHolds.increment();
+								if (sellOutNanos.get() == 0 && ticketService.numSeatsAvailable(Optional.empty()) == 0) {
+									sellOutNanos.compareAndSet(0, System.nanoTime() - startTime);
+								}
+								continue;
+							}
+							holds.increment();
+							seatsHeld.add(partySize);
+							if (!plan.reserves[customer]) {
+								continue;
+							}
+							if (plan.thinkTimes[customer] > 0) {
+								Thread.sleep(plan.thinkTimes[customer]);
+							}
+							long reserveTime = System.nanoTime();
+							try {
+								ticketService.reserveSeats(seatHold.getSeatHoldId(), customerEmail);
+								reservations.increment();
+								seatsReserved.add(partySize);
+							} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+								failedReservations.increment();
+							} catch (RuntimeException runtimeException) {
+								reservationErrors.increment();
+								firstError.compareAndSet(null, runtimeException);
+							}
+							onSaleReport.getReserveLatency().recordSince(reserveTime);
+						}
+					} catch (InterruptedException interruptedException) {
+						Thread.currentThread().interrupt();
+					} catch (RuntimeException runtimeException) {
+						// The customers left to this worker are served by the others, the report shows the error
+						firstError.compareAndSet(null, runtimeException);
+					} finally {
+						done.countDown();
+					}
+				}
+			};
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		long intervalStart = startTime;
+		long[] previous = new long[3];
+		boolean finished = false;
+		while (!finished) {
+			finished = done.await(reportIntervalMillis, TimeUnit.MILLISECONDS);
+			long now = System.nanoTime();
+			long[] current = { holds.sum(), failedHolds.sum(), reservations.sum() };
+			double perSecond = 1e9 / Math.max(1, now - intervalStart);
+			onSaleReport.addInterval(new OnSaleReport.Interval(now - startTime, Math.round((current[0] - previous[0]) * perSecond),
+					Math.round((current[1] - previous[1]) * perSecond), Math.round((current[2] - previous[2]) * perSecond),
+					ticketService.numSeatsAvailable(Optional.empty())));
+			previous = current;
+			intervalStart = now;
+		}
+		onSaleReport.setDurationNanos(System.nanoTime() - startTime);
+		onSaleReport.setSellOutNanos(sellOutNanos.get());
+		onSaleReport.setTotals(holds.sum(), failedHolds.sum(), seatsHeld.sum(), reservations.sum(), failedReservations.sum(),
+				seatsReserved.sum());
+		onSaleReport.setErrors(holdErrors.sum(), reservationErrors.sum(), firstError.get());
+		return onSaleReport;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		OnSaleLoadGenerator onSaleLoadGenerator = new OnSaleLoadGenerator();
+		InventoryMode inventoryMode = InventoryMode.SHARED;
+		SeatAllocation seatAllocation = SeatAllocation.FIRST_AVAILABLE;
+		for (int index = 0; index < args.length; index += 2) {
+			if (index + 1 >= args.length) {
+				throw new IllegalArgumentException("No value for " + args[index]);
+			}
+			String value = args[index + 1];
+			switch (args[index]) {
+			case "--customers":
+				onSaleLoadGenerator.setCustomers(Integer.parseInt(value));
+				break;
+			case "--threads":
+				onSaleLoadGenerator.setThreads(Integer.parseInt(value));
+				break;
+			case "--seed":
+				onSaleLoadGenerator.setSeed(Long.parseLong(value));
+				break;
+			case "--party-sizes":
+				onSaleLoadGenerator.setPartySizes(value);
+				break;
+			case "--levels":
+				onSaleLoadGenerator.setLevels(value);
+				break;
+			case "--conversion":
+				onSaleLoadGenerator.setConversion(Double.parseDouble(value));
+				break;
+			case "--think-time":
+				onSaleLoadGenerator.setThinkTimeMillis(Integer.parseInt(value));
+				break;
+			case "--report-interval":
+				onSaleLoadGenerator.setReportIntervalMillis(Long.parseLong(value));
+				break;
+			case "--inventory-mode":
+				inventoryMode = InventoryMode.valueOf(value);
+				break;
+			case "--seat-allocation":
+				seatAllocation = SeatAllocation.valueOf(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[index]);
+			}
+		}
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), seatAllocation, inventoryMode);
+		try {
+			onSaleLoadGenerator.run(ticketService).print(System.out);
+		} finally {
+			ticketService.destroy();
+		}
+	}
+
+	/**
+	 * 
+	 * Check that every level range of {@code --levels} holds a level of the venue, a customer would otherwise never
+	 * find a seat.
+	 * 
+	 */
+	private static void checkLevels(int[][] levelChoices, TicketService ticketService) {
+		for (int[] levelChoice : levelChoices) {
+			boolean found = levelChoice[0] == 0;
+			for (int levelId = levelChoice[0]; !found && levelId <= levelChoice[1]; levelId++) {
+				try {
+					ticketService.numSeatsAvailable(Optional.of(levelId));
+					found = true;
+				} catch (InvalidVenueLevelException invalidVenueLevelException) {
+					// Not a level of the venue
+				}
+			}
+			if (!found) {
+				throw new IllegalArgumentException("The venue has no level in " + levelChoice[0] + "-" + levelChoice[1]);
+			}
+		}
+	}
+
+	private static Optional<Integer> level(int levelId) {
+		return levelId > 0 ? Optional.of(levelId) : Optional.empty();
+	}
+
+	/**
+	 * 
+	 * Parse weighted choices such as {@code 1:10,2:40} or {@code *:50,1-2:15}.
+	 * 
+	 * @return per choice its lower value, its upper value and its weight, 0 for the values of {@code *}
+	 */
+	private static int[][] parse(String choices, boolean ranges) {
+		String[] entries = choices.split(",");
+		int[][] parsed = new int[entries.length][];
+		for (int index = 0; index < entries.length; index++) {
+			String[] entry = entries[index].trim().split(":");
+			try {
+				String choice = entry[0].trim();
+				int weight = Integer.parseInt(entry[1].trim());
+				int dash = choice.indexOf('-');
+				if (ranges && choice.equals("*")) {
+					parsed[index] = new int[] { 0, 0, weight };
+				} else if (ranges && dash > 0) {
+					parsed[index] = new int[] { Integer.parseInt(choice.substring(0, dash)), Integer.parseInt(choice.substring(dash + 1)), weight };
+				} else {
+					int value = Integer.parseInt(choice);
+					parsed[index] = new int[] { value, value, weight };
+				}
+			} catch (RuntimeException runtimeException) {
+				throw new IllegalArgumentException("Invalid choice " + entries[index] + " in " + choices, runtimeException);
+			}
+			if (parsed[index][2] < 0 || (!ranges && parsed[index][0] <= 0)) {
+				throw new IllegalArgumentException("Invalid choice " + entries[index] + " in " + choices);
+			}
+		}
+		return parsed;
+	}
+
+	/**
+	 * 
+	 * The requests of every customer, drawn in customer order from one seeded generator.
+	 * 
+	 */
+	private static final class Customers {
+
+		private final int		size;
+		private final int[]		partySizes;
+		private final int[]		minLevels;
+		private final int[]		maxLevels;
+		private final boolean[]	reserves;
+		private final int[]		thinkTimes;
+
+		private Customers(int size, long seed, int[][] partySizeChoices, int[][] levelChoices, double conversion, int thinkTimeMillis) {
+			this.size = size;
+			this.partySizes = new int[size];
+			this.minLevels = new int[size];
+			this.maxLevels = new int[size];
+			this.reserves = new boolean[size];
+			this.thinkTimes = new int[size];
+			Random random = new Random(seed);
+			for (int customer = 0; customer < size; customer++) {
+				partySizes[customer] = choose(partySizeChoices, random)[0];
+				int[] levelChoice = choose(levelChoices, random);
+				minLevels[customer] = levelChoice[0];
+				maxLevels[customer] = levelChoice[1];
+				reserves[customer] = random.nextDouble() < conversion;
+				thinkTimes[customer] = thinkTimeMillis > 0 ? random.nextInt(thinkTimeMillis + 1) : 0;
+			}
+		}
+
+		private static int[] choose(int[][] choices, Random random) {
+			int totalWeight = 0;
+			for (int[] choice : choices) {
+				totalWeight += choice[2];
+			}
+			if (totalWeight <= 0) {
+				throw new IllegalArgumentException("The weights add up to " + totalWeight);
+			}
+			int draw = random.nextInt(totalWeight);
+			for (int[] choice : choices) {
+				draw -= choice[2];
+				if (draw < 0) {
+					return choice;
+				}
+			}
+			return choices[choices.length - 1];
+		}
+	}
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.walmart.ticket.metrics.LatencyHistogram;
+
+/**
+ * 
+ * Outcome of one {@link OnSaleLoadGenerator} run: totals, latency percentiles, the time the venue sold out and the
+ * throughput of every report interval.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class OnSaleReport {
+
+	private final LatencyHistogram	holdLatency		= new LatencyHistogram();
+	private final LatencyHistogram	reserveLatency	= new LatencyHistogram();
+	private final List<Interval>	intervals		= new ArrayList<Interval>();
+	private long					durationNanos;
+	private long					sellOutNanos;
+	private long					holds;
+	private long					failedHolds;
+	private long					seatsHeld;
+	private long					reservations;
+	private long					failedReservations;
+	private long					seatsReserved;
+	private long					holdErrors;
+	private long					reservationErrors;
+	private Throwable				firstError;
+
+	/**
+	 * @return the latency of findAndHoldSeats
+	 */
+	public LatencyHistogram getHoldLatency() {
+		return holdLatency;
+	}
+
+	/**
+	 * @return the latency of reserveSeats
+	 */
+	public LatencyHistogram getReserveLatency() {
+		return reserveLatency;
+	}
+
+	/**
+	 * @return the throughput of every report interval, in order
+	 */
+	public List<Interval> getIntervals() {
+		return Collections.unmodifiableList(intervals);
+	}
+
+	/**
+	 * @return the duration of the run in nanoseconds
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/**
+	 * @return the time from the start of the run until the first customer found the venue without a free seat, in
+	 *         nanoseconds, 0 if the venue did not sell out
+	 */
+	public long getSellOutNanos() {
+		return sellOutNanos;
+	}
+
+	/**
+	 * @return the number of successful holds
+	 */
+	public long getHolds() {
+		return holds;
+	}
+
+	/**
+	 * @return the number of customers no seats could be held for
+	 */
+	public long getFailedHolds() {
+		return failedHolds;
+	}
+
+	/**
+	 * @return the number of seats held
+	 */
+	public long getSeatsHeld() {
+		return seatsHeld;
+	}
+
+	/**
+	 * @return the number of reservations
+	 */
+	public long getReservations() {
+		return reservations;
+	}
+
+	/**
+	 * @return the number of reservations refused, e.g. because the hold expired during the think time
+	 */
+	public long getFailedReservations() {
+		return failedReservations;
+	}
+
+	/**
+	 * @return the number of seats reserved
+	 */
+	public long getSeatsReserved() {
+		return seatsReserved;
+	}
+
+	/**
+	 * @return the number of findAndHoldSeats calls which threw an exception
+	 */
+	public long getHoldErrors() {
+		return holdErrors;
+	}
+
+	/**
+	 * @return the number of reserveSeats calls which threw an exception other than TicketHoldNotFoundException
+	 */
+	public long getReservationErrors() {
+		return reservationErrors;
+	}
+
+	/**
+	 * @return the first exception a customer ran into, null if the run had no errors
+	 */
+	public Throwable getFirstError() {
+		return firstError;
+	}
+
+	/**
+	 * @return the requests, holds and reservations, served per second over the whole run
+	 */
+	public double getThroughput() {
+		return durationNanos > 0 ? (holds + failedHolds + reservations + failedReservations) * 1e9 / durationNanos : 0;
+	}
+
+	void setDurationNanos(long durationNanos) {
+		this.durationNanos = durationNanos;
+	}
+
+	void setSellOutNanos(long sellOutNanos) {
+		this.sellOutNanos = sellOutNanos;
+	}
+
+	void setTotals(long holds, long failedHolds, long seatsHeld, long reservations, long failedReservations, long seatsReserved) {
+		this.holds = holds;
+		this.failedHolds = failedHolds;
+		this.seatsHeld = seatsHeld;
+		this.reservations = reservations;
+		this.failedReservations = failedReservations;
+		this.seatsReserved = seatsReserved;
+	}
+
+	void setErrors(long holdErrors, long reservationErrors, Throwable firstError) {
+		this.holdErrors = holdErrors;
+		this.reservationErrors = reservationErrors;
+		this.firstError = firstError;
+	}
+
+	void addInterval(Interval interval) {
+		intervals.add(interval);
+	}
+
+	/**
+	 * 
+	 * Print the report in a human readable form.
+	 * 
+	 * @param out
+	 */
+	public void print(PrintStream out) {
+		out.println("time(s)   holds/s  failed/s  reserves/s  seats available");
+		for (Interval interval : intervals) {
+			out.printf("%7.1f %9d %9d %11d %16d%n", interval.getElapsedNanos() / 1e9, interval.getHoldsPerSecond(),
+					interval.getFailedHoldsPerSecond(), interval.getReservationsPerSecond(), interval.getSeatsAvailable());
+		}
+		out.println();
+		out.printf("duration            %10.3f s%n", durationNanos / 1e9);
+		out.printf("throughput          %10.0f requests/s%n", getThroughput());
+		out.printf("sell-out            %10s%n", sellOutNanos > 0 ? String.format("%.3f s", sellOutNanos / 1e9) : "-");
+		out.printf("holds               %10d (%d seats)%n", holds, seatsHeld);
+		out.printf("failed holds        %10d%n", failedHolds);
+		out.printf("reservations        %10d (%d seats)%n", reservations, seatsReserved);
+		out.printf("failed reservations %10d%n", failedReservations);
+		out.printf("hold errors         %10d%n", holdErrors);
+		out.printf("reservation errors  %10d%n", reservationErrors);
+		if (firstError != null) {
+			out.printf("first error         %s%n", firstError);
+		}
+		print(out, "findAndHoldSeats", holdLatency);
+		print(out, "reserveSeats", reserveLatency);
+	}
+
+	private static void print(PrintStream out, String operation, LatencyHistogram latencyHistogram) {
+		out.printf("%-19s p50 %8.1f us  p99 %8.1f us  p99.9 %8.1f us  max %8.1f us%n", operation,
+				micros(latencyHistogram.getP50Nanos()), micros(latencyHistogram.getP99Nanos()),
+				micros(latencyHistogram.getP999Nanos()), micros(latencyHistogram.getMaxNanos()));
+	}
+
+	private static double micros(long nanos) {
+		return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+	}
+
+	/**
+	 * 
+	 * Throughput of one report interval.
+	 * 
+	 */
+	public static final class Interval {
+
+		private final long	elapsedNanos;
+		private final long	holdsPerSecond;
+		private final long	failedHoldsPerSecond;
+		private final long	reservationsPerSecond;
+		private final int	seatsAvailable;
+
+		Interval(long elapsedNanos, long holdsPerSecond, long failedHoldsPerSecond, long reservationsPerSecond, int seatsAvailable) {
+			this.elapsedNanos = elapsedNanos;
+			this.holdsPerSecond = holdsPerSecond;
+			this.failedHoldsPerSecond = failedHoldsPerSecond;
+			this.reservationsPerSecond = reservationsPerSecond;
+			this.seatsAvailable = seatsAvailable;
+		}
+
+		/**
+		 * @return the time from the start of the run to the end of the interval, in nanoseconds
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * @return the successful holds per second
+		 */
+		public long getHoldsPerSecond() {
+			return holdsPerSecond;
+		}
+
+		/**
+		 * @return the failed holds per second
+		 */
+		public long getFailedHoldsPerSecond() {
+			return failedHoldsPerSecond;
+		}
+
+		/**
+		 * @return the reservations per second
+		 */
+		public long getReservationsPerSecond() {
+			return reservationsPerSecond;
+		}
+
+		/**
+		 * @return the seats neither held nor reserved at the end of the interval
+		 */
+		public int getSeatsAvailable() {
+			return seatsAvailable;
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.journal.TicketJournal;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ * 
+ * Measures a findAndHoldSeats / reserveSeats round trip, with and without a journal. The venue is re-initialized whenever
+ * it sells out.
+ * 
+ * With a journal every reservation waits for its record to reach the disk, concurrent reservations share one flush.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReserveSeatsBenchmark {
+
+	private static final int				PARTY_SIZE		= 4;
+
+	@Param({ "false", "true" })
+	private boolean							journaled;
+
+	private final List<TicketServiceImpl>	ticketServices	= new ArrayList<TicketServiceImpl>();
+	private final List<TicketJournal>		ticketJournals	= new ArrayList<TicketJournal>();
+	private final List<File>				directories		= new ArrayList<File>();
+	private volatile TicketServiceImpl		ticketService;
+
+	@Setup
+	public void setUp() throws IOException {
+		open();
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (TicketServiceImpl ticketService : ticketServices) {
+			ticketService.destroy();
+		}
+		for (TicketJournal ticketJournal : ticketJournals) {
+			ticketJournal.close();
+		}
+		for (File directory : directories) {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Benchmark
+	public String holdAndReserve() throws IOException {
+		return holdAndReserveSeats();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String holdAndReserve8Threads() throws IOException {
+		return holdAndReserveSeats();
+	}
+
+	private String holdAndReserveSeats() throws IOException {
+		TicketServiceImpl ticketService = this.ticketService;
+		SeatHold seatHold;
+		while ((seatHold = ticketService.findAndHoldSeats(PARTY_SIZE, Optional.empty(), Optional.empty(), Venues.CUSTOMER_EMAIL)) == null) {
+			ticketService = reopen(ticketService);
+		}
+		return ticketService.reserveSeats(seatHold.getSeatHoldId(), Venues.CUSTOMER_EMAIL);
+	}
+
+	/**
+	 * 
+	 * Start the sold out venue over. init() would restore a journaled venue, so a new service with an empty journal
+	 * replaces a journaled one, the old one is kept until the tear down as other threads may still use it.
+	 * 
+	 */
+	private synchronized TicketServiceImpl reopen(TicketServiceImpl soldOut) throws IOException {
+		if (!journaled) {
+			soldOut.init();
+		} else if (ticketService == soldOut) {
+			open();
+		}
+		return ticketService;
+	}
+
+	private void open() throws IOException {
+		TicketJournal ticketJournal = null;
+		if (journaled) {
+			File directory = Files.createTempDirectory("ticket-journal").toFile();
+			directories.add(directory);
+			ticketJournal = new TicketJournal(directory);
+			ticketJournals.add(ticketJournal);
+		}
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED,
+				ticketJournal);
+		ticketServices.add(ticketService);
+		this.ticketService = ticketService;
+	}
+
+}
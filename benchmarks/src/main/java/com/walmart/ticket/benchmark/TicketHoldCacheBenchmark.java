@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.domain.SeatHold;
+
+/**
+ * 
+ * Measures TicketHoldCache add, get and remove with 100k live holds, and an expiry sweep of 100k expired holds.
+ * 
+ * The background expiration thread is never started, so only the benchmark thread touches the cache.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketHoldCacheBenchmark {
+
+	static final int	LIVE_HOLDS	= 100000;
+	static final long	ONE_HOUR	= TimeUnit.HOURS.toMillis(1);
+
+	private TicketHoldCache	ticketHoldCache;
+	private SeatHold[]		extraHolds;
+	private int				nextKey;
+	private int				nextExtraHold;
+
+	@Setup
+	public void setUp() {
+		ticketHoldCache = new TicketHoldCache();
+		for (int seatHoldId = 1; seatHoldId <= LIVE_HOLDS; seatHoldId++) {
+			ticketHoldCache.add(liveHold(seatHoldId));
+		}
+		extraHolds = new SeatHold[1024];
+		for (int index = 0; index < extraHolds.length; index++) {
+			extraHolds[index] = liveHold(LIVE_HOLDS + 1 + index);
+		}
+	}
+
+	@Benchmark
+	public SeatHold get() {
+		nextKey = nextKey == LIVE_HOLDS ? 1 : nextKey + 1;
+		return ticketHoldCache.get(nextKey);
+	}
+
+	@Benchmark
+	public SeatHold addAndRemove() {
+		SeatHold seatHold = extraHolds[nextExtraHold++ & (extraHolds.length - 1)];
+		ticketHoldCache.add(seatHold);
+		ticketHoldCache.remove(seatHold);
+		return seatHold;
+	}
+
+	/**
+	 * 
+	 * Expiry sweep over 100k expired holds, next to the 100k live ones.
+	 * 
+	 */
+	@State(Scope.Benchmark)
+	public static class ExpiredHolds {
+
+		@Setup(Level.Iteration)
+		public void setUp(TicketHoldCacheBenchmark benchmark) {
+			for (int seatHoldId = 1; seatHoldId <= LIVE_HOLDS; seatHoldId++) {
+				SeatHold seatHold = new SeatHold(-seatHoldId);
+				seatHold.setExpiration(-1);
+				benchmark.ticketHoldCache.add(seatHold);
+			}
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 5, batchSize = 1)
+	@Measurement(iterations = 10, batchSize = 1)
+	public void expirySweep(ExpiredHolds expiredHolds) {
+		ticketHoldCache.expireObjects();
+	}
+
+	static SeatHold liveHold(int seatHoldId) {
+		SeatHold seatHold = new SeatHold(seatHoldId);
+		seatHold.setExpiration(ONE_HOUR);
+		return seatHold;
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.benchmark;
+
+import java.util.Optional;
+
+import com.walmart.ticket.constants.SeatLevel;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.service.TicketService;
+
+/**
+ * 
+ * Helpers to bring a venue into a known state before a benchmark runs.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+final class Venues {
+
+	static final String	CUSTOMER_EMAIL	= "benchmark@walmart.com";
+
+	private Venues() {
+
+	}
+
+	/**
+	 * 
+	 * Reserve the given percentage of every level. Reserved seats never expire, so the occupancy stays stable for the whole run.
+	 * 
+	 * @param ticketService
+	 * @param percent
+	 */
+	static void fill(TicketService ticketService, int percent) {
+		for (SeatLevel seatLevel : SeatLevel.values()) {
+			Optional<Integer> level = Optional.of(seatLevel.getLevelId());
+			int target = seatLevel.getRows() * seatLevel.getNumberofSeats() * percent / 100;
+			int reserved = 0;
+			while (reserved < target) {
+				int numSeats = Math.min(10, target - reserved);
+				SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, level, level, CUSTOMER_EMAIL);
+				ticketService.reserveSeats(seatHold.getSeatHoldId(), CUSTOMER_EMAIL);
+				reserved += numSeats;
+			}
+		}
+	}
+
+}
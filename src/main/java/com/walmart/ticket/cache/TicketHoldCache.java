@@ -15,18 +15,28 @@
  */
 package com.walmart.ticket.cache;
 
-import java.util.Hashtable;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import com.walmart.ticket.domain.ExpirableObject;
+import com.walmart.ticket.constants.TicketServiceConstants;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.hold.expiration.HierarchicalTimingWheel;
+import com.walmart.ticket.hold.expiration.HierarchicalTimingWheel.Timeout;
 import com.walmart.ticket.hold.expiration.TicketHoldCacheExpirationThread;
+import com.walmart.ticket.inventory.LevelInventory;
+import com.walmart.ticket.metrics.TicketServiceMetrics;
+import com.walmart.ticket.util.IntHashMap;
 
 /**
  *
  * Implementation to cache ticket hold for certain period of time. A minimum priority thread is responsible to expire the object from cache.
  * 
- * It uses a Treeset, to avoid iterating through everything.
+ * Every TicketService owns its own cache. Holds are spread over shards by seatHoldId, each shard has its own
+ * {@link IntHashMap} and its own timing wheel, so gets are lock-free and allocate nothing, writes to different shards
+ * never contend and an expiry sweep only ever works on one shard at a time.
  * 
  * @author Sarvesh Katariya
  * @version 1.0
@@ -34,115 +44,268 @@ import com.walmart.ticket.hold.expiration.TicketHoldCacheExpirationThread;
  * 
  */
 public class TicketHoldCache {
-	
-	private static Hashtable<Object, ExpirableObject>	cachedObjects		= new Hashtable<Object, ExpirableObject>();
-	private static SortedSet<ExpirableObject>			timeStampedStore	= new TreeSet<ExpirableObject>();
-	private static TicketHoldCacheExpirationThread		ticketHoldCacheExpirationThread;
 
-	// No instances allowed.
-	private TicketHoldCache() {
+	private final Shard[]							shards;
+	private final int								shardMask;
+	private final TicketHoldCacheExpirationThread	ticketHoldCacheExpirationThread;
+	private final List<Timeout<SeatHold>>			expired		= new ArrayList<Timeout<SeatHold>>();
+	private final Map<LevelInventory, List<int[]>>	releases	= new IdentityHashMap<LevelInventory, List<int[]>>();
+	private volatile long							nextExpirationTime;
+	private volatile TicketServiceMetrics			metrics;
 
+	public TicketHoldCache() {
+		this(TicketServiceConstants.HOLD_CACHE_SHARDS);
 	}
 
-	static {
-		ticketHoldCacheExpirationThread = new TicketHoldCacheExpirationThread();
-		ticketHoldCacheExpirationThread.start();
+	/**
+	 * @param numberOfShards rounded up to the next power of two
+	 */
+	public TicketHoldCache(int numberOfShards) {
+		int size = 1;
+		while (size < numberOfShards) {
+			size <<= 1;
+		}
+		this.shards = new Shard[size];
+		for (int index = 0; index < size; index++) {
+			this.shards[index] = new Shard();
+		}
+		this.shardMask = size - 1;
+		this.ticketHoldCacheExpirationThread = new TicketHoldCacheExpirationThread(this);
 	}
 
 	/**
-	 * Adds the ExpirableObject to cache.
 	 * 
-	 * @param expirableObject
+	 * Starts the thread which is responsible to remove the expired object from cache, if not already started.
+	 * 
 	 */
-	public synchronized static void add(ExpirableObject expirableObject) {
-		Object key = expirableObject.getKey();
-		if (cachedObjects.containsKey(key)) {
-			return;
+	public synchronized void start() {
+		if (ticketHoldCacheExpirationThread.getState() == Thread.State.NEW) {
+			ticketHoldCacheExpirationThread.start();
 		}
-		timeStampedStore.add(expirableObject);
-		cachedObjects.put(key, expirableObject);
 	}
 
 	/**
-	 * Removes the ExpirableObject from cache.
+	 * Adds the SeatHold to cache.
 	 * 
-	 * @param expirableObject
+	 * @param seatHold
+	 * @return false if the cache already holds a SeatHold with the same seatHoldId, the SeatHold is then not added
 	 */
-	public static synchronized void remove(ExpirableObject expirableObject) {
-		timeStampedStore.remove(expirableObject);
-		cachedObjects.remove(expirableObject.getKey());
+	public boolean add(SeatHold seatHold) {
+		Shard shard = shard(seatHold.getSeatHoldId());
+		if (shard.cachedObjects.containsKey(seatHold.getSeatHoldId())) {
+			return false;
+		}
+		Timeout<SeatHold> timeout = shard.timingWheel.schedule(seatHold, seatHold.getExpirationTime());
+		if (shard.cachedObjects.putIfAbsent(seatHold.getSeatHoldId(), timeout) != null) {
+			timeout.cancel();
+			return false;
+		}
+		wakeUpBefore(seatHold.getExpirationTime());
+		return true;
 	}
 
 	/**
-	 * Returns the ExpirableObject to which the specified key is mapped,
-     * or {@code null} if this map contains no mapping for the key.
+	 * Removes the SeatHold from cache.
 	 * 
-	 * @param key
-	 * @return the value to which the specified key is mapped, or
-     *         {@code null} if this map contains no mapping for the key
+	 * @param seatHold
 	 */
-	public synchronized static ExpirableObject get(Object key) {
-		return cachedObjects.get(key);
+	public void remove(SeatHold seatHold) {
+		Timeout<SeatHold> timeout = shard(seatHold.getSeatHoldId()).cachedObjects.remove(seatHold.getSeatHoldId());
+		if (timeout != null) {
+			timeout.cancel();
+		}
 	}
 
 	/**
 	 * 
-	 * Clears the cache and halts the thread which is responsible to remove the expired object from cache.
+	 * Move the SeatHold to the expiration time it has now, after it was changed. The hold gets a new timeout in O(1)
+	 * and its previous timeout is cancelled in O(1), nothing is rescanned. Whichever of rescheduling and the expiry
+	 * sweep swaps the cache entry of the hold first wins, so a hold is never expired by a timeout it was moved away
+	 * from. When the expiration time changes again meanwhile, the hold is moved once more, so its last timeout always
+	 * matches its last expiration time.
 	 * 
+	 * @param seatHold
+	 * @return false if the SeatHold is no longer in the cache
 	 */
-	public synchronized static void halt() {
-		cachedObjects.clear();
-		timeStampedStore.clear();
-		ticketHoldCacheExpirationThread.halt();
+	public boolean reschedule(SeatHold seatHold) {
+		Shard shard = shard(seatHold.getSeatHoldId());
+		while (true) {
+			Timeout<SeatHold> current = shard.cachedObjects.get(seatHold.getSeatHoldId());
+			if (current == null || current.getItem() != seatHold) {
+				return false;
+			}
+			long expirationTime = seatHold.getExpirationTime();
+			Timeout<SeatHold> timeout = shard.timingWheel.schedule(seatHold, expirationTime);
+			if (!shard.cachedObjects.replace(seatHold.getSeatHoldId(), current, timeout)) {
+				timeout.cancel();
+				continue;
+			}
+			current.cancel();
+			wakeUpBefore(expirationTime);
+			if (seatHold.getExpirationTime() == expirationTime) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the SeatHold to which the specified seatHoldId is mapped,
+	 * or {@code null} if this cache contains no mapping for the seatHoldId.
+	 * 
+	 * @param seatHoldId
+	 * @return the SeatHold to which the specified seatHoldId is mapped, or
+	 *         {@code null} if this cache contains no mapping for the seatHoldId
+	 */
+	public SeatHold get(int seatHoldId) {
+		Timeout<SeatHold> timeout = shard(seatHoldId).cachedObjects.get(seatHoldId);
+		return timeout != null ? timeout.getItem() : null;
+	}
+
+	/**
+	 * 
+	 * Returns the SeatHolds in the cache. Holds added or removed while the shards are visited may or may not be
+	 * included.
+	 * 
+	 * @return the SeatHolds in the cache
+	 */
+	public List<SeatHold> getSeatHolds() {
+		List<SeatHold> seatHolds = new ArrayList<SeatHold>();
+		for (Shard shard : shards) {
+			shard.cachedObjects.forEachValue(timeout -> seatHolds.add(timeout.getItem()));
+		}
+		return seatHolds;
+	}
+
+	/**
+	 * @param metrics the metrics expiry sweeps are recorded in, null to record none
+	 */
+	public void setMetrics(TicketServiceMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return the number of holds in the cache
+	 */
+	public int size() {
+		int size = 0;
+		for (Shard shard : shards) {
+			size += shard.cachedObjects.size();
+		}
+		return size;
 	}
 
 	/**
-	 * Expire oldest eligible object from cache.
+	 * 
+	 * Clears the cache and halts the thread which is responsible to remove the expired object from cache.
 	 * 
 	 */
-	public static void expireObjects() {
-		while (removeOldestObject()) {}
+	public void halt() {
+		ticketHoldCacheExpirationThread.halt();
+		for (Shard shard : shards) {
+			shard.cachedObjects.clear();
+			shard.timingWheel.clear();
+		}
 	}
 
 	/**
+	 * Expire every hold whose expiration time has passed, one shard at a time. The seats of the expired holds are
+	 * collected per level and returned in one {@link LevelInventory#releaseAll(int[][])} per level and sweep, so a
+	 * wave of lapsing holds costs one pass over each level instead of one release per hold. With metrics, the duration
+	 * of every sweep which expired a hold and how late each hold was expired are recorded.
 	 * 
-	 * Remove the expired object from cache.
+	 * Sweeps reuse the same scratch collections and return when the next one is due, so an idle cache is not swept
+	 * every tick. Holds added or moved earlier than that wake the expiration thread.
 	 * 
-	 * @return whether the oldest object was expired
+	 * @return epoch milliseconds of the next sweep which may expire a hold, {@link Long#MAX_VALUE} if none is held
 	 */
-	private static boolean removeOldestObject() {
-		ExpirableObject oldestObject = getOldestObject();
-		if (oldestObject != null && oldestObject.shouldExpire()) {
-			remove(oldestObject);
-			expire(oldestObject);
-			return true;
+	public synchronized long expireObjects() {
+		nextExpirationTime = Long.MAX_VALUE;
+		TicketServiceMetrics metrics = this.metrics;
+		long startTime = metrics != null ? System.nanoTime() : 0;
+		int numExpired = 0;
+		long nextExpirationTime = Long.MAX_VALUE;
+		for (Shard shard : shards) {
+			long now = System.currentTimeMillis();
+			nextExpirationTime = Math.min(nextExpirationTime, shard.timingWheel.advance(now, expired));
+			for (Timeout<SeatHold> timeout : expired) {
+				SeatHold seatHold = timeout.getItem();
+				if (shard.cachedObjects.remove(seatHold.getSeatHoldId(), timeout)) {
+					int[] positions = markExpired(seatHold);
+					if (positions != null) {
+						releases.computeIfAbsent(seatHold.getLevelInventory(), levelInventory -> new ArrayList<int[]>()).add(positions);
+					}
+					if (metrics != null) {
+						metrics.recordExpiry(TimeUnit.MILLISECONDS.toNanos(now - seatHold.getExpirationTime()));
+						numExpired++;
+					}
+				}
+			}
+			expired.clear();
 		}
-		return false;
+		for (Map.Entry<LevelInventory, List<int[]>> release : releases.entrySet()) {
+			if (!release.getValue().isEmpty()) {
+				releaseAll(release.getKey(), release.getValue());
+				release.getValue().clear();
+			}
+		}
+		if (numExpired > 0) {
+			metrics.getExpirySweepDuration().recordSince(startTime);
+		}
+		this.nextExpirationTime = nextExpirationTime;
+		return nextExpirationTime;
 	}
 
 	/**
 	 * 
-	 * Returns the oldest object which was added to the cache
+	 * Wake the expiration thread if it sleeps past the given expiration time. While a sweep runs every hold wakes it,
+	 * so a hold scheduled behind the sweep is picked up by the next one.
 	 * 
-	 * @return oldest object which was added to the cache
 	 */
-	private static synchronized ExpirableObject getOldestObject() {
-		if (timeStampedStore != null && !timeStampedStore.isEmpty()) {
-			return timeStampedStore.last();
+	private void wakeUpBefore(long expirationTime) {
+		if (expirationTime < nextExpirationTime) {
+			ticketHoldCacheExpirationThread.wakeUp();
 		}
-		return null;
+	}
+
+	private Shard shard(int seatHoldId) {
+		return shards[(seatHoldId * 0x9E3779B9 >>> 16) & shardMask];
 	}
 
 	/**
 	 * 
-	 * Invoke lifecycle method expiry of ExpirableObject.
+	 * Invoke lifecycle method expiry of SeatHold, leaving its seats to be released with the batch of its level. The
+	 * seats of an expired hold are released even if its expiry could not be journaled.
 	 * 
-	 * @param expirableObject
+	 * @param seatHold
+	 * @return positions of the seats to release, or null
 	 */
-	private static void expire(ExpirableObject expirableObject) {
+	private static int[] markExpired(SeatHold seatHold) {
+		int[] positions = null;
 		try {
-			expirableObject.expire();
+			positions = seatHold.markExpired();
+			if (positions != null) {
+				seatHold.journalExpiry(positions);
+			}
 		} catch (Throwable throwable) {
 		}
+		return positions;
+	}
+
+	private static void releaseAll(LevelInventory levelInventory, List<int[]> holds) {
+		try {
+			levelInventory.releaseAll(holds.toArray(new int[holds.size()][]));
+		} catch (Throwable throwable) {
+		}
+	}
+
+	/**
+	 * 
+	 * One independent part of the cache.
+	 * 
+	 */
+	private static final class Shard {
+
+		private final IntHashMap<Timeout<SeatHold>>		cachedObjects	= new IntHashMap<Timeout<SeatHold>>();
+		private final HierarchicalTimingWheel<SeatHold>	timingWheel		= new HierarchicalTimingWheel<SeatHold>(TicketServiceConstants.EXPIRATION_TICK);
 	}
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.constants;
+
+/**
+ * 
+ * InventoryMode is an enum type that represents how the seat inventory of a level is updated by concurrent requests.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public enum InventoryMode {
+
+	/**
+	 * Every request thread claims seats itself with compare-and-set.
+	 */
+	SHARED,
+
+	/**
+	 * A single writer thread per level applies the requests in arrival order, request threads wait for its reply.
+	 */
+	SEQUENCED
+
+}
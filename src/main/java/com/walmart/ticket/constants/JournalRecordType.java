@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.constants;
+
+/**
+ * 
+ * JournalRecordType is an enum type that represents the events written to the ticket journal.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public enum JournalRecordType {
+
+	/**
+	 * Seats were held for a customer.
+	 */
+	HOLD((byte) 1),
+
+	/**
+	 * Held seats were reserved.
+	 */
+	RESERVE((byte) 2),
+
+	/**
+	 * Held seats were returned to the free pool.
+	 */
+	EXPIRE((byte) 3),
+
+	/**
+	 * A hold was extended, the record carries its new expiration time.
+	 */
+	EXTEND((byte) 4);
+
+	private final byte	code;
+
+	/**
+	 * @param code
+	 */
+	private JournalRecordType(byte code) {
+		this.code = code;
+	}
+
+	/**
+	 * @return the code written to the journal
+	 */
+	public byte getCode() {
+		return code;
+	}
+
+	/**
+	 * 
+	 * Find the type written with the given code
+	 * 
+	 * @param code
+	 * @return the JournalRecordType, or null for an unknown code
+	 */
+	public static JournalRecordType fromCode(byte code) {
+		for (JournalRecordType journalRecordType : JournalRecordType.values()) {
+			if (journalRecordType.code == code) {
+				return journalRecordType;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.constants;
+
+/**
+ * 
+ * SeatAllocation is an enum type that represents how findAndHoldSeats picks the seats of a party within a level.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public enum SeatAllocation {
+
+	/**
+	 * First free seats in row major order, a party may be scattered over several rows.
+	 */
+	FIRST_AVAILABLE,
+
+	/**
+	 * Adjacent seats in a single row, split over as few rows as possible when no row fits the whole party.
+	 */
+	TOGETHER,
+
+	/**
+	 * Highest ranked free seats according to the {@link com.walmart.ticket.domain.SeatQuality} of the level, a party
+	 * may be scattered over several rows.
+	 */
+	BEST_AVAILABLE
+
+}
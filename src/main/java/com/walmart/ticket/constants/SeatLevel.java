@@ -112,4 +112,20 @@ public enum SeatLevel {
 		return seatLevels;
 	}
 
+	/**
+	 * 
+	 * Find the level with the given identifier
+	 * 
+	 * @param levelId a numeric venue level identifier
+	 * @return the SeatLevel, or null if no level has the identifier
+	 */
+	public static SeatLevel getSeatLevel(Integer levelId) {
+		for (SeatLevel seatLevel : SeatLevel.values()) {
+			if (seatLevel.getLevelId().equals(levelId)) {
+				return seatLevel;
+			}
+		}
+		return null;
+	}
+
 }
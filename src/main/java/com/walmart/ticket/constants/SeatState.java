@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.constants;
+
+/**
+ * 
+ * SeatState is an enum type that represents the state of a seat on the seat map.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public enum SeatState {
+
+	/**
+	 * The seat is neither held nor reserved.
+	 */
+	AVAILABLE,
+
+	/**
+	 * The seat is held for a customer and returns to the pool unless reserved in time.
+	 */
+	HELD,
+
+	/**
+	 * The seat is sold.
+	 */
+	RESERVED
+
+}
@@ -30,9 +30,24 @@ public class TicketServiceConstants {
 
 	}
 
-	public static final long	TWO_MINUTES			= 2 * 60 * 1000;
-	public static final long	DEFAULT_LIFETIME	= TWO_MINUTES;
-	public static final long	TWO_SECONDS			= 2 * 1000;
-	public static final long	THREAD_SLEEP_TIME	= TWO_SECONDS;
+	public static final long	TWO_MINUTES				= 2 * 60 * 1000;
+	public static final long	DEFAULT_LIFETIME		= TWO_MINUTES;
+	public static final long	MAX_HOLD_LIFETIME		= 5 * TWO_MINUTES;
+	public static final long	TWO_SECONDS				= 2 * 1000;
+	public static final long	THREAD_SLEEP_TIME		= TWO_SECONDS;
+	public static final long	EXPIRATION_TICK			= 1;
+	public static final int		HOLD_CACHE_SHARDS		= 16;
+	public static final int		HOLD_ID_STRIPES			= 16;
+	public static final int		RESERVATION_NODE_ID		= 0;
+	public static final int		RESERVATION_ID_ATTEMPTS	= 16;
+	public static final int		SEQUENCER_CAPACITY		= 1024;
+	public static final int		SEQUENCER_SPINS			= 1000;
+	public static final long	SEQUENCER_PARK_NANOS	= 1000000;
+	public static final int		JOURNAL_SEGMENT_SIZE	= 64 * 1024 * 1024;
+	public static final int		JOURNAL_CAPACITY		= 8192;
+	public static final long	JOURNAL_FLUSH_INTERVAL	= 10;
+	public static final long	SNAPSHOT_INTERVAL		= 60 * 1000;
+	public static final int		SEAT_MAP_CAPACITY		= 4096;
+	public static final long	SEAT_MAP_INTERVAL_NANOS	= 10 * 1000 * 1000;
 
 }
@@ -15,6 +15,8 @@
  */
 package com.walmart.ticket.domain;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 import com.walmart.ticket.constants.TicketServiceConstants;
 
 /**
@@ -26,9 +28,12 @@ import com.walmart.ticket.constants.TicketServiceConstants;
  * @since 08/01/2016
  * 
  */
-public abstract class ExpirableObject implements Comparable {
+public abstract class ExpirableObject {
+
+	private static final AtomicLongFieldUpdater<ExpirableObject>	EXPIRATION_TIME	= AtomicLongFieldUpdater.newUpdater(ExpirableObject.class,
+			"expirationTime");
 
-	private long				expirationTime;
+	private volatile long											expirationTime;
 
 	public abstract void expire();
 
@@ -47,39 +52,36 @@ public abstract class ExpirableObject implements Comparable {
 	}
 
 	/**
-	 * 
-	 * Returns if the object is eligible to expiry.
-	 * 
-	 * @return whether the object is eligible to be expired
+	 * @param expirationTime the epoch millis after which the object expires
 	 */
-	public final boolean shouldExpire() {
-		return System.currentTimeMillis() > expirationTime;
+	public void setExpirationTime(long expirationTime) {
+		this.expirationTime = expirationTime;
 	}
 
-	public int compareTo(Object object) {
-		if (!(object instanceof ExpirableObject)) {
-			return compareToBasedOnHashcodes(object);
-		}
-		ExpirableObject otherExpirableObject = (ExpirableObject) object;
-		int returnValue = compare(expirationTime, otherExpirableObject.expirationTime);
-		if (0 != returnValue) {
-			return returnValue;
-		}
-		return compareToBasedOnHashcodes(object);
+	/**
+	 * @param expect the expiration time the object is expected to have
+	 * @param update the epoch millis after which the object expires
+	 * @return whether the object had the expected expiration time and was updated
+	 */
+	public boolean compareAndSetExpirationTime(long expect, long update) {
+		return EXPIRATION_TIME.compareAndSet(this, expect, update);
 	}
 
-	private int compareToBasedOnHashcodes(Object object) {
-		return compare(hashCode(), object.hashCode());
+	/**
+	 * @return the epoch millis after which the object expires
+	 */
+	public long getExpirationTime() {
+		return expirationTime;
 	}
 
-	private int compare(long firstValue, long secondValue) {
-		if (firstValue < secondValue) {
-			return 1;
-		}
-		if (secondValue < firstValue) {
-			return -1;
-		}
-		return 0;
+	/**
+	 * 
+	 * Returns if the object is eligible to expiry.
+	 * 
+	 * @return whether the object is eligible to be expired
+	 */
+	public final boolean shouldExpire() {
+		return System.currentTimeMillis() > expirationTime;
 	}
 
 }
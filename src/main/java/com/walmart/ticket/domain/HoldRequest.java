@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.domain;
+
+import java.util.Optional;
+
+/**
+ * 
+ * HoldRequest represents one findAndHoldSeats call submitted as part of a batch.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public class HoldRequest {
+
+	private int					numSeats;
+	private Optional<Integer>	minLevel;
+	private Optional<Integer>	maxLevel;
+	private String				customerEmail;
+
+	/**
+	 * @param numSeats
+	 * @param minLevel
+	 * @param maxLevel
+	 * @param customerEmail
+	 */
+	public HoldRequest(int numSeats, Optional<Integer> minLevel, Optional<Integer> maxLevel, String customerEmail) {
+		super();
+		this.numSeats = numSeats;
+		this.minLevel = minLevel;
+		this.maxLevel = maxLevel;
+		this.customerEmail = customerEmail;
+	}
+
+	/**
+	 * @return the numSeats
+	 */
+	public int getNumSeats() {
+		return numSeats;
+	}
+
+	/**
+	 * @param numSeats
+	 *            the numSeats to set
+	 */
+	public void setNumSeats(int numSeats) {
+		this.numSeats = numSeats;
+	}
+
+	/**
+	 * @return the minLevel
+	 */
+	public Optional<Integer> getMinLevel() {
+		return minLevel;
+	}
+
+	/**
+	 * @param minLevel
+	 *            the minLevel to set
+	 */
+	public void setMinLevel(Optional<Integer> minLevel) {
+		this.minLevel = minLevel;
+	}
+
+	/**
+	 * @return the maxLevel
+	 */
+	public Optional<Integer> getMaxLevel() {
+		return maxLevel;
+	}
+
+	/**
+	 * @param maxLevel
+	 *            the maxLevel to set
+	 */
+	public void setMaxLevel(Optional<Integer> maxLevel) {
+		this.maxLevel = maxLevel;
+	}
+
+	/**
+	 * @return the customerEmail
+	 */
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+
+	/**
+	 * @param customerEmail
+	 *            the customerEmail to set
+	 */
+	public void setCustomerEmail(String customerEmail) {
+		this.customerEmail = customerEmail;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "HoldRequest [numSeats=" + numSeats + ", minLevel=" + minLevel + ", maxLevel=" + maxLevel
+				+ ", customerEmail=" + customerEmail + "]";
+	}
+
+}
@@ -15,8 +15,6 @@
  */
 package com.walmart.ticket.domain;
 
-import com.walmart.ticket.constants.SeatLevel;
-
 /**
  * Seat domain object
  * 
@@ -27,18 +25,18 @@ import com.walmart.ticket.constants.SeatLevel;
  */
 public class Seat {
 
-	private int				row;
-	private int				seatNumber;
-	private SeatLevel		seatLevel;
-	private boolean			hold;
-	private SeatReservation	seatReservation;
+	private int					row;
+	private int					seatNumber;
+	private VenueLevel			seatLevel;
+	private volatile boolean	hold;
+	private SeatReservation		seatReservation;
 	
 	/**
 	 * @param row
 	 * @param seatNumber
 	 * @param seatLevel
 	 */
-	public Seat(int row, int seatNumber, SeatLevel seatLevel) {
+	public Seat(int row, int seatNumber, VenueLevel seatLevel) {
 		super();
 		this.row = row;
 		this.seatNumber = seatNumber;
@@ -78,7 +76,7 @@ public class Seat {
 	/**
 	 * @return the seatLevel
 	 */
-	public SeatLevel getSeatLevel() {
+	public VenueLevel getSeatLevel() {
 		return seatLevel;
 	}
 
@@ -86,7 +84,7 @@ public class Seat {
 	 * @param seatLevel
 	 *            the seatLevel to set
 	 */
-	public void setSeatLevel(SeatLevel seatLevel) {
+	public void setSeatLevel(VenueLevel seatLevel) {
 		this.seatLevel = seatLevel;
 	}
 
@@ -18,11 +18,21 @@ package com.walmart.ticket.domain;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.walmart.ticket.constants.JournalRecordType;
+import com.walmart.ticket.inventory.LevelInventory;
+import com.walmart.ticket.journal.JournalRecord;
+import com.walmart.ticket.journal.TicketJournal;
 
 /**
  * 
  * SeatHold represents the seat hold.
  * 
+ * All seats of a hold are on one level, they are kept as their packed positions within the {@link LevelInventory} of that
+ * level, so reserving and expiring a hold are plain loops over an int array. The {@link Seat} objects of
+ * {@link #getSeats()} are only created when asked for.
+ * 
  * @author Sarvesh Katariya
  * @version 1.0
  * @since 08/01/2016
@@ -30,10 +40,20 @@ import java.util.List;
  */
 public class SeatHold extends ExpirableObject {
 
-	private int			seatHoldId;
-	private String		customerEmail;
-	private Date		holdTime;
-	private List<Seat>	seats;
+	private static final int	HELD		= 0;
+	private static final int	RESERVED	= 1;
+	private static final int	EXPIRED		= 2;
+
+	private int					seatHoldId;
+	private String				customerEmail;
+	private Date				holdTime;
+	private int[]				positions;
+	private volatile List<Seat>	seats;
+	private VenueLevel			seatLevel;
+	private LevelInventory		levelInventory;
+	private SeatReservation		seatReservation;
+	private TicketJournal		ticketJournal;
+	private final AtomicInteger	state		= new AtomicInteger(HELD);
 
 	/**
 	 * @param seatHoldId
@@ -85,13 +105,35 @@ public class SeatHold extends ExpirableObject {
 	}
 
 	/**
+	 * 
+	 * The seats of the hold, created from the positions on first use.
+	 * 
 	 * @return the seats
 	 */
 	public List<Seat> getSeats() {
-		if (this.seats == null) {
-			this.seats = new ArrayList<Seat>();
+		List<Seat> seats = this.seats;
+		if (seats == null) {
+			seats = new ArrayList<Seat>(this.positions != null ? this.positions.length : 10);
+			if (this.positions != null && this.levelInventory != null) {
+				boolean hold = isHeld();
+				SeatReservation seatReservation = this.seatReservation;
+				for (int position : this.positions) {
+					Seat seat = new Seat(this.levelInventory.getRow(position), this.levelInventory.getSeatNumber(position), this.seatLevel);
+					seat.setHold(hold);
+					seat.setSeatReservation(seatReservation);
+					seats.add(seat);
+				}
+			}
+			this.seats = seats;
 		}
-		return this.seats;
+		return seats;
+	}
+
+	/**
+	 * @return the number of held seats
+	 */
+	public int getNumSeats() {
+		return this.positions != null ? this.positions.length : getSeats().size();
 	}
 
 	/**
@@ -109,13 +151,173 @@ public class SeatHold extends ExpirableObject {
 		this.holdTime = holdTime;
 	}
 
+	/**
+	 * @return the levelInventory the seats are held from
+	 */
+	public LevelInventory getLevelInventory() {
+		return levelInventory;
+	}
+
+	/**
+	 * @param levelInventory
+	 *            the levelInventory to set
+	 */
+	public void setLevelInventory(LevelInventory levelInventory) {
+		this.levelInventory = levelInventory;
+	}
+
+	/**
+	 * @return the seatLevel of the held seats
+	 */
+	public VenueLevel getSeatLevel() {
+		return seatLevel;
+	}
+
+	/**
+	 * @param seatLevel
+	 *            the seatLevel to set
+	 */
+	public void setSeatLevel(VenueLevel seatLevel) {
+		this.seatLevel = seatLevel;
+	}
+
+	/**
+	 * @return the seatReservation, null until the hold is reserved
+	 */
+	public SeatReservation getSeatReservation() {
+		return seatReservation;
+	}
+
+	/**
+	 * 
+	 * Record the reservation of the held seats, seats already created by {@link #getSeats()} are updated as well.
+	 * 
+	 * @param seatReservation
+	 *            the seatReservation to set
+	 */
+	public void setSeatReservation(SeatReservation seatReservation) {
+		this.seatReservation = seatReservation;
+		List<Seat> seats = this.seats;
+		if (seats != null) {
+			for (Seat seat : seats) {
+				seat.setHold(false);
+				seat.setSeatReservation(seatReservation);
+			}
+		}
+	}
+
+	/**
+	 * @return the ticketJournal the expiry is logged to, null if the service does not keep a journal
+	 */
+	public TicketJournal getTicketJournal() {
+		return ticketJournal;
+	}
+
+	/**
+	 * @param ticketJournal
+	 *            the ticketJournal to set
+	 */
+	public void setTicketJournal(TicketJournal ticketJournal) {
+		this.ticketJournal = ticketJournal;
+	}
+
+	/**
+	 * @return the positions of the held seats within their level inventory, the array must not be modified
+	 */
+	public int[] getPositions() {
+		if (this.positions == null) {
+			List<Seat> seats = getSeats();
+			int[] positions = new int[seats.size()];
+			int index = 0;
+			for (Seat seat : seats) {
+				positions[index++] = this.levelInventory.getPosition(seat.getRow(), seat.getSeatNumber());
+			}
+			return positions;
+		}
+		return this.positions;
+	}
+
+	/**
+	 * @param positions
+	 *            the positions of the held seats within their level inventory
+	 */
+	public void setPositions(int[] positions) {
+		this.positions = positions;
+		this.seats = null;
+	}
+
+	/**
+	 * 
+	 * Whether the hold is still held, i.e. neither reserved nor expired.
+	 * 
+	 * @return whether the hold is still held
+	 */
+	public boolean isHeld() {
+		return state.get() == HELD;
+	}
+
+	/**
+	 * 
+	 * Move the hold from held to reserved. A hold which has already expired can not be reserved.
+	 * 
+	 * @return whether the caller owns the reservation of the held seats
+	 */
+	public boolean markReserved() {
+		return state.compareAndSet(HELD, RESERVED);
+	}
+
 	@Override
 	public void expire() {
-		if (this.seats != null && !this.seats.isEmpty()) {
-			for (Seat seat : this.seats) {
+		int[] positions = markExpired();
+		if (positions != null) {
+			try {
+				journalExpiry(positions);
+			} finally {
+				this.levelInventory.release(positions);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * Move the hold from held to expired without freeing its seats, so the seats of many expired holds can be returned
+	 * to their level in one batch, see {@link LevelInventory#releaseAll(int[][])}. The expiry is not journaled, see
+	 * {@link #journalExpiry(int[])}.
+	 * 
+	 * @return positions the caller has to release, or {@code null} if the hold was no longer held or has no seats
+	 */
+	public int[] markExpired() {
+		if (!state.compareAndSet(HELD, EXPIRED)) {
+			return null;
+		}
+		List<Seat> seats = this.seats;
+		if (seats != null) {
+			for (Seat seat : seats) {
 				seat.setHold(false);
 			}
 		}
+		if (this.levelInventory == null) {
+			return null;
+		}
+		int[] positions = getPositions();
+		if (positions.length == 0) {
+			return null;
+		}
+		return positions;
+	}
+
+	/**
+	 * 
+	 * Log the expiry of the hold, if it has a journal. Called before its seats are freed, so a later hold of the same
+	 * seats is always logged after it. The caller frees the seats even if the journal fails.
+	 * 
+	 * @param positions the positions returned by {@link #markExpired()}
+	 */
+	public void journalExpiry(int[] positions) {
+		if (this.ticketJournal != null) {
+			this.ticketJournal.append(new JournalRecord(JournalRecordType.EXPIRE, seatHoldId, this.levelInventory.getLevelId(),
+					System.currentTimeMillis(), customerEmail, null, positions));
+		}
 	}
 
 	@Override
@@ -153,7 +355,7 @@ public class SeatHold extends ExpirableObject {
 	@Override
 	public String toString() {
 		return "SeatHold [seatHoldId=" + seatHoldId + ", customerEmail=" + customerEmail + ", holdTime=" + holdTime
-				+ ", seats=" + seats + "]";
+				+ ", seats=" + getSeats() + "]";
 	}
 
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.domain;
+
+import java.util.Arrays;
+
+import com.walmart.ticket.constants.SeatState;
+
+/**
+ * 
+ * SeatMapDelta tells the seat map of a client that ranges of seats of one level are now in a given state.
+ * 
+ * Ranges are stored as consecutive triples of row, first seat number and number of seats, a whole row of 100 seats is
+ * therefore three ints. The sequence is the publisher's count of seat changes, up to and including the latest change
+ * reflected by the delta.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SeatMapDelta {
+
+	private final long		sequence;
+	private final int		levelId;
+	private final SeatState	seatState;
+	private final int[]		ranges;
+
+	/**
+	 * @param sequence
+	 * @param levelId
+	 * @param seatState
+	 * @param ranges row, first seat number and number of seats of every range
+	 */
+	public SeatMapDelta(long sequence, int levelId, SeatState seatState, int[] ranges) {
+		if (ranges.length % 3 != 0) {
+			throw new IllegalArgumentException("Ranges must be triples of row, first seat number and number of seats");
+		}
+		this.sequence = sequence;
+		this.levelId = levelId;
+		this.seatState = seatState;
+		this.ranges = ranges;
+	}
+
+	/**
+	 * @return the sequence
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return the levelId
+	 */
+	public int getLevelId() {
+		return levelId;
+	}
+
+	/**
+	 * @return the seatState
+	 */
+	public SeatState getSeatState() {
+		return seatState;
+	}
+
+	/**
+	 * @return the number of ranges
+	 */
+	public int getNumRanges() {
+		return ranges.length / 3;
+	}
+
+	/**
+	 * @param range index of the range
+	 * @return the row of the range
+	 */
+	public int getRow(int range) {
+		return ranges[range * 3];
+	}
+
+	/**
+	 * @param range index of the range
+	 * @return the seat number of the first seat of the range
+	 */
+	public int getFirstSeatNumber(int range) {
+		return ranges[range * 3 + 1];
+	}
+
+	/**
+	 * @param range index of the range
+	 * @return the number of seats of the range
+	 */
+	public int getNumSeats(int range) {
+		return ranges[range * 3 + 2];
+	}
+
+	/**
+	 * @return the number of seats of all ranges
+	 */
+	public int getNumSeats() {
+		int numSeats = 0;
+		for (int range = 2; range < ranges.length; range += 3) {
+			numSeats += ranges[range];
+		}
+		return numSeats;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "SeatMapDelta [sequence=" + sequence + ", levelId=" + levelId + ", seatState=" + seatState + ", ranges="
+				+ Arrays.toString(ranges) + "]";
+	}
+
+}
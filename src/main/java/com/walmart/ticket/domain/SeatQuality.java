@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.domain;
+
+/**
+ * 
+ * SeatQuality scores the seats of a {@link VenueLevel}, the higher the score the better the seat. Scores are only
+ * compared within a level and computed once when the level inventory is built, see {@link VenueLevel#rankSeats()}.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public interface SeatQuality {
+
+	/**
+	 * Front rows first, seats of a row from left to right, the order of {@code FIRST_AVAILABLE}.
+	 */
+	SeatQuality	ROW_ORDER		= (row, seatNumber, rows, seatsPerRow) -> -((double) row * seatsPerRow + seatNumber);
+
+	/**
+	 * Closest to the center of the front edge of the level first, rows being one seat width deep.
+	 */
+	SeatQuality	CENTER_STAGE	= (row, seatNumber, rows, seatsPerRow) -> -Math.hypot(row + 1, seatNumber - (seatsPerRow - 1) / 2.0);
+
+	/**
+	 * @param row the row of the seat, 0 being the front row
+	 * @param seatNumber the seat number within the row
+	 * @param rows the number of rows of the level
+	 * @param seatsPerRow the number of seats per row of the level
+	 * @return the score of the seat
+	 */
+	double score(int row, int seatNumber, int rows, int seatsPerRow);
+
+}
@@ -15,7 +15,9 @@
  */
 package com.walmart.ticket.domain;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Seat Reservation domain object
@@ -27,9 +29,10 @@ import java.util.Date;
  */
 public class SeatReservation {
 
-	private String	reservationId;
-	private String	customerEmail;
-	private Date	reservationDate;
+	private String		reservationId;
+	private String		customerEmail;
+	private Date		reservationDate;
+	private List<Seat>	seats;
 	
 	/**
 	 * @param reservationId
@@ -88,6 +91,16 @@ public class SeatReservation {
 		this.reservationDate = reservationDate;
 	}
 
+	/**
+	 * @return the reserved seats, filled in when the reservation is looked up
+	 */
+	public List<Seat> getSeats() {
+		if (this.seats == null) {
+			this.seats = new ArrayList<Seat>();
+		}
+		return this.seats;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
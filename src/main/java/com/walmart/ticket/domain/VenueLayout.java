@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import com.walmart.ticket.constants.SeatLevel;
+
+/**
+ * 
+ * VenueLayout is the seating plan of the venue an event takes place in: its levels ordered by levelId, the lowest level
+ * being the best one. Every event can have its own layout, {@link #defaultLayout()} is the venue of {@link SeatLevel}.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public class VenueLayout {
+
+	private final List<VenueLevel>	venueLevels;
+	private final int[]				levelIndexes;
+	private final int				minLevelId;
+	private final int				capacity;
+
+	/**
+	 * @param venueLevels the levels of the venue, in any order, levelIds must be unique and positive
+	 */
+	public VenueLayout(List<VenueLevel> venueLevels) {
+		if (venueLevels == null || venueLevels.isEmpty()) {
+			throw new IllegalArgumentException("A venue needs at least one level");
+		}
+		Map<Integer, VenueLevel> levels = new TreeMap<Integer, VenueLevel>();
+		int capacity = 0;
+		for (VenueLevel venueLevel : venueLevels) {
+			if (venueLevel.getLevelId() <= 0 || levels.put(venueLevel.getLevelId(), venueLevel) != null) {
+				throw new IllegalArgumentException("Invalid or duplicate venue level " + venueLevel.getLevelId());
+			}
+			capacity += venueLevel.getCapacity();
+		}
+		this.venueLevels = Collections.unmodifiableList(new ArrayList<VenueLevel>(levels.values()));
+		this.minLevelId = this.venueLevels.get(0).getLevelId();
+		int maxLevelId = this.venueLevels.get(this.venueLevels.size() - 1).getLevelId();
+		// Level ids are small in practice, a dense table of index + 1 keeps the per-request lookup a single array read
+		this.levelIndexes = maxLevelId - minLevelId < 4096 ? new int[maxLevelId - minLevelId + 1] : null;
+		if (this.levelIndexes != null) {
+			for (int index = 0; index < this.venueLevels.size(); index++) {
+				this.levelIndexes[this.venueLevels.get(index).getLevelId() - minLevelId] = index + 1;
+			}
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return the layout of the default venue, one level per {@link SeatLevel}
+	 */
+	public static VenueLayout defaultLayout() {
+		List<VenueLevel> venueLevels = new ArrayList<VenueLevel>();
+		for (SeatLevel seatLevel : SeatLevel.values()) {
+			venueLevels.add(new VenueLevel(seatLevel));
+		}
+		return new VenueLayout(venueLevels);
+	}
+
+	/**
+	 * @return the levels ordered by levelId
+	 */
+	public List<VenueLevel> getVenueLevels() {
+		return venueLevels;
+	}
+
+	/**
+	 * @return the number of seats of the venue
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * 
+	 * Find all levels between minLevel and maxLevel
+	 * 
+	 * @param minLevel the minimum venue level, the lowest level if absent
+	 * @param maxLevel the maximum venue level, the highest level if absent
+	 * @return list of VenueLevel ordered by levelId
+	 */
+	public List<VenueLevel> getVenueLevels(Optional<Integer> minLevel, Optional<Integer> maxLevel) {
+		boolean hasMin = minLevel != null && minLevel.isPresent();
+		boolean hasMax = maxLevel != null && maxLevel.isPresent();
+		if (!hasMin && !hasMax) {
+			return venueLevels;
+		}
+		int min = hasMin ? minLevel.get() : Integer.MIN_VALUE;
+		int max = hasMax ? maxLevel.get() : Integer.MAX_VALUE;
+		List<VenueLevel> levels = new ArrayList<VenueLevel>();
+		for (VenueLevel venueLevel : venueLevels) {
+			if (venueLevel.getLevelId() >= min && venueLevel.getLevelId() <= max) {
+				levels.add(venueLevel);
+			}
+		}
+		return levels;
+	}
+
+	/**
+	 * 
+	 * Find the level with the given identifier
+	 * 
+	 * @param levelId a numeric venue level identifier
+	 * @return the VenueLevel, or null if no level has the identifier
+	 */
+	public VenueLevel getVenueLevel(Integer levelId) {
+		int index = indexOf(levelId);
+		return index >= 0 ? venueLevels.get(index) : null;
+	}
+
+	/**
+	 * 
+	 * Find the position of a level in {@link #getVenueLevels()}, e.g. to keep per-level state in an array.
+	 * 
+	 * @param levelId a numeric venue level identifier
+	 * @return the index of the level, or -1 if no level has the identifier
+	 */
+	public int indexOf(Integer levelId) {
+		if (levelId == null) {
+			return -1;
+		}
+		if (levelIndexes != null) {
+			int index = levelId - minLevelId;
+			return index >= 0 && index < levelIndexes.length ? levelIndexes[index] - 1 : -1;
+		}
+		int low = 0;
+		int high = venueLevels.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleLevelId = venueLevels.get(middle).getLevelId();
+			if (middleLevelId < levelId) {
+				low = middle + 1;
+			} else if (middleLevelId > levelId) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "VenueLayout [venueLevels=" + venueLevels + "]";
+	}
+
+}
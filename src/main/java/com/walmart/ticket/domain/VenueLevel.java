@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.domain;
+
+import java.util.Arrays;
+
+import com.walmart.ticket.constants.SeatLevel;
+
+/**
+ * 
+ * VenueLevel describes one seat level of a {@link VenueLayout}: its identifier, name, price and the size of its seating grid.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public class VenueLevel {
+
+	private final Integer		levelId;
+	private final String		levelName;
+	private final Double		price;
+	private final Integer		rows;
+	private final Integer		numberofSeats;
+	private final SeatQuality	seatQuality;
+
+	/**
+	 * @param levelId
+	 * @param levelName
+	 * @param price
+	 * @param rows
+	 * @param numberofSeats the number of seats per row
+	 */
+	public VenueLevel(Integer levelId, String levelName, Double price, Integer rows, Integer numberofSeats) {
+		this(levelId, levelName, price, rows, numberofSeats, SeatQuality.CENTER_STAGE);
+	}
+
+	/**
+	 * @param levelId
+	 * @param levelName
+	 * @param price
+	 * @param rows
+	 * @param numberofSeats the number of seats per row
+	 * @param seatQuality how the seats of the level are ranked for {@code BEST_AVAILABLE}
+	 */
+	public VenueLevel(Integer levelId, String levelName, Double price, Integer rows, Integer numberofSeats, SeatQuality seatQuality) {
+		super();
+		if (levelId == null || rows == null || numberofSeats == null || rows <= 0 || numberofSeats <= 0) {
+			throw new IllegalArgumentException("Invalid venue level " + levelId + ": " + rows + " rows of " + numberofSeats + " seats");
+		}
+		this.levelId = levelId;
+		this.levelName = levelName;
+		this.price = price;
+		this.rows = rows;
+		this.numberofSeats = numberofSeats;
+		this.seatQuality = seatQuality != null ? seatQuality : SeatQuality.CENTER_STAGE;
+	}
+
+	/**
+	 * @param seatLevel one of the levels of the default venue
+	 */
+	public VenueLevel(SeatLevel seatLevel) {
+		this(seatLevel.getLevelId(), seatLevel.getLevelName(), seatLevel.getPrice(), seatLevel.getRows(), seatLevel.getNumberofSeats());
+	}
+
+	/**
+	 * @return the levelId
+	 */
+	public Integer getLevelId() {
+		return levelId;
+	}
+
+	/**
+	 * @return the levelName
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * @return the price
+	 */
+	public Double getPrice() {
+		return price;
+	}
+
+	/**
+	 * @return the rows
+	 */
+	public Integer getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the numberofSeats
+	 */
+	public Integer getNumberofSeats() {
+		return numberofSeats;
+	}
+
+	/**
+	 * @return the seatQuality
+	 */
+	public SeatQuality getSeatQuality() {
+		return seatQuality;
+	}
+
+	/**
+	 * @return the number of seats of the level
+	 */
+	public int getCapacity() {
+		return rows * numberofSeats;
+	}
+
+	/**
+	 * 
+	 * Order the seats of the level by their {@link SeatQuality} score, ties in row major order.
+	 * 
+	 * @return the seats best first, seat {@code seatNumber} of row {@code row} being {@code row * numberofSeats + seatNumber}
+	 */
+	public int[] rankSeats() {
+		int seatsPerRow = numberofSeats;
+		int capacity = getCapacity();
+		double[] scores = new double[capacity];
+		Integer[] seats = new Integer[capacity];
+		for (int seat = 0; seat < capacity; seat++) {
+			scores[seat] = seatQuality.score(seat / seatsPerRow, seat % seatsPerRow, rows, seatsPerRow);
+			seats[seat] = seat;
+		}
+		// Stable, so seats with the same score stay in row major order
+		Arrays.sort(seats, (left, right) -> Double.compare(scores[right], scores[left]));
+		int[] rankedSeats = new int[capacity];
+		for (int rank = 0; rank < capacity; rank++) {
+			rankedSeats[rank] = seats[rank];
+		}
+		return rankedSeats;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "VenueLevel [levelId=" + levelId + ", levelName=" + levelName + ", price=" + price + ", rows=" + rows
+				+ ", numberofSeats=" + numberofSeats + "]";
+	}
+
+}
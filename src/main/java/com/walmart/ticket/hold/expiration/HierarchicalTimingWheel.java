@@ -0,0 +1,336 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.hold.expiration;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Hashed hierarchical timing wheel with O(1) schedule and cancel.
+ *
+ * The wheel has four levels: 256 slots of one tick, then three levels of 64 slots each covering the whole
+ * previous level, which spans 2^26 ticks (about 18 hours with millisecond ticks). Timeouts further away are
+ * parked in the last level and re-placed when they cascade down.
+ *
+ * Scheduling and cancelling only touch lock-free queues, the buckets are owned by the thread calling
+ * {@link #advance(long, List)}. Callers of {@link #schedule(Object, long)} and {@link Timeout#cancel()} are
+ * therefore never blocked by an expiry sweep, however many timeouts expire in one tick.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class HierarchicalTimingWheel<T> {
+
+	private static final int			FIRST_LEVEL_BITS	= 8;
+	private static final int			LEVEL_BITS			= 6;
+	private static final int			LEVELS				= 4;
+	private static final long			MAX_DELTA			= 1L << (FIRST_LEVEL_BITS + (LEVELS - 1) * LEVEL_BITS);
+
+	private final long					tickMillis;
+	private final Bucket<T>[][]			wheels;
+	private final Queue<Timeout<T>>		scheduled			= new ConcurrentLinkedQueue<Timeout<T>>();
+	private final Queue<Timeout<T>>		cancelled			= new ConcurrentLinkedQueue<Timeout<T>>();
+	private final AtomicInteger			size				= new AtomicInteger();
+	private long						currentTick;
+
+	/**
+	 * @param tickMillis duration of one tick in milliseconds
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public HierarchicalTimingWheel(long tickMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("Tick duration must be positive: " + tickMillis);
+		}
+		this.tickMillis = tickMillis;
+		this.wheels = new Bucket[LEVELS][];
+		for (int level = 0; level < LEVELS; level++) {
+			Bucket<T>[] buckets = new Bucket[1 << (level == 0 ? FIRST_LEVEL_BITS : LEVEL_BITS)];
+			for (int slot = 0; slot < buckets.length; slot++) {
+				buckets[slot] = new Bucket<T>();
+			}
+			wheels[level] = buckets;
+		}
+		this.currentTick = System.currentTimeMillis() / tickMillis;
+	}
+
+	/**
+	 * @return the tickMillis
+	 */
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	/**
+	 * @return the number of scheduled timeouts which neither expired nor were cancelled
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 *
+	 * Schedule the item to expire once the clock is past {@code expirationTime}.
+	 *
+	 * @param item
+	 * @param expirationTime epoch milliseconds
+	 * @return handle to cancel the timeout
+	 */
+	public Timeout<T> schedule(T item, long expirationTime) {
+		Timeout<T> timeout = new Timeout<T>(this, item, expirationTime / tickMillis + 1);
+		size.incrementAndGet();
+		scheduled.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 *
+	 * Process every tick up to {@code nowMillis} and collect the timeouts which expired. Only one thread advances the
+	 * wheel at a time.
+	 *
+	 * @param nowMillis epoch milliseconds
+	 * @param expired receives the expired timeouts
+	 * @return epoch milliseconds before which advancing again expires nothing, unless a timeout is scheduled in the
+	 *         meantime, or {@link Long#MAX_VALUE} if the wheel is empty
+	 */
+	public synchronized long advance(long nowMillis, List<Timeout<T>> expired) {
+		long nowTick = nowMillis / tickMillis;
+		transferScheduled();
+		removeCancelled();
+		if (size.get() == 0 && scheduled.isEmpty()) {
+			currentTick = Math.max(currentTick, nowTick + 1);
+			return Long.MAX_VALUE;
+		}
+		while (currentTick <= nowTick) {
+			int index = (int) (currentTick & (wheels[0].length - 1));
+			if (index == 0) {
+				cascade(1);
+			}
+			Bucket<T> bucket = wheels[0][index];
+			Timeout<T> timeout = bucket.head;
+			while (timeout != null) {
+				Timeout<T> next = timeout.next;
+				bucket.remove(timeout);
+				if (timeout.deadlineTick > currentTick) {
+					place(timeout);
+				} else if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+					size.decrementAndGet();
+					expired.add(timeout);
+				}
+				timeout = next;
+			}
+			currentTick++;
+		}
+		return nextDeadline();
+	}
+
+	/**
+	 *
+	 * Drop every timeout without expiring it.
+	 *
+	 */
+	public synchronized void clear() {
+		scheduled.clear();
+		cancelled.clear();
+		for (Bucket<T>[] buckets : wheels) {
+			for (Bucket<T> bucket : buckets) {
+				bucket.head = null;
+				bucket.tail = null;
+			}
+		}
+		size.set(0);
+	}
+
+	/**
+	 *
+	 * Move the buckets of the given level's current slot one level down, and the level above when this slot wrapped.
+	 *
+	 */
+	private void cascade(int level) {
+		if (level >= LEVELS) {
+			return;
+		}
+		int shift = FIRST_LEVEL_BITS + (level - 1) * LEVEL_BITS;
+		int index = (int) ((currentTick >>> shift) & (wheels[level].length - 1));
+		if (index == 0) {
+			cascade(level + 1);
+		}
+		Bucket<T> bucket = wheels[level][index];
+		Timeout<T> timeout = bucket.head;
+		bucket.head = null;
+		bucket.tail = null;
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			timeout.bucket = null;
+			timeout.prev = null;
+			timeout.next = null;
+			place(timeout);
+			timeout = next;
+		}
+	}
+
+	/**
+	 *
+	 * The first tick of the first level with a timeout in its slot, or the next cascade when the rest of the first
+	 * level is empty, in epoch milliseconds.
+	 *
+	 */
+	private long nextDeadline() {
+		if (size.get() == 0) {
+			return Long.MAX_VALUE;
+		}
+		Bucket<T>[] buckets = wheels[0];
+		long cascadeTick = (currentTick | (buckets.length - 1)) + 1;
+		for (long tick = currentTick; tick < cascadeTick; tick++) {
+			if (buckets[(int) (tick & (buckets.length - 1))].head != null) {
+				return tick * tickMillis;
+			}
+		}
+		return cascadeTick * tickMillis;
+	}
+
+	private void place(Timeout<T> timeout) {
+		long delta = timeout.deadlineTick - currentTick;
+		long tick = delta < 0 ? currentTick : Math.min(timeout.deadlineTick, currentTick + MAX_DELTA - 1);
+		int level = 0;
+		int shift = 0;
+		long span = 1L << FIRST_LEVEL_BITS;
+		while (level < LEVELS - 1 && tick - currentTick >= span) {
+			shift = FIRST_LEVEL_BITS + level * LEVEL_BITS;
+			span <<= LEVEL_BITS;
+			level++;
+		}
+		Bucket<T>[] buckets = wheels[level];
+		buckets[(int) ((tick >>> shift) & (buckets.length - 1))].add(timeout);
+	}
+
+	private void transferScheduled() {
+		Timeout<T> timeout;
+		while ((timeout = scheduled.poll()) != null) {
+			if (timeout.state.get() == Timeout.PENDING) {
+				place(timeout);
+			}
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout<T> timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Handle of a scheduled item.
+	 *
+	 */
+	public static final class Timeout<T> {
+
+		private static final int					PENDING		= 0;
+		private static final int					CANCELLED	= 1;
+		private static final int					EXPIRED		= 2;
+
+		private final HierarchicalTimingWheel<T>	timingWheel;
+		private final T								item;
+		private final long							deadlineTick;
+		private final AtomicInteger					state		= new AtomicInteger(PENDING);
+		private Bucket<T>							bucket;
+		private Timeout<T>							prev;
+		private Timeout<T>							next;
+
+		private Timeout(HierarchicalTimingWheel<T> timingWheel, T item, long deadlineTick) {
+			this.timingWheel = timingWheel;
+			this.item = item;
+			this.deadlineTick = deadlineTick;
+		}
+
+		/**
+		 * @return the item
+		 */
+		public T getItem() {
+			return item;
+		}
+
+		/**
+		 *
+		 * Cancel the timeout. The bucket entry is unlinked by the thread advancing the wheel.
+		 *
+		 * @return whether the timeout was pending
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(PENDING, CANCELLED)) {
+				return false;
+			}
+			timingWheel.size.decrementAndGet();
+			timingWheel.cancelled.add(this);
+			return true;
+		}
+
+		/**
+		 * @return whether the timeout neither expired nor was cancelled
+		 */
+		public boolean isPending() {
+			return state.get() == PENDING;
+		}
+	}
+
+	/**
+	 *
+	 * Doubly linked list of the timeouts of one slot.
+	 *
+	 */
+	private static final class Bucket<T> {
+
+		private Timeout<T>	head;
+		private Timeout<T>	tail;
+
+		void add(Timeout<T> timeout) {
+			timeout.bucket = this;
+			timeout.prev = tail;
+			timeout.next = null;
+			if (tail == null) {
+				head = timeout;
+			} else {
+				tail.next = timeout;
+			}
+			tail = timeout;
+		}
+
+		void remove(Timeout<T> timeout) {
+			if (timeout.prev == null) {
+				head = timeout.next;
+			} else {
+				timeout.prev.next = timeout.next;
+			}
+			if (timeout.next == null) {
+				tail = timeout.prev;
+			} else {
+				timeout.next.prev = timeout.prev;
+			}
+			timeout.bucket = null;
+			timeout.prev = null;
+			timeout.next = null;
+		}
+	}
+
+}
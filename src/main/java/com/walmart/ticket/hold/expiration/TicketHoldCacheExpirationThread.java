@@ -15,12 +15,15 @@
  */
 package com.walmart.ticket.hold.expiration;
 
+import java.util.concurrent.locks.LockSupport;
+
 import com.walmart.ticket.cache.TicketHoldCache;
 import com.walmart.ticket.constants.TicketServiceConstants;
 
 /**
  * 
- * Thread responsible to find and remove the expired object from cache.
+ * Thread responsible to find and remove the expired object from cache. Between sweeps it sleeps until the next hold
+ * is due, at most timeToSleep, and is woken early by holds which expire sooner.
  * 
  * @author Sarvesh Katariya
  * @version 1.0
@@ -29,32 +32,41 @@ import com.walmart.ticket.constants.TicketServiceConstants;
  */
 public class TicketHoldCacheExpirationThread extends Thread {
 
-	private boolean				shouldKeepRunning			= true;
+	private final TicketHoldCache	ticketHoldCache;
+	private final long				timeToSleep;
+	private volatile boolean		shouldKeepRunning			= true;
 
-	public TicketHoldCacheExpirationThread() {
-		this(TicketServiceConstants.THREAD_SLEEP_TIME);
+	public TicketHoldCacheExpirationThread(TicketHoldCache ticketHoldCache) {
+		this(ticketHoldCache, TicketServiceConstants.THREAD_SLEEP_TIME);
 	}
 
-	public TicketHoldCacheExpirationThread(long timeToSleep) {
+	public TicketHoldCacheExpirationThread(TicketHoldCache ticketHoldCache, long timeToSleep) {
 		super("TicketHoldCacheExpirationThread");
+		this.ticketHoldCache = ticketHoldCache;
+		this.timeToSleep = timeToSleep;
 		setPriority(Thread.MIN_PRIORITY);
+		setDaemon(true);
 	}
 
-	public synchronized void halt() {
+	public void halt() {
 		shouldKeepRunning = false;
+		LockSupport.unpark(this);
+	}
+
+	/**
+	 * 
+	 * Sweep the cache now, or right after the sweep in progress.
+	 * 
+	 */
+	public void wakeUp() {
+		LockSupport.unpark(this);
 	}
 
 	public void run() {
-		while (shouldKeepRunning()) {
-			try {
-				Thread.sleep(TicketServiceConstants.THREAD_SLEEP_TIME);
-			} catch (InterruptedException interruptedException) {
-			}
-			TicketHoldCache.expireObjects();
+		while (shouldKeepRunning) {
+			long nextExpirationTime = ticketHoldCache.expireObjects();
+			LockSupport.parkUntil(this, Math.min(nextExpirationTime, System.currentTimeMillis() + timeToSleep));
 		}
 	}
 
-	private synchronized boolean shouldKeepRunning() {
-		return shouldKeepRunning;
-	}
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Segment tree over the rows of a level holding the longest run of free seats per row, so the first row which
+ * fits a block of N seats is found in O(log rows).
+ *
+ * Every node packs a version in the upper 32 bits and the run length in the lower 32 bits. A node is always
+ * recomputed from a fresh read of its children after reading its own version, and written with compare-and-set,
+ * so concurrent updates converge without a lock. Readers may briefly see a stale value, callers treat the index
+ * as a hint and verify against the seat bitsets.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+final class FreeRunIndex {
+
+	private static final long		RUN_MASK	= 0xFFFFFFFFL;
+	private static final long		VERSION_ONE	= 1L << 32;
+
+	private final int				rows;
+	private final int				leafCount;
+	private final AtomicLongArray	nodes;
+
+	/**
+	 * @param rows
+	 * @param seatsPerRow initial run length of every row
+	 */
+	FreeRunIndex(int rows, int seatsPerRow) {
+		int leafCount = 1;
+		while (leafCount < rows) {
+			leafCount <<= 1;
+		}
+		this.rows = rows;
+		this.leafCount = leafCount;
+		this.nodes = new AtomicLongArray(leafCount << 1);
+		for (int row = 0; row < rows; row++) {
+			nodes.set(leafCount + row, seatsPerRow);
+		}
+		for (int node = leafCount - 1; node > 0; node--) {
+			nodes.set(node, Math.max(run(nodes.get(node << 1)), run(nodes.get((node << 1) + 1))));
+		}
+	}
+
+	/**
+	 * @return the versioned leaf of the row, to be passed to {@link #compareAndSetLeaf(int, long, int)}
+	 */
+	long leaf(int row) {
+		return nodes.get(leafCount + row);
+	}
+
+	/**
+	 *
+	 * Store the run length of a row unless the leaf changed since it was read, then bring every ancestor up to date.
+	 *
+	 * @return whether the leaf was written
+	 */
+	boolean compareAndSetLeaf(int row, long leaf, int longestRun) {
+		int node = leafCount + row;
+		if (!nodes.compareAndSet(node, leaf, next(leaf, longestRun))) {
+			return false;
+		}
+		for (node >>>= 1; node > 0; node >>>= 1) {
+			while (true) {
+				long current = nodes.get(node);
+				int run = Math.max(run(nodes.get(node << 1)), run(nodes.get((node << 1) + 1)));
+				if (nodes.compareAndSet(node, current, next(current, run))) {
+					break;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the longest run of free seats in any row
+	 */
+	int longestRun() {
+		return run(nodes.get(1));
+	}
+
+	/**
+	 * @return the longest run of free seats in the row
+	 */
+	int longestRun(int row) {
+		return run(nodes.get(leafCount + row));
+	}
+
+	/**
+	 *
+	 * Find the front most row with at least {@code numSeats} adjacent free seats.
+	 *
+	 * @return the row, or -1 if no row fits
+	 */
+	int findRow(int numSeats) {
+		if (run(nodes.get(1)) < numSeats) {
+			return -1;
+		}
+		int node = 1;
+		while (node < leafCount) {
+			node <<= 1;
+			if (run(nodes.get(node)) < numSeats) {
+				node++;
+			}
+		}
+		int row = node - leafCount;
+		return row < rows ? row : -1;
+	}
+
+	/**
+	 *
+	 * Find the front most row with the longest run of free seats.
+	 *
+	 * @return the row, or -1 if no seat is free
+	 */
+	int findLongestRunRow() {
+		int longestRun = run(nodes.get(1));
+		return longestRun > 0 ? findRow(longestRun) : -1;
+	}
+
+	private static int run(long node) {
+		return (int) (node & RUN_MASK);
+	}
+
+	private static long next(long node, int run) {
+		return ((node & ~RUN_MASK) + VERSION_ONE) | (run & RUN_MASK);
+	}
+
+}
@@ -0,0 +1,943 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.walmart.ticket.constants.SeatAllocation;
+
+/**
+ *
+ * Seat inventory of a single venue level backed by packed bitsets.
+ *
+ * Every row occupies a fixed number of 64 bit words, so a seat position is encoded as
+ * {@code row * rowStride + seatNumber} and maps directly to a word and a bit. The held bitset marks
+ * every seat which is not free (held or reserved), the reserved bitset marks the seats which are sold.
+ * Padding bits at the end of each row are permanently marked as held, so free seats of a word are
+ * simply {@code ~held[word]}.
+ *
+ * The inventory is non-blocking. A hold first takes its seats off the available counter, which
+ * guarantees that enough free bits exist, and then claims the bits with compare-and-set on the
+ * seat-state words. Concurrent buyers only retry when they race for the same word, no thread is ever
+ * parked.
+ *
+ * A {@link FreeRunIndex} over the rows tracks the longest run of free seats per row, so blocks of adjacent
+ * seats are found without scanning the level. A level built with a seat ranking also keeps a {@link SeatRankIndex}
+ * over its free seats, so the best available seats are found without ranking the level per request.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class LevelInventory {
+
+	private static final int			WORD_SHIFT			= 6;
+	private static final int			WORD_SIZE			= 1 << WORD_SHIFT;
+
+	private final int					levelId;
+	private final int					rows;
+	private final int					seatsPerRow;
+	private final int					wordsPerRow;
+	private final int					rowStride;
+	private final AtomicLongArray		held;
+	private final AtomicLongArray		reserved;
+	private final AtomicInteger			numSeatsAvailable	= new AtomicInteger();
+	private final AtomicInteger			numSeatsReserved	= new AtomicInteger();
+	private final AtomicInteger			firstFreeWord		= new AtomicInteger();
+	private final FreeRunIndex			freeRuns;
+	private final SeatRankIndex			seatRanks;
+	private volatile SeatChangeListener	seatChangeListener;
+
+	/**
+	 * @param levelId
+	 * @param rows
+	 * @param seatsPerRow
+	 */
+	public LevelInventory(int levelId, int rows, int seatsPerRow) {
+		this(levelId, rows, seatsPerRow, null);
+	}
+
+	/**
+	 * @param levelId
+	 * @param rows
+	 * @param seatsPerRow
+	 * @param rankedSeats every seat of the level best first, seat {@code seatNumber} of row {@code row} being
+	 *            {@code row * seatsPerRow + seatNumber}, null to hold {@link SeatAllocation#BEST_AVAILABLE} seats in row
+	 *            major order
+	 */
+	public LevelInventory(int levelId, int rows, int seatsPerRow, int[] rankedSeats) {
+		if (rows <= 0 || seatsPerRow <= 0) {
+			throw new IllegalArgumentException("Level " + levelId + " must have at least one row and one seat per row");
+		}
+		this.levelId = levelId;
+		this.rows = rows;
+		this.seatsPerRow = seatsPerRow;
+		this.wordsPerRow = (seatsPerRow + WORD_SIZE - 1) >>> WORD_SHIFT;
+		this.rowStride = wordsPerRow << WORD_SHIFT;
+		this.held = new AtomicLongArray(rows * wordsPerRow);
+		this.reserved = new AtomicLongArray(rows * wordsPerRow);
+
+		int usedBits = seatsPerRow & (WORD_SIZE - 1);
+		if (usedBits != 0) {
+			long padding = -1L << usedBits;
+			for (int row = 0; row < rows; row++) {
+				held.set((row + 1) * wordsPerRow - 1, padding);
+			}
+		}
+		numSeatsAvailable.set(rows * seatsPerRow);
+		freeRuns = new FreeRunIndex(rows, seatsPerRow);
+		seatRanks = rankedSeats != null ? new SeatRankIndex(toPositions(rankedSeats), getPositionCount()) : null;
+	}
+
+	/**
+	 * @return the levelId
+	 */
+	public int getLevelId() {
+		return levelId;
+	}
+
+	/**
+	 * @return the rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the seatsPerRow
+	 */
+	public int getSeatsPerRow() {
+		return seatsPerRow;
+	}
+
+	/**
+	 * @return one more than the highest seat position of the level
+	 */
+	public int getPositionCount() {
+		return rows * rowStride;
+	}
+
+	/**
+	 * @return the seatChangeListener
+	 */
+	public SeatChangeListener getSeatChangeListener() {
+		return seatChangeListener;
+	}
+
+	/**
+	 * @param seatChangeListener
+	 *            told about every hold, reservation and release, null to tell nobody
+	 */
+	public void setSeatChangeListener(SeatChangeListener seatChangeListener) {
+		this.seatChangeListener = seatChangeListener;
+	}
+
+	/**
+	 * @return the number of seats which are neither held nor reserved
+	 */
+	public int getNumSeatsAvailable() {
+		return numSeatsAvailable.get();
+	}
+
+	/**
+	 * @return the number of seats which are reserved
+	 */
+	public int getNumSeatsReserved() {
+		return numSeatsReserved.get();
+	}
+
+	/**
+	 *
+	 * Find and hold the first {@code numSeats} free seats of the level in row major order.
+	 *
+	 * Full words are skipped without looking at individual seats, free seats of a word are found with
+	 * {@link Long#numberOfTrailingZeros(long)} and claimed with a single compare-and-set per word.
+	 *
+	 * @param numSeats the number of seats to hold
+	 * @return positions of the held seats, or {@code null} if the level does not have enough free seats
+	 */
+	public int[] hold(int numSeats) {
+		return holdFirstAvailable(numSeats);
+	}
+
+	/**
+	 *
+	 * {@link #hold(int)} without dispatching to a subclass, so a sequenced level can apply it on its writer thread.
+	 *
+	 */
+	private int[] holdFirstAvailable(int numSeats) {
+		if (numSeats <= 0 || !acquire(numSeats)) {
+			return null;
+		}
+		int[] positions = new int[numSeats];
+		claimFirstAvailable(positions, firstFreeWord.get());
+		advanceFirstFreeWord(positions[numSeats - 1] >>> WORD_SHIFT);
+		updateFreeRuns(positions, 0, numSeats);
+		seatsChanged(positions);
+		return positions;
+	}
+
+	/**
+	 *
+	 * Find and hold seats for several parties in one pass over the level. Parties are served in the given order, a
+	 * party which does not fit into the remaining seats is skipped while later, smaller parties may still be served.
+	 *
+	 * The available counter is updated once for the whole batch and the scan for free seats continues where the
+	 * previous party stopped, so the level is scanned at most once per batch in {@link SeatAllocation#FIRST_AVAILABLE}
+	 * mode.
+	 *
+	 * @param partySizes the number of seats of every party
+	 * @param seatAllocation how the seats of a party are picked
+	 * @return positions of the held seats per party, {@code null} for the parties which could not be served
+	 */
+	public int[][] holdAll(int[] partySizes, SeatAllocation seatAllocation) {
+		int[][] holds = new int[partySizes.length][];
+		int accepted;
+		while (true) {
+			int available = numSeatsAvailable.get();
+			accepted = 0;
+			for (int index = 0; index < partySizes.length; index++) {
+				int numSeats = partySizes[index];
+				if (numSeats > 0 && numSeats <= available - accepted) {
+					holds[index] = new int[numSeats];
+					accepted += numSeats;
+				} else {
+					holds[index] = null;
+				}
+			}
+			if (accepted == 0 || numSeatsAvailable.compareAndSet(available, available - accepted)) {
+				break;
+			}
+		}
+		if (accepted == 0) {
+			return holds;
+		}
+		if (seatAllocation == SeatAllocation.TOGETHER) {
+			for (int[] positions : holds) {
+				if (positions != null) {
+					claimTogether(positions);
+					seatsChanged(positions);
+				}
+			}
+			return holds;
+		}
+		if (seatAllocation == SeatAllocation.BEST_AVAILABLE && seatRanks != null) {
+			for (int[] positions : holds) {
+				if (positions != null) {
+					claimBest(positions);
+					updateFreeRuns(positions, 0, positions.length);
+					seatsChanged(positions);
+				}
+			}
+			return holds;
+		}
+		int word = firstFreeWord.get();
+		int firstRow = rows;
+		int lastRow = -1;
+		for (int[] positions : holds) {
+			if (positions != null) {
+				word = claimFirstAvailable(positions, word);
+				for (int position : positions) {
+					int row = position / rowStride;
+					firstRow = Math.min(firstRow, row);
+					lastRow = Math.max(lastRow, row);
+				}
+			}
+		}
+		advanceFirstFreeWord(word);
+		// Consecutive parties share rows, so every touched row is indexed once for the whole batch
+		for (int row = firstRow; row <= lastRow; row++) {
+			updateFreeRuns(row);
+		}
+		for (int[] positions : holds) {
+			if (positions != null) {
+				seatsChanged(positions);
+			}
+		}
+		return holds;
+	}
+
+	/**
+	 *
+	 * Find and hold {@code numSeats} adjacent seats in a single row, front rows first. When no row has a long enough
+	 * run of free seats, the party is split over as few blocks as possible by taking the longest free runs first.
+	 *
+	 * Rows are picked through the {@link FreeRunIndex} in O(log rows), only the picked row is scanned.
+	 *
+	 * @param numSeats the number of seats to hold
+	 * @return positions of the held seats, or {@code null} if the level does not have enough free seats
+	 */
+	public int[] holdTogether(int numSeats) {
+		if (numSeats <= 0 || !acquire(numSeats)) {
+			return null;
+		}
+		int[] positions = new int[numSeats];
+		claimTogether(positions);
+		seatsChanged(positions);
+		return positions;
+	}
+
+	/**
+	 *
+	 * Find and hold the {@code numSeats} best free seats of the level according to the seat ranking the level was built
+	 * with, in row major order for a level without ranking.
+	 *
+	 * Every seat is found through the {@link SeatRankIndex} in a few word reads, the level is never ranked per request.
+	 *
+	 * @param numSeats the number of seats to hold
+	 * @return positions of the held seats best first, or {@code null} if the level does not have enough free seats
+	 */
+	public int[] holdBest(int numSeats) {
+		if (seatRanks == null) {
+			return holdFirstAvailable(numSeats);
+		}
+		if (numSeats <= 0 || !acquire(numSeats)) {
+			return null;
+		}
+		int[] positions = new int[numSeats];
+		claimBest(positions);
+		updateFreeRuns(positions, 0, numSeats);
+		seatsChanged(positions);
+		return positions;
+	}
+
+	/**
+	 *
+	 * Claim the best free seats for a party whose seats were already taken off the available counter.
+	 *
+	 */
+	private void claimBest(int[] positions) {
+		int numSeats = positions.length;
+		int count = 0;
+		while (count < numSeats) {
+			int rank = seatRanks.first();
+			if (rank < 0) {
+				// Free seats exist as the counter was acquired, but were freed after the index was read
+				for (int word = 0; word < held.length() && count < numSeats; word++) {
+					count = claim(word, positions, count, numSeats);
+				}
+				continue;
+			}
+			// Cleared before the claim, so a release racing with a failed claim sets the bit again afterwards
+			seatRanks.clear(rank);
+			int position = seatRanks.position(rank);
+			if (setBit(held, position >>> WORD_SHIFT, 1L << position)) {
+				positions[count++] = position;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Claim adjacent seats for a party whose seats were already taken off the available counter.
+	 *
+	 */
+	private void claimTogether(int[] positions) {
+		int numSeats = positions.length;
+		int row;
+		while ((row = freeRuns.findRow(numSeats)) >= 0) {
+			if (claimBlock(row, numSeats, positions, 0)) {
+				updateFreeRuns(row);
+				return;
+			}
+			// The index was stale or another buyer won the block
+			updateFreeRuns(row);
+		}
+
+		int count = 0;
+		while (count < numSeats && (row = freeRuns.findLongestRunRow()) >= 0) {
+			int blockSize = Math.min(longestFreeRun(row), numSeats - count);
+			if (blockSize > 0 && claimBlock(row, blockSize, positions, count)) {
+				count += blockSize;
+			}
+			updateFreeRuns(row);
+		}
+		if (count < numSeats) {
+			// Free seats exist as the counter was acquired, but the index lags behind concurrent releases
+			int start = count;
+			while (count < numSeats) {
+				for (int word = 0; word < held.length() && count < numSeats; word++) {
+					count = claim(word, positions, count, numSeats);
+				}
+			}
+			updateFreeRuns(positions, start, numSeats);
+		}
+	}
+
+	/**
+	 *
+	 * Hold exactly the given seats, e.g. when a hold is restored after a restart.
+	 *
+	 * @param positions positions of the seats to hold
+	 * @return whether every seat was free and is now held, no seat is held otherwise
+	 */
+	public boolean holdExact(int[] positions) {
+		int numSeats = positions.length;
+		if (numSeats == 0 || !acquire(numSeats)) {
+			return false;
+		}
+		for (int index = 0; index < numSeats; index++) {
+			int position = positions[index];
+			if (!setBit(held, position >>> WORD_SHIFT, 1L << position)) {
+				rollback(positions, index);
+				numSeatsAvailable.addAndGet(numSeats);
+				return false;
+			}
+		}
+		updateFreeRuns(positions, 0, numSeats);
+		advanceFirstFreeWord(held.length() - 1);
+		seatsChanged(positions);
+		return true;
+	}
+
+	/**
+	 *
+	 * Mark held seats as reserved.
+	 *
+	 * @param positions positions of the seats to reserve
+	 */
+	public void reserve(int[] positions) {
+		int count = 0;
+		for (int position : positions) {
+			int word = position >>> WORD_SHIFT;
+			long bit = 1L << position;
+			if ((held.get(word) & bit) != 0 && setBit(reserved, word, bit)) {
+				count++;
+			}
+		}
+		numSeatsReserved.addAndGet(count);
+		if (count > 0) {
+			seatsChanged(positions);
+		}
+	}
+
+	/**
+	 *
+	 * Turn reserved seats back into held seats, undoing {@link #reserve(int[])} when the reservation could not be
+	 * logged. The seats stay held until they are released.
+	 *
+	 * @param positions positions of the seats to unreserve
+	 */
+	public void unreserve(int[] positions) {
+		int count = 0;
+		for (int position : positions) {
+			if (clearBit(reserved, position >>> WORD_SHIFT, 1L << position)) {
+				count++;
+			}
+		}
+		numSeatsReserved.addAndGet(-count);
+		if (count > 0) {
+			seatsChanged(positions);
+		}
+	}
+
+	/**
+	 *
+	 * Return held seats back to the free pool. Reserved seats are never released.
+	 *
+	 * @param positions positions of the seats to release
+	 */
+	public void release(int[] positions) {
+		release(positions, positions.length);
+		seatsChanged(positions);
+	}
+
+	/**
+	 *
+	 * Return the seats of several holds to the free pool in one pass, e.g. every hold of the level which expired in one
+	 * sweep. The seats are sorted first, so every touched word is cleared with a single compare-and-set, every touched
+	 * row is re-indexed once and the counter and the listener are updated once for the whole batch. A sequenced level
+	 * applies the batch as a single command.
+	 *
+	 * @param holds positions of the seats of every hold to release
+	 */
+	public void releaseAll(int[][] holds) {
+		int numSeats = 0;
+		for (int[] positions : holds) {
+			numSeats += positions.length;
+		}
+		if (numSeats == 0) {
+			return;
+		}
+		int[] positions = new int[numSeats];
+		int offset = 0;
+		for (int[] hold : holds) {
+			System.arraycopy(hold, 0, positions, offset, hold.length);
+			offset += hold.length;
+		}
+		Arrays.sort(positions);
+		release(positions);
+	}
+
+	/**
+	 *
+	 * Copy the reserved bitset one word at a time. Seats reserved while copying may or may not be included, seats once
+	 * reserved stay reserved unless their reservation could not be logged, so every seat reserved before the call is
+	 * included.
+	 *
+	 * @return the reserved bitset, bit {@code position % 64} of word {@code position / 64} is set for a reserved seat
+	 */
+	public long[] getReservedWords() {
+		long[] words = new long[reserved.length()];
+		for (int word = 0; word < words.length; word++) {
+			words[word] = reserved.get(word);
+		}
+		return words;
+	}
+
+	/**
+	 *
+	 * Mark the seats of a bitset copied by {@link #getReservedWords()} as reserved, e.g. when the level is restored
+	 * after a restart.
+	 *
+	 * @param reservedWords the reserved bitset, missing trailing words are empty
+	 */
+	public void restoreReserved(long[] reservedWords) {
+		if (reservedWords.length > reserved.length()) {
+			throw new IllegalArgumentException("Level " + levelId + " has " + reserved.length() + " words, not " + reservedWords.length);
+		}
+		int numHeld = 0;
+		int numReserved = 0;
+		for (int word = 0; word < reservedWords.length; word++) {
+			long bits = reservedWords[word];
+			if (bits == 0) {
+				continue;
+			}
+			numHeld += Long.bitCount(setBits(held, word, bits));
+			numReserved += Long.bitCount(setBits(reserved, word, bits));
+		}
+		numSeatsAvailable.addAndGet(-numHeld);
+		numSeatsReserved.addAndGet(numReserved);
+		for (int row = 0; row < rows; row++) {
+			updateFreeRuns(row);
+		}
+		advanceFirstFreeWord(held.length() - 1);
+		SeatChangeListener seatChangeListener = this.seatChangeListener;
+		if (seatChangeListener != null) {
+			seatChangeListener.levelChanged(this);
+		}
+	}
+
+	/**
+	 * @param row
+	 * @return the longest run of adjacent free seats in the row
+	 */
+	public int getLongestFreeRun(int row) {
+		return freeRuns.longestRun(row);
+	}
+
+	/**
+	 * @param position
+	 * @return whether the seat is neither held nor reserved
+	 */
+	public boolean isAvailable(int position) {
+		return (held.get(position >>> WORD_SHIFT) & (1L << position)) == 0;
+	}
+
+	/**
+	 * @param position
+	 * @return whether the seat is reserved
+	 */
+	public boolean isReserved(int position) {
+		return (reserved.get(position >>> WORD_SHIFT) & (1L << position)) != 0;
+	}
+
+	/**
+	 * @param row
+	 * @param seatNumber
+	 * @return the position of the seat within this level
+	 */
+	public int getPosition(int row, int seatNumber) {
+		if (row < 0 || row >= rows || seatNumber < 0 || seatNumber >= seatsPerRow) {
+			throw new IndexOutOfBoundsException("Seat " + row + "/" + seatNumber + " is outside of level " + levelId);
+		}
+		return row * rowStride + seatNumber;
+	}
+
+	/**
+	 * @param position
+	 * @return the row of the seat position
+	 */
+	public int getRow(int position) {
+		return position / rowStride;
+	}
+
+	/**
+	 * @param position
+	 * @return the seat number of the seat position
+	 */
+	public int getSeatNumber(int position) {
+		return position % rowStride;
+	}
+
+	private void seatsChanged(int[] positions) {
+		SeatChangeListener seatChangeListener = this.seatChangeListener;
+		if (seatChangeListener != null) {
+			seatChangeListener.seatsChanged(this, positions);
+		}
+	}
+
+	/**
+	 *
+	 * Take {@code numSeats} off the available counter.
+	 *
+	 * @param numSeats
+	 * @return whether enough seats were available
+	 */
+	private boolean acquire(int numSeats) {
+		while (true) {
+			int available = numSeatsAvailable.get();
+			if (available < numSeats) {
+				return false;
+			}
+			if (numSeatsAvailable.compareAndSet(available, available - numSeats)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Claim free seats in row major order for a party whose seats were already taken off the available counter.
+	 *
+	 * @param positions receives the claimed positions
+	 * @param startWord the word to start scanning from
+	 * @return the word the scan stopped at
+	 */
+	private int claimFirstAvailable(int[] positions, int startWord) {
+		int numSeats = positions.length;
+		int count = 0;
+		int word = startWord;
+		while (true) {
+			for (; word < held.length(); word++) {
+				count = claim(word, positions, count, numSeats);
+				if (count == numSeats) {
+					return word;
+				}
+			}
+			// Seats released behind the cursor while scanning, start over from the first word
+			word = 0;
+		}
+	}
+
+	/**
+	 *
+	 * Claim as many free seats of the word as still needed with one compare-and-set.
+	 *
+	 * @return number of positions filled so far
+	 */
+	private int claim(int word, int[] positions, int count, int numSeats) {
+		while (true) {
+			long current = held.get(word);
+			long free = ~current;
+			if (free == 0) {
+				return count;
+			}
+			long claimed = 0;
+			int needed = numSeats - count;
+			while (free != 0 && needed > 0) {
+				long bit = free & -free;
+				claimed |= bit;
+				free ^= bit;
+				needed--;
+			}
+			if (held.compareAndSet(word, current, current | claimed)) {
+				while (claimed != 0) {
+					long bit = claimed & -claimed;
+					positions[count++] = (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bit);
+					claimed ^= bit;
+				}
+				return count;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Return the first {@code count} positions to the free pool, also used to roll back a partial claim.
+	 *
+	 * @param positions
+	 * @param count
+	 */
+	void release(int[] positions, int count) {
+		int released = 0;
+		int lowestWord = Integer.MAX_VALUE;
+		int index = 0;
+		while (index < count) {
+			int word = positions[index] >>> WORD_SHIFT;
+			long bits = 0;
+			// Adjacent positions of the same word, every position of a sorted batch, are cleared together
+			while (index < count && positions[index] >>> WORD_SHIFT == word) {
+				bits |= 1L << positions[index++];
+			}
+			long cleared = clearBits(held, word, bits & ~reserved.get(word));
+			if (cleared != 0) {
+				freed(word, cleared);
+				released += Long.bitCount(cleared);
+				lowestWord = Math.min(lowestWord, word);
+			}
+		}
+		if (released > 0) {
+			updateFreeRuns(positions, 0, count);
+			numSeatsAvailable.addAndGet(released);
+			lowerFirstFreeWord(lowestWord);
+		}
+	}
+
+	/**
+	 *
+	 * Claim the first run of {@code blockSize} free seats of the row. A block spanning two words is claimed word by
+	 * word and rolled back if the second word was taken meanwhile.
+	 *
+	 * @return whether the block was claimed, its positions are stored from {@code offset}
+	 */
+	private boolean claimBlock(int row, int blockSize, int[] positions, int offset) {
+		int start = findFreeRun(row, blockSize);
+		if (start < 0) {
+			return false;
+		}
+		int end = start + blockSize;
+		for (int from = start; from < end;) {
+			int word = from >>> WORD_SHIFT;
+			int to = Math.min(end, (word + 1) << WORD_SHIFT);
+			long mask = (to - from == WORD_SIZE) ? -1L : ((1L << (to - from)) - 1) << from;
+			long current;
+			do {
+				current = held.get(word);
+				if ((current & mask) != 0) {
+					if (from > start) {
+						rollback(start, from);
+					}
+					return false;
+				}
+			} while (!held.compareAndSet(word, current, current | mask));
+			from = to;
+		}
+		for (int position = start; position < end; position++) {
+			positions[offset++] = position;
+		}
+		return true;
+	}
+
+	private void rollback(int start, int end) {
+		for (int position = start; position < end; position++) {
+			clearBit(held, position >>> WORD_SHIFT, 1L << position);
+			freed(position);
+		}
+	}
+
+	private void rollback(int[] positions, int count) {
+		for (int index = 0; index < count; index++) {
+			clearBit(held, positions[index] >>> WORD_SHIFT, 1L << positions[index]);
+			freed(positions[index]);
+		}
+	}
+
+	/**
+	 *
+	 * Put a seat whose held bit was just cleared back into the seat ranking.
+	 *
+	 */
+	private void freed(int position) {
+		if (seatRanks != null) {
+			seatRanks.set(seatRanks.rank(position));
+		}
+	}
+
+	private void freed(int word, long bits) {
+		if (seatRanks != null) {
+			while (bits != 0) {
+				long bit = bits & -bits;
+				freed((word << WORD_SHIFT) + Long.numberOfTrailingZeros(bit));
+				bits ^= bit;
+			}
+		}
+	}
+
+	private int[] toPositions(int[] rankedSeats) {
+		if (rankedSeats.length != rows * seatsPerRow) {
+			throw new IllegalArgumentException("Level " + levelId + " has " + rows * seatsPerRow + " seats, not " + rankedSeats.length);
+		}
+		int[] positions = new int[rankedSeats.length];
+		for (int rank = 0; rank < rankedSeats.length; rank++) {
+			int seat = rankedSeats[rank];
+			positions[rank] = getPosition(seat / seatsPerRow, seat % seatsPerRow);
+		}
+		return positions;
+	}
+
+	/**
+	 * @return the position of the first run of at least {@code blockSize} free seats in the row, or -1
+	 */
+	private int findFreeRun(int row, int blockSize) {
+		int firstWord = row * wordsPerRow;
+		int runStart = -1;
+		int runLength = 0;
+		for (int word = firstWord; word < firstWord + wordsPerRow; word++) {
+			long free = ~held.get(word);
+			int bit = 0;
+			while (bit < WORD_SIZE) {
+				long rest = free >>> bit;
+				if (rest == 0) {
+					runLength = 0;
+					break;
+				}
+				int occupied = Long.numberOfTrailingZeros(rest);
+				if (occupied > 0) {
+					runLength = 0;
+					bit += occupied;
+					continue;
+				}
+				int freeSeats = Long.numberOfTrailingZeros(~rest);
+				if (runLength == 0) {
+					runStart = (word << WORD_SHIFT) + bit;
+				}
+				runLength += freeSeats;
+				if (runLength >= blockSize) {
+					return runStart;
+				}
+				bit += freeSeats;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the longest run of free seats in the row, read from the seat bitsets
+	 */
+	private int longestFreeRun(int row) {
+		int firstWord = row * wordsPerRow;
+		int longestRun = 0;
+		int runLength = 0;
+		for (int word = firstWord; word < firstWord + wordsPerRow; word++) {
+			long free = ~held.get(word);
+			int bit = 0;
+			while (bit < WORD_SIZE) {
+				long rest = free >>> bit;
+				if (rest == 0) {
+					runLength = 0;
+					break;
+				}
+				int occupied = Long.numberOfTrailingZeros(rest);
+				if (occupied > 0) {
+					runLength = 0;
+					bit += occupied;
+					continue;
+				}
+				int freeSeats = Long.numberOfTrailingZeros(~rest);
+				runLength += freeSeats;
+				longestRun = Math.max(longestRun, runLength);
+				bit += freeSeats;
+			}
+		}
+		return longestRun;
+	}
+
+	private void updateFreeRuns(int row) {
+		long leaf;
+		do {
+			leaf = freeRuns.leaf(row);
+		} while (!freeRuns.compareAndSetLeaf(row, leaf, longestFreeRun(row)));
+	}
+
+	private void updateFreeRuns(int[] positions, int from, int to) {
+		int lastRow = -1;
+		for (int index = from; index < to; index++) {
+			int row = positions[index] / rowStride;
+			if (row != lastRow) {
+				updateFreeRuns(row);
+				lastRow = row;
+			}
+		}
+	}
+
+	private static boolean setBit(AtomicLongArray words, int word, long bit) {
+		while (true) {
+			long current = words.get(word);
+			if ((current & bit) != 0) {
+				return false;
+			}
+			if (words.compareAndSet(word, current, current | bit)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return the bits which were not set before
+	 */
+	private static long setBits(AtomicLongArray words, int word, long bits) {
+		while (true) {
+			long current = words.get(word);
+			if (words.compareAndSet(word, current, current | bits)) {
+				return bits & ~current;
+			}
+		}
+	}
+
+	/**
+	 * @return the bits which were set before
+	 */
+	private static long clearBits(AtomicLongArray words, int word, long bits) {
+		while (true) {
+			long current = words.get(word);
+			if ((current & bits) == 0 || words.compareAndSet(word, current, current & ~bits)) {
+				return bits & current;
+			}
+		}
+	}
+
+	private static boolean clearBit(AtomicLongArray words, int word, long bit) {
+		while (true) {
+			long current = words.get(word);
+			if ((current & bit) == 0) {
+				return false;
+			}
+			if (words.compareAndSet(word, current, current & ~bit)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Move the scan cursor past full words. The cursor is only a hint, a stale value costs a rescan but never a seat.
+	 *
+	 */
+	private void advanceFirstFreeWord(int lastClaimedWord) {
+		int current = firstFreeWord.get();
+		int word = current;
+		while (word <= lastClaimedWord && word < held.length() && held.get(word) == -1L) {
+			word++;
+		}
+		if (word != current) {
+			firstFreeWord.compareAndSet(current, word);
+		}
+	}
+
+	private void lowerFirstFreeWord(int word) {
+		while (true) {
+			int current = firstFreeWord.get();
+			if (current <= word || firstFreeWord.compareAndSet(current, word)) {
+				return;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+/**
+ *
+ * Receives the seats of a {@link LevelInventory} whose state changed. It is called on the thread which changed them,
+ * right after the change, and must therefore return quickly without blocking.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public interface SeatChangeListener {
+
+	/**
+	 * @param levelInventory the level of the seats
+	 * @param positions positions of the seats which were held, reserved or released, not to be modified
+	 */
+	void seatsChanged(LevelInventory levelInventory, int[] positions);
+
+	/**
+	 *
+	 * Any seat of the level may have changed, e.g. after its reserved seats were restored.
+	 *
+	 * @param levelInventory
+	 */
+	void levelChanged(LevelInventory levelInventory);
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Priority index over the free seats of a level, ordered by a seat ranking computed once when the level is built.
+ *
+ * Bit {@code rank} of the free bitset is set while the seat of that rank may be free, a summary bitset has one bit per
+ * free word which is set while the word may have a bit set. The best free seat is therefore found by reading the
+ * summary words, one per 4096 seats, and a single free word, instead of ranking the seats of the level per request.
+ *
+ * Bits are set and cleared with compare-and-set. A bit may stay set after its seat was taken by another allocation
+ * mode, callers treat the index as a hint, verify against the seat bitsets and clear stale bits as they meet them.
+ * A seat which becomes free always has its bit set again after its seat bit is cleared, so no free seat is lost.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+final class SeatRankIndex {
+
+	private static final int		WORD_SHIFT	= 6;
+	private static final int		WORD_SIZE	= 1 << WORD_SHIFT;
+
+	private final int[]				positions;
+	private final int[]				ranks;
+	private final AtomicLongArray	free;
+	private final AtomicLongArray	summary;
+
+	/**
+	 * @param positions the seat positions best first
+	 * @param positionCount one more than the highest seat position of the level
+	 */
+	SeatRankIndex(int[] positions, int positionCount) {
+		int words = (positions.length + WORD_SIZE - 1) >>> WORD_SHIFT;
+		this.positions = positions;
+		this.ranks = new int[positionCount];
+		this.free = new AtomicLongArray(words);
+		this.summary = new AtomicLongArray((words + WORD_SIZE - 1) >>> WORD_SHIFT);
+		Arrays.fill(ranks, -1);
+		for (int rank = 0; rank < positions.length; rank++) {
+			if (ranks[positions[rank]] >= 0) {
+				throw new IllegalArgumentException("Seat position " + positions[rank] + " is ranked twice");
+			}
+			ranks[positions[rank]] = rank;
+			free.set(rank >>> WORD_SHIFT, free.get(rank >>> WORD_SHIFT) | (1L << rank));
+		}
+		for (int word = 0; word < words; word++) {
+			summary.set(word >>> WORD_SHIFT, summary.get(word >>> WORD_SHIFT) | (1L << word));
+		}
+	}
+
+	/**
+	 * @return the seat position of the rank
+	 */
+	int position(int rank) {
+		return positions[rank];
+	}
+
+	/**
+	 * @return the rank of the seat position, or -1 for a padding position
+	 */
+	int rank(int position) {
+		return ranks[position];
+	}
+
+	/**
+	 *
+	 * Find the best seat which may be free. Words found empty on the way are dropped from the summary.
+	 *
+	 * @return the rank, or -1 if no seat is free
+	 */
+	int first() {
+		for (int summaryWord = 0; summaryWord < summary.length(); summaryWord++) {
+			long words = summary.get(summaryWord);
+			while (words != 0) {
+				long summaryBit = words & -words;
+				int word = (summaryWord << WORD_SHIFT) + Long.numberOfTrailingZeros(summaryBit);
+				long bits = free.get(word);
+				if (bits != 0) {
+					return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+				}
+				clearSummary(word);
+				words ^= summaryBit;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 *
+	 * Mark the seat of the rank as free.
+	 *
+	 */
+	void set(int rank) {
+		int word = rank >>> WORD_SHIFT;
+		long bit = 1L << rank;
+		long current;
+		do {
+			current = free.get(word);
+			if ((current & bit) != 0) {
+				return;
+			}
+		} while (!free.compareAndSet(word, current, current | bit));
+		// Set after the free bit, so a reader clearing the summary of an empty word sees the bit on its recheck
+		int summaryWord = word >>> WORD_SHIFT;
+		long summaryBit = 1L << word;
+		do {
+			current = summary.get(summaryWord);
+			if ((current & summaryBit) != 0) {
+				return;
+			}
+		} while (!summary.compareAndSet(summaryWord, current, current | summaryBit));
+	}
+
+	/**
+	 *
+	 * Mark the seat of the rank as taken.
+	 *
+	 */
+	void clear(int rank) {
+		int word = rank >>> WORD_SHIFT;
+		long bit = 1L << rank;
+		long current;
+		do {
+			current = free.get(word);
+			if ((current & bit) == 0) {
+				return;
+			}
+		} while (!free.compareAndSet(word, current, current & ~bit));
+		if ((current & ~bit) == 0) {
+			clearSummary(word);
+		}
+	}
+
+	private void clearSummary(int word) {
+		int summaryWord = word >>> WORD_SHIFT;
+		long summaryBit = 1L << word;
+		long current;
+		do {
+			current = summary.get(summaryWord);
+			if ((current & summaryBit) == 0) {
+				return;
+			}
+		} while (!summary.compareAndSet(summaryWord, current, current & ~summaryBit));
+		if (free.get(word) != 0) {
+			// A seat of the word was freed meanwhile
+			summary.getAndAccumulate(summaryWord, summaryBit, (left, right) -> left | right);
+		}
+	}
+
+}
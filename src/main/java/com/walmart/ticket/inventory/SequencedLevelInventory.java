@@ -0,0 +1,320 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.constants.TicketServiceConstants;
+import com.walmart.ticket.metrics.LatencyHistogram;
+import com.walmart.ticket.util.MpscRingBuffer;
+
+/**
+ *
+ * Level inventory owned by a single writer thread.
+ *
+ * Hold, reserve and release calls are turned into commands on a bounded {@link MpscRingBuffer} and applied one after
+ * the other by the writer thread of the level, the caller waits for the reply on a future. The seat words of the level
+ * are therefore only ever written by one core: compare-and-set never fails, the words never bounce between caches, and
+ * the seats a party gets depend only on the order of the commands in the buffer. Reads such as
+ * {@link #getNumSeatsAvailable()} are served directly from the caller's thread.
+ *
+ * Once halted, commands are applied in the caller's thread, which is safe as the underlying inventory is lock-free.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SequencedLevelInventory extends LevelInventory {
+
+	private static final int				HOLD			= 0;
+	private static final int				HOLD_TOGETHER	= 1;
+	private static final int				HOLD_ALL		= 2;
+	private static final int				RESERVE			= 3;
+	private static final int				RELEASE			= 4;
+	private static final int				HOLD_EXACT		= 5;
+	private static final int				HOLD_BEST		= 6;
+	private static final int				UNRESERVE		= 7;
+
+	private final MpscRingBuffer<Command>	commands;
+	private final Writer					writer;
+	private volatile boolean				running			= true;
+	private volatile LatencyHistogram		queueWaitLatency;
+
+	/**
+	 * @param levelId
+	 * @param rows
+	 * @param seatsPerRow
+	 */
+	public SequencedLevelInventory(int levelId, int rows, int seatsPerRow) {
+		this(levelId, rows, seatsPerRow, TicketServiceConstants.SEQUENCER_CAPACITY);
+	}
+
+	/**
+	 * @param levelId
+	 * @param rows
+	 * @param seatsPerRow
+	 * @param capacity number of commands which can wait for the writer thread
+	 */
+	public SequencedLevelInventory(int levelId, int rows, int seatsPerRow, int capacity) {
+		this(levelId, rows, seatsPerRow, null, capacity);
+	}
+
+	/**
+	 * @param levelId
+	 * @param rows
+	 * @param seatsPerRow
+	 * @param rankedSeats every seat of the level best first, see {@link LevelInventory#LevelInventory(int, int, int, int[])}
+	 */
+	public SequencedLevelInventory(int levelId, int rows, int seatsPerRow, int[] rankedSeats) {
+		this(levelId, rows, seatsPerRow, rankedSeats, TicketServiceConstants.SEQUENCER_CAPACITY);
+	}
+
+	/**
+	 * @param levelId
+	 * @param rows
+	 * @param seatsPerRow
+	 * @param rankedSeats every seat of the level best first, see {@link LevelInventory#LevelInventory(int, int, int, int[])}
+	 * @param capacity number of commands which can wait for the writer thread
+	 */
+	public SequencedLevelInventory(int levelId, int rows, int seatsPerRow, int[] rankedSeats, int capacity) {
+		super(levelId, rows, seatsPerRow, rankedSeats);
+		this.commands = new MpscRingBuffer<Command>(capacity);
+		this.writer = new Writer(this);
+		this.writer.start();
+	}
+
+	@Override
+	public int[] hold(int numSeats) {
+		return (int[]) submit(new Command(HOLD, numSeats, null, null));
+	}
+
+	@Override
+	public int[] holdTogether(int numSeats) {
+		return (int[]) submit(new Command(HOLD_TOGETHER, numSeats, null, null));
+	}
+
+	@Override
+	public int[] holdBest(int numSeats) {
+		return (int[]) submit(new Command(HOLD_BEST, numSeats, null, null));
+	}
+
+	@Override
+	public int[][] holdAll(int[] partySizes, SeatAllocation seatAllocation) {
+		return (int[][]) submit(new Command(HOLD_ALL, 0, partySizes, seatAllocation));
+	}
+
+	@Override
+	public boolean holdExact(int[] positions) {
+		return (Boolean) submit(new Command(HOLD_EXACT, 0, positions, null));
+	}
+
+	@Override
+	public void reserve(int[] positions) {
+		submit(new Command(RESERVE, 0, positions, null));
+	}
+
+	@Override
+	public void unreserve(int[] positions) {
+		submit(new Command(UNRESERVE, 0, positions, null));
+	}
+
+	@Override
+	public void release(int[] positions) {
+		submit(new Command(RELEASE, 0, positions, null));
+	}
+
+	/**
+	 *
+	 * Stop the writer thread once every queued command is applied.
+	 *
+	 */
+	public void halt() {
+		running = false;
+		LockSupport.unpark(writer);
+	}
+
+	/**
+	 * @param queueWaitLatency records how long every command waits for the writer thread, null to record nothing
+	 */
+	public void setQueueWaitLatency(LatencyHistogram queueWaitLatency) {
+		this.queueWaitLatency = queueWaitLatency;
+	}
+
+	/**
+	 * @return whether the writer thread is applying the commands
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	private Object submit(Command command) {
+		if (!running) {
+			return apply(command);
+		}
+		LatencyHistogram queueWaitLatency = this.queueWaitLatency;
+		if (queueWaitLatency != null) {
+			command.queueWaitLatency = queueWaitLatency;
+			command.submitTime = System.nanoTime();
+		}
+		while (!commands.offer(command)) {
+			// The buffer is full, the caller is held back until the writer catches up
+			Thread.yield();
+		}
+		if (writer.parked) {
+			LockSupport.unpark(writer);
+		}
+		if (!running) {
+			// The writer may have stopped before it saw the command
+			drainAfterHalt();
+		}
+		try {
+			return command.reply.join();
+		} catch (CompletionException completionException) {
+			if (completionException.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) completionException.getCause();
+			}
+			throw completionException;
+		}
+	}
+
+	private void drainAfterHalt() {
+		boolean interrupted = false;
+		while (writer.isAlive()) {
+			try {
+				writer.join();
+			} catch (InterruptedException interruptedException) {
+				interrupted = true;
+			}
+		}
+		synchronized (commands) {
+			drain();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return whether any command was applied
+	 */
+	private boolean drain() {
+		boolean applied = false;
+		Command command;
+		while ((command = commands.poll()) != null) {
+			if (command.queueWaitLatency != null) {
+				command.queueWaitLatency.recordSince(command.submitTime);
+			}
+			try {
+				command.reply.complete(apply(command));
+			} catch (Throwable throwable) {
+				command.reply.completeExceptionally(throwable);
+			}
+			applied = true;
+		}
+		return applied;
+	}
+
+	private Object apply(Command command) {
+		switch (command.type) {
+		case HOLD:
+			return super.hold(command.numSeats);
+		case HOLD_TOGETHER:
+			return super.holdTogether(command.numSeats);
+		case HOLD_ALL:
+			return super.holdAll(command.values, command.seatAllocation);
+		case RESERVE:
+			super.reserve(command.values);
+			return null;
+		case RELEASE:
+			super.release(command.values);
+			return null;
+		case UNRESERVE:
+			super.unreserve(command.values);
+			return null;
+		case HOLD_EXACT:
+			return super.holdExact(command.values);
+		case HOLD_BEST:
+			return super.holdBest(command.numSeats);
+		default:
+			throw new IllegalArgumentException("Unknown command " + command.type);
+		}
+	}
+
+	/**
+	 *
+	 * One call waiting for the writer thread.
+	 *
+	 */
+	private static final class Command {
+
+		private final int						type;
+		private final int						numSeats;
+		private final int[]						values;
+		private final SeatAllocation			seatAllocation;
+		private final CompletableFuture<Object>	reply	= new CompletableFuture<Object>();
+		// Written before the command is queued, the ring buffer publishes them to the writer
+		private LatencyHistogram				queueWaitLatency;
+		private long							submitTime;
+
+		Command(int type, int numSeats, int[] values, SeatAllocation seatAllocation) {
+			this.type = type;
+			this.numSeats = numSeats;
+			this.values = values;
+			this.seatAllocation = seatAllocation;
+		}
+	}
+
+	/**
+	 *
+	 * Thread applying the commands of one level. It spins briefly when the buffer runs empty and parks afterwards,
+	 * producers unpark it after queueing a command.
+	 *
+	 */
+	private static final class Writer extends Thread {
+
+		private final SequencedLevelInventory	levelInventory;
+		private volatile boolean				parked;
+
+		Writer(SequencedLevelInventory levelInventory) {
+			super("LevelSequencer-" + levelInventory.getLevelId());
+			this.levelInventory = levelInventory;
+			setDaemon(true);
+		}
+
+		public void run() {
+			int idle = 0;
+			while (levelInventory.running) {
+				if (levelInventory.drain()) {
+					idle = 0;
+				} else if (idle < TicketServiceConstants.SEQUENCER_SPINS) {
+					idle++;
+				} else {
+					parked = true;
+					if (levelInventory.commands.isEmpty() && levelInventory.running) {
+						LockSupport.parkNanos(TicketServiceConstants.SEQUENCER_PARK_NANOS);
+					}
+					parked = false;
+				}
+			}
+			levelInventory.drain();
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.walmart.ticket.constants.JournalRecordType;
+
+/**
+ *
+ * One event of the ticket journal.
+ *
+ * Binary layout: type (1 byte), seatHoldId (4), levelId (4), time (8), customerEmail and reservationId as a 2 byte
+ * length followed by UTF-8 bytes, the number of seats (4) and the seat positions within the level (4 each).
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class JournalRecord {
+
+	private final JournalRecordType	type;
+	private final int				seatHoldId;
+	private final int				levelId;
+	private final long				time;
+	private final String			customerEmail;
+	private final String			reservationId;
+	private final int[]				positions;
+
+	/**
+	 * @param type
+	 * @param seatHoldId
+	 * @param levelId
+	 * @param time expiration time of a hold, event time otherwise
+	 * @param customerEmail
+	 * @param reservationId only set for reservations
+	 * @param positions seat positions within the level
+	 */
+	public JournalRecord(JournalRecordType type, int seatHoldId, int levelId, long time, String customerEmail, String reservationId,
+			int[] positions) {
+		this.type = type;
+		this.seatHoldId = seatHoldId;
+		this.levelId = levelId;
+		this.time = time;
+		this.customerEmail = customerEmail;
+		this.reservationId = reservationId;
+		this.positions = positions;
+	}
+
+	/**
+	 * @return the type
+	 */
+	public JournalRecordType getType() {
+		return type;
+	}
+
+	/**
+	 * @return the seatHoldId
+	 */
+	public int getSeatHoldId() {
+		return seatHoldId;
+	}
+
+	/**
+	 * @return the levelId
+	 */
+	public int getLevelId() {
+		return levelId;
+	}
+
+	/**
+	 * @return expiration time of a hold, event time otherwise
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the customerEmail
+	 */
+	public String getCustomerEmail() {
+		return customerEmail;
+	}
+
+	/**
+	 * @return the reservationId, null unless the record is a reservation
+	 */
+	public String getReservationId() {
+		return reservationId;
+	}
+
+	/**
+	 * @return the seat positions within the level
+	 */
+	public int[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * @return the number of bytes written by {@link #encode(ByteBuffer)}
+	 */
+	int encodedLength() {
+		return 1 + 4 + 4 + 8 + 2 + utf8Length(customerEmail) + 2 + utf8Length(reservationId) + 4 + 4 * positions.length;
+	}
+
+	void encode(ByteBuffer buffer) {
+		buffer.put(type.getCode());
+		buffer.putInt(seatHoldId);
+		buffer.putInt(levelId);
+		buffer.putLong(time);
+		putString(buffer, customerEmail);
+		putString(buffer, reservationId);
+		buffer.putInt(positions.length);
+		for (int position : positions) {
+			buffer.putInt(position);
+		}
+	}
+
+	static JournalRecord decode(ByteBuffer buffer) {
+		JournalRecordType type = JournalRecordType.fromCode(buffer.get());
+		int seatHoldId = buffer.getInt();
+		int levelId = buffer.getInt();
+		long time = buffer.getLong();
+		String customerEmail = getString(buffer);
+		String reservationId = getString(buffer);
+		int[] positions = new int[buffer.getInt()];
+		for (int index = 0; index < positions.length; index++) {
+			positions[index] = buffer.getInt();
+		}
+		return new JournalRecord(type, seatHoldId, levelId, time, customerEmail, reservationId, positions);
+	}
+
+	private static int utf8Length(String value) {
+		return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private static void putString(ByteBuffer buffer, String value) {
+		if (value == null) {
+			buffer.putShort((short) -1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		short length = buffer.getShort();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "JournalRecord [type=" + type + ", seatHoldId=" + seatHoldId + ", levelId=" + levelId + ", time=" + time
+				+ ", customerEmail=" + customerEmail + ", reservationId=" + reservationId + ", positions="
+				+ Arrays.toString(positions) + "]";
+	}
+
+}
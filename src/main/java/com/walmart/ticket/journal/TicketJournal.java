@@ -0,0 +1,564 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.walmart.ticket.constants.TicketServiceConstants;
+import com.walmart.ticket.exception.JournalException;
+import com.walmart.ticket.util.MpscRingBuffer;
+
+/**
+ *
+ * Durable append-only log of holds, reservations and expiries.
+ *
+ * The log is a sequence of segment files of a fixed size, each mapped into memory with {@link FileChannel#map}.
+ * Every record is framed by its length and a CRC32 of its body, so a record torn by a crash is detected and dropped
+ * on the next start. A segment file is named after the journal position of its first byte, a length of -1 marks the
+ * end of the records of a segment.
+ *
+ * Records are handed to a single writer thread through a bounded {@link MpscRingBuffer}. The writer copies every record
+ * it finds in the buffer into the mapped segment and then forces the segment to disk once for the whole batch (group
+ * commit), so concurrent {@link #appendAndSync(JournalRecord)} calls share one flush. Records appended with
+ * {@link #append(JournalRecord)} do not wait, they are made durable with the next flush, at the latest after
+ * {@link TicketServiceConstants#JOURNAL_FLUSH_INTERVAL} milliseconds.
+ *
+ * A {@link VenueSnapshot} stored with {@link #writeSnapshot(VenueSnapshot)} replaces the records before its journal
+ * position, so a restart only replays the tail of the journal.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class TicketJournal {
+
+	private static final String				SEGMENT_PREFIX	= "journal-";
+	private static final String				SEGMENT_SUFFIX	= ".log";
+	private static final String				SNAPSHOT_PREFIX	= "snapshot-";
+	private static final String				SNAPSHOT_SUFFIX	= ".dat";
+	private static final int				FRAME_HEADER	= 8;
+	private static final int				END_OF_SEGMENT	= -1;
+
+	private final File						directory;
+	private final int						segmentSize;
+	private final MpscRingBuffer<Entry>		entries;
+	private final Writer					writer;
+	private final ReentrantLock				drainLock		= new ReentrantLock();
+	private volatile boolean				running			= true;
+	private volatile JournalException		failure;
+	private volatile long					position;
+	private volatile long					durablePosition;
+
+	// Owned by the writer thread
+	private final CRC32						crc				= new CRC32();
+	private final List<Entry>				waiting			= new ArrayList<Entry>();
+	private RandomAccessFile				segmentFile;
+	private MappedByteBuffer				segment;
+	private long							segmentStart;
+	private long							lastFlushTime;
+
+	/**
+	 * @param directory the directory holding the segment files, created if missing
+	 */
+	public TicketJournal(File directory) {
+		this(directory, TicketServiceConstants.JOURNAL_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param directory the directory holding the segment files, created if missing
+	 * @param segmentSize size of a segment file in bytes
+	 */
+	public TicketJournal(File directory, int segmentSize) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new JournalException("Can not create journal directory " + directory);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.entries = new MpscRingBuffer<Entry>(TicketServiceConstants.JOURNAL_CAPACITY);
+		try {
+			recover();
+		} catch (IOException ioException) {
+			throw new JournalException("Can not open journal " + directory, ioException);
+		}
+		this.writer = new Writer(this);
+		this.writer.start();
+	}
+
+	/**
+	 * @return the position after the last record handed to the writer thread
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the position up to which records are on disk
+	 */
+	public long getDurablePosition() {
+		return durablePosition;
+	}
+
+	/**
+	 *
+	 * Append the record without waiting for it to reach the disk.
+	 *
+	 * @param record
+	 */
+	public void append(JournalRecord record) {
+		submit(new Entry(record, null));
+	}
+
+	/**
+	 *
+	 * Append the record and wait until it is on disk.
+	 *
+	 * @param record
+	 */
+	public void appendAndSync(JournalRecord record) {
+		await(submit(new Entry(record, new CompletableFuture<Long>())));
+	}
+
+	/**
+	 *
+	 * Wait until every record appended so far is on disk.
+	 *
+	 * @return the durable position
+	 */
+	public long sync() {
+		return await(submit(new Entry(null, new CompletableFuture<Long>())));
+	}
+
+	/**
+	 *
+	 * Read every record from {@code fromPosition} up to the last complete record on disk.
+	 *
+	 * @param fromPosition a position returned by {@link #sync()}, or 0 for the whole journal
+	 * @param consumer receives the records in journal order
+	 * @return the position after the last record read
+	 */
+	public long replay(long fromPosition, Consumer<JournalRecord> consumer) {
+		try {
+			long end = fromPosition;
+			for (long start : segmentStarts()) {
+				if (start + segmentSize <= fromPosition) {
+					continue;
+				}
+				ByteBuffer buffer;
+				try (RandomAccessFile file = new RandomAccessFile(segmentFile(start), "r")) {
+					buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+				}
+				((Buffer) buffer).position((int) Math.max(0, fromPosition - start));
+				int offset = readRecords(buffer, consumer);
+				end = start + offset;
+				if (!isEndOfSegment(buffer, offset)) {
+					break;
+				}
+			}
+			return end;
+		} catch (IOException ioException) {
+			throw new JournalException("Can not read journal " + directory, ioException);
+		}
+	}
+
+	/**
+	 *
+	 * Store a snapshot, then delete older snapshots and the segments which only hold records before the snapshot's
+	 * journal position.
+	 *
+	 * @param venueSnapshot
+	 */
+	public void writeSnapshot(VenueSnapshot venueSnapshot) {
+		long journalPosition = venueSnapshot.getJournalPosition();
+		try {
+			venueSnapshot.write(snapshotFile(journalPosition));
+		} catch (IOException ioException) {
+			throw new JournalException("Can not write snapshot to " + directory, ioException);
+		}
+		for (long start : fileStarts(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+			if (start < journalPosition) {
+				snapshotFile(start).delete();
+			}
+		}
+		for (long start : segmentStarts()) {
+			if (start + segmentSize <= journalPosition) {
+				segmentFile(start).delete();
+			}
+		}
+	}
+
+	/**
+	 * @return the latest complete snapshot, or null if there is none
+	 */
+	public VenueSnapshot readSnapshot() {
+		long[] starts = fileStarts(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		for (int index = starts.length - 1; index >= 0; index--) {
+			try {
+				VenueSnapshot venueSnapshot = VenueSnapshot.read(snapshotFile(starts[index]));
+				if (venueSnapshot != null) {
+					return venueSnapshot;
+				}
+			} catch (IOException ioException) {
+				// Fall back to an older snapshot
+			}
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * Flush the pending records and stop the writer thread.
+	 *
+	 */
+	public void close() {
+		running = false;
+		LockSupport.unpark(writer);
+		dropUnwritten();
+	}
+
+	private Entry submit(Entry entry) {
+		if (failure != null) {
+			throw failure;
+		}
+		if (!running) {
+			throw new JournalException("Journal " + directory + " is closed");
+		}
+		if (entry.record != null && FRAME_HEADER + entry.record.encodedLength() + 4 > segmentSize) {
+			throw new JournalException("Record does not fit into a journal segment: " + entry.record);
+		}
+		while (!entries.offer(entry)) {
+			if (!running) {
+				throw new JournalException("Journal " + directory + " is closed");
+			}
+			// The buffer is full, the caller is held back until the writer catches up
+			Thread.yield();
+		}
+		if (!running) {
+			// Closed while the entry was queued, the writer may have exited before it could take the entry
+			dropUnwritten();
+			if (entry.dropped) {
+				throw new JournalException("Journal " + directory + " is closed");
+			}
+		}
+		if (writer.parked) {
+			LockSupport.unpark(writer);
+		}
+		return entry;
+	}
+
+	/**
+	 *
+	 * Wait until the writer thread has exited and fail the entries it left in the buffer. The lock keeps the buffer
+	 * single consumer once the writer is gone.
+	 *
+	 */
+	private void dropUnwritten() {
+		drainLock.lock();
+		try {
+			boolean interrupted = false;
+			while (writer.isAlive()) {
+				try {
+					writer.join();
+				} catch (InterruptedException interruptedException) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			JournalException closed = new JournalException("Journal " + directory + " is closed");
+			Entry entry;
+			while ((entry = entries.poll()) != null) {
+				entry.dropped = true;
+				if (entry.durable != null) {
+					entry.durable.completeExceptionally(closed);
+				}
+			}
+		} finally {
+			drainLock.unlock();
+		}
+	}
+
+	private long await(Entry entry) {
+		try {
+			return entry.durable.join();
+		} catch (CompletionException completionException) {
+			if (completionException.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) completionException.getCause();
+			}
+			throw completionException;
+		}
+	}
+
+	/**
+	 *
+	 * Find the end of the last segment and drop a record torn by a crash.
+	 *
+	 */
+	private void recover() throws IOException {
+		long[] starts = segmentStarts();
+		if (starts.length == 0) {
+			openSegment(0);
+			return;
+		}
+		openSegment(starts[starts.length - 1]);
+		int offset = readRecords(segment.duplicate(), null);
+		if (isEndOfSegment(segment, offset)) {
+			openSegment(segmentStart + segmentSize);
+			offset = 0;
+		}
+		clearTail(offset);
+		((Buffer) segment).position(offset);
+		position = durablePosition = segmentStart + offset;
+	}
+
+	/**
+	 *
+	 * Read the valid records of a segment from the position of the buffer.
+	 *
+	 * @param consumer receives the records, may be null
+	 * @return the offset after the last valid record
+	 */
+	private int readRecords(ByteBuffer buffer, Consumer<JournalRecord> consumer) {
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= FRAME_HEADER) {
+			int offset = buffer.position();
+			int length = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining() - 4) {
+				return offset;
+			}
+			int checksum = buffer.getInt();
+			ByteBuffer body = buffer.slice();
+			((Buffer) body).limit(length);
+			crc.reset();
+			crc.update(body.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				return offset;
+			}
+			if (consumer != null) {
+				try {
+					consumer.accept(JournalRecord.decode(body));
+				} catch (BufferUnderflowException bufferUnderflowException) {
+					return offset;
+				}
+			}
+			((Buffer) buffer).position(offset + FRAME_HEADER + length);
+		}
+		return buffer.position();
+	}
+
+	/**
+	 *
+	 * Records behind a torn one were never acknowledged, clear them so they are not mistaken for new records.
+	 *
+	 */
+	private void clearTail(int offset) {
+		int index = offset;
+		for (; index < segmentSize && (index & 7) != 0; index++) {
+			segment.put(index, (byte) 0);
+		}
+		for (; index + 8 <= segmentSize; index += 8) {
+			if (segment.getLong(index) != 0) {
+				segment.putLong(index, 0L);
+			}
+		}
+		for (; index < segmentSize; index++) {
+			segment.put(index, (byte) 0);
+		}
+	}
+
+	private boolean isEndOfSegment(ByteBuffer buffer, int offset) {
+		return offset <= segmentSize - 4 && buffer.getInt(offset) == END_OF_SEGMENT;
+	}
+
+	private void openSegment(long start) throws IOException {
+		if (segment != null) {
+			segment.force();
+			segmentFile.close();
+		}
+		segmentFile = new RandomAccessFile(segmentFile(start), "rw");
+		segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		segmentStart = start;
+	}
+
+	private File segmentFile(long start) {
+		return new File(directory, String.format("%s%020d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+	}
+
+	private File snapshotFile(long journalPosition) {
+		return new File(directory, String.format("%s%020d%s", SNAPSHOT_PREFIX, journalPosition, SNAPSHOT_SUFFIX));
+	}
+
+	private long[] segmentStarts() {
+		return fileStarts(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * @return the sorted journal positions of the files named with the prefix and suffix
+	 */
+	private long[] fileStarts(String prefix, String suffix) {
+		File[] files = directory.listFiles();
+		long[] starts = new long[files == null ? 0 : files.length];
+		int count = 0;
+		for (int index = 0; index < starts.length; index++) {
+			String name = files[index].getName();
+			if (name.startsWith(prefix) && name.endsWith(suffix)) {
+				starts[count++] = Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+			}
+		}
+		starts = Arrays.copyOf(starts, count);
+		Arrays.sort(starts);
+		return starts;
+	}
+
+	/**
+	 *
+	 * Copy the queued records into the segment and flush once for the whole batch.
+	 *
+	 * @return whether any entry was taken from the buffer
+	 */
+	private boolean writeBatch() {
+		Entry entry;
+		boolean taken = false;
+		while ((entry = entries.poll()) != null) {
+			taken = true;
+			if (entry.record != null && failure == null) {
+				try {
+					write(entry.record);
+				} catch (IOException ioException) {
+					failure = new JournalException("Can not write journal " + directory, ioException);
+				} catch (RuntimeException runtimeException) {
+					failure = new JournalException("Can not write journal record " + entry.record, runtimeException);
+				}
+			}
+			if (entry.durable != null) {
+				waiting.add(entry);
+			}
+		}
+		long now = System.currentTimeMillis();
+		if (failure == null && position > durablePosition
+				&& (!waiting.isEmpty() || !running || now - lastFlushTime >= TicketServiceConstants.JOURNAL_FLUSH_INTERVAL)) {
+			segment.force();
+			durablePosition = position;
+			lastFlushTime = now;
+		}
+		for (Entry waitingEntry : waiting) {
+			if (failure != null) {
+				waitingEntry.durable.completeExceptionally(failure);
+			} else {
+				waitingEntry.durable.complete(durablePosition);
+			}
+		}
+		waiting.clear();
+		return taken;
+	}
+
+	private void write(JournalRecord record) throws IOException {
+		int length = record.encodedLength();
+		if (segment.remaining() < FRAME_HEADER + length + 4) {
+			// Keep room for the end marker, records never span two segments
+			segment.putInt(END_OF_SEGMENT);
+			openSegment(segmentStart + segmentSize);
+		}
+		int offset = segment.position();
+		((Buffer) segment).position(offset + FRAME_HEADER);
+		record.encode(segment);
+		ByteBuffer body = segment.duplicate();
+		((Buffer) body).position(offset + FRAME_HEADER);
+		((Buffer) body).limit(offset + FRAME_HEADER + length);
+		crc.reset();
+		crc.update(body);
+		segment.putInt(offset + 4, (int) crc.getValue());
+		// The length is written last, a reader never sees a frame whose body is incomplete
+		segment.putInt(offset, length);
+		position = segmentStart + segment.position();
+	}
+
+	/**
+	 *
+	 * One record, or a sync request when the record is null, waiting for the writer thread.
+	 *
+	 */
+	private static final class Entry {
+
+		private final JournalRecord				record;
+		private final CompletableFuture<Long>	durable;
+		private volatile boolean				dropped;
+
+		Entry(JournalRecord record, CompletableFuture<Long> durable) {
+			this.record = record;
+			this.durable = durable;
+		}
+	}
+
+	/**
+	 *
+	 * Thread writing the queued records. It spins briefly when the buffer runs empty and parks until the next flush is
+	 * due, producers unpark it after queueing a record.
+	 *
+	 */
+	private static final class Writer extends Thread {
+
+		private final TicketJournal	journal;
+		private volatile boolean	parked;
+
+		Writer(TicketJournal journal) {
+			super("TicketJournalWriter");
+			this.journal = journal;
+			setDaemon(true);
+		}
+
+		public void run() {
+			int idle = 0;
+			while (journal.running) {
+				if (journal.writeBatch()) {
+					idle = 0;
+				} else if (idle < TicketServiceConstants.SEQUENCER_SPINS) {
+					idle++;
+				} else {
+					parked = true;
+					if (journal.entries.isEmpty() && journal.running) {
+						LockSupport.parkNanos(TicketServiceConstants.JOURNAL_FLUSH_INTERVAL * 1000000L);
+					}
+					parked = false;
+				}
+			}
+			journal.writeBatch();
+			try {
+				journal.segmentFile.close();
+			} catch (IOException ioException) {
+				journal.failure = new JournalException("Can not close journal " + journal.directory, ioException);
+			}
+		}
+	}
+
+}
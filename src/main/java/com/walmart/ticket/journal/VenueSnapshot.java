@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.walmart.ticket.constants.JournalRecordType;
+
+/**
+ *
+ * Point-in-time image of the venue: the reserved seats of every level, the reservations and the live holds, together
+ * with the journal position from which the journal has to be replayed on top of it.
+ *
+ * A snapshot is taken while the venue keeps taking requests, so it may already contain some effects of records after
+ * its journal position. Replaying those records again must leave the state unchanged, which holds as reserving,
+ * holding, expiring and indexing a known set of seats are all idempotent.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class VenueSnapshot {
+
+	private static final int			MAGIC	= 0x54534E50;
+	private static final int			VERSION	= 1;
+
+	private final long					journalPosition;
+	private final long					snapshotTime;
+	private final Map<Integer, long[]>	reservedWords;
+	private final List<JournalRecord>	holds;
+	private final List<JournalRecord>	reservations;
+
+	/**
+	 * @param journalPosition position from which the journal is replayed on top of the snapshot
+	 * @param snapshotTime
+	 * @param reservedWords the reserved bitset of every level by levelId
+	 * @param holds the live holds as HOLD records, or EXTEND records for extended holds
+	 */
+	public VenueSnapshot(long journalPosition, long snapshotTime, Map<Integer, long[]> reservedWords, List<JournalRecord> holds) {
+		this(journalPosition, snapshotTime, reservedWords, holds, new ArrayList<JournalRecord>());
+	}
+
+	/**
+	 * @param journalPosition position from which the journal is replayed on top of the snapshot
+	 * @param snapshotTime
+	 * @param reservedWords the reserved bitset of every level by levelId
+	 * @param holds the live holds as HOLD records, or EXTEND records for extended holds
+	 * @param reservations the reservations as RESERVE records
+	 */
+	public VenueSnapshot(long journalPosition, long snapshotTime, Map<Integer, long[]> reservedWords, List<JournalRecord> holds,
+			List<JournalRecord> reservations) {
+		this.journalPosition = journalPosition;
+		this.snapshotTime = snapshotTime;
+		this.reservedWords = reservedWords;
+		this.holds = holds;
+		this.reservations = reservations;
+	}
+
+	/**
+	 * @return the position from which the journal is replayed on top of the snapshot
+	 */
+	public long getJournalPosition() {
+		return journalPosition;
+	}
+
+	/**
+	 * @return the snapshotTime
+	 */
+	public long getSnapshotTime() {
+		return snapshotTime;
+	}
+
+	/**
+	 * @return the reserved bitset of every level by levelId
+	 */
+	public Map<Integer, long[]> getReservedWords() {
+		return reservedWords;
+	}
+
+	/**
+	 * @return the live holds as HOLD records, or EXTEND records for extended holds
+	 */
+	public List<JournalRecord> getHolds() {
+		return holds;
+	}
+
+	/**
+	 * @return the reservations as RESERVE records
+	 */
+	public List<JournalRecord> getReservations() {
+		return reservations;
+	}
+
+	/**
+	 *
+	 * Write the snapshot to a temporary file, force it to disk and move it into place, so a crash never leaves a
+	 * partial snapshot behind under the final name.
+	 *
+	 * @param file
+	 */
+	void write(File file) throws IOException {
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		CRC32 crc = new CRC32();
+		try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile)) {
+			DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOutputStream), crc));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(journalPosition);
+			output.writeLong(snapshotTime);
+			output.writeInt(reservedWords.size());
+			for (Map.Entry<Integer, long[]> entry : reservedWords.entrySet()) {
+				output.writeInt(entry.getKey());
+				output.writeInt(entry.getValue().length);
+				for (long word : entry.getValue()) {
+					output.writeLong(word);
+				}
+			}
+			output.writeInt(holds.size());
+			for (JournalRecord hold : holds) {
+				output.writeByte(hold.getType().getCode());
+				writeRecord(output, hold);
+			}
+			output.writeInt(reservations.size());
+			for (JournalRecord reservation : reservations) {
+				writeRecord(output, reservation);
+				output.writeUTF(reservation.getReservationId());
+			}
+			output.flush();
+			new DataOutputStream(fileOutputStream).writeLong(crc.getValue());
+			fileOutputStream.getFD().sync();
+		}
+		if (!temporaryFile.renameTo(file)) {
+			throw new IOException("Can not rename " + temporaryFile + " to " + file);
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return the snapshot, or null if the file is not a complete snapshot
+	 */
+	static VenueSnapshot read(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		try (FileInputStream fileInputStream = new FileInputStream(file)) {
+			DataInputStream input = new DataInputStream(new CheckedInputStream(new BufferedInputStream(fileInputStream, 1 << 16), crc));
+			if (input.readInt() != MAGIC) {
+				return null;
+			}
+			if (input.readInt() != VERSION) {
+				return null;
+			}
+			long journalPosition = input.readLong();
+			long snapshotTime = input.readLong();
+			Map<Integer, long[]> reservedWords = new TreeMap<Integer, long[]>();
+			for (int levels = input.readInt(); levels > 0; levels--) {
+				int levelId = input.readInt();
+				long[] words = new long[input.readInt()];
+				for (int word = 0; word < words.length; word++) {
+					words[word] = input.readLong();
+				}
+				reservedWords.put(levelId, words);
+			}
+			int numHolds = input.readInt();
+			List<JournalRecord> holds = new ArrayList<JournalRecord>(numHolds);
+			for (int hold = 0; hold < numHolds; hold++) {
+				holds.add(readRecord(input, JournalRecordType.fromCode(input.readByte())));
+			}
+			List<JournalRecord> reservations = new ArrayList<JournalRecord>();
+			for (int reservation = input.readInt(); reservation > 0; reservation--) {
+				reservations.add(readRecord(input, JournalRecordType.RESERVE));
+			}
+			long checksum = crc.getValue();
+			if (input.readLong() != checksum) {
+				return null;
+			}
+			return new VenueSnapshot(journalPosition, snapshotTime, reservedWords, holds, reservations);
+		} catch (EOFException eofException) {
+			return null;
+		}
+	}
+
+	private static void writeRecord(DataOutputStream output, JournalRecord record) throws IOException {
+		output.writeInt(record.getSeatHoldId());
+		output.writeInt(record.getLevelId());
+		output.writeLong(record.getTime());
+		output.writeUTF(record.getCustomerEmail());
+		output.writeInt(record.getPositions().length);
+		for (int position : record.getPositions()) {
+			output.writeInt(position);
+		}
+	}
+
+	/**
+	 * @return the record, a RESERVE record is followed by its reservationId
+	 */
+	private static JournalRecord readRecord(DataInputStream input, JournalRecordType type) throws IOException {
+		int seatHoldId = input.readInt();
+		int levelId = input.readInt();
+		long time = input.readLong();
+		String customerEmail = input.readUTF();
+		int[] positions = new int[input.readInt()];
+		for (int index = 0; index < positions.length; index++) {
+			positions[index] = input.readInt();
+		}
+		String reservationId = type == JournalRecordType.RESERVE ? input.readUTF() : null;
+		return new JournalRecord(type, seatHoldId, levelId, time, customerEmail, reservationId, positions);
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Latency histogram in the style of HdrHistogram: values are counted in log-linear buckets, 32 linear buckets per
+ * power of two, so every percentile is exact to about 3% from one nanosecond up to 18 minutes, in a fixed 9 KB per
+ * stripe whatever the number of values.
+ *
+ * Recording is one atomic increment in the stripe of the calling thread plus one {@link LongAdder} add, a few
+ * nanoseconds without any lock or allocation. Percentiles are computed from a sum of the stripes when read, values
+ * recorded meanwhile may or may not be included.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+	private static final int		SUB_BUCKET_BITS	= 5;
+	private static final int		SUB_BUCKETS		= 1 << SUB_BUCKET_BITS;
+	private static final int		MAX_BIT_LENGTH	= 40;
+	private static final int		BUCKETS			= (MAX_BIT_LENGTH - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	private static final long		MAX_VALUE		= (1L << MAX_BIT_LENGTH) - 1;
+	private static final int		STRIPES			= stripes();
+
+	private final AtomicLongArray[]	counts			= new AtomicLongArray[STRIPES];
+	private final LongAdder			sum				= new LongAdder();
+	private final AtomicLong		max				= new AtomicLong();
+
+	public LatencyHistogram() {
+		for (int stripe = 0; stripe < STRIPES; stripe++) {
+			counts[stripe] = new AtomicLongArray(BUCKETS);
+		}
+	}
+
+	/**
+	 * @param nanos the latency to record
+	 */
+	public void record(long nanos) {
+		long value = nanos < 0 ? 0 : nanos > MAX_VALUE ? MAX_VALUE : nanos;
+		int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & (STRIPES - 1);
+		counts[stripe].incrementAndGet(bucket(value));
+		sum.add(value);
+		long currentMax = max.get();
+		while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 *
+	 * Record the time elapsed since {@code startNanos}.
+	 *
+	 * @param startNanos a {@link System#nanoTime()} reading
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (long bucketCount : snapshot()) {
+			count += bucketCount;
+		}
+		return count;
+	}
+
+	public double getMeanNanos() {
+		long count = getCount();
+		return count > 0 ? (double) sum.sum() / count : 0;
+	}
+
+	public long getP50Nanos() {
+		return getPercentileNanos(50);
+	}
+
+	public long getP99Nanos() {
+		return getPercentileNanos(99);
+	}
+
+	public long getP999Nanos() {
+		return getPercentileNanos(99.9);
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public long getPercentileNanos(double percentile) {
+		long[] snapshot = snapshot();
+		long count = 0;
+		for (long bucketCount : snapshot) {
+			count += bucketCount;
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < snapshot.length; bucket++) {
+			seen += snapshot[bucket];
+			if (seen >= rank) {
+				return Math.min(highestValue(bucket), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for (AtomicLongArray stripe : counts) {
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				stripe.set(bucket, 0);
+			}
+		}
+		sum.reset();
+		max.set(0);
+	}
+
+	private long[] snapshot() {
+		long[] snapshot = new long[BUCKETS];
+		for (AtomicLongArray stripe : counts) {
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				snapshot[bucket] += stripe.get(bucket);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return values below 64 have a bucket of their own, above every power of two is split into 32 linear buckets
+	 */
+	static int bucket(long value) {
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+		if (shift <= 0) {
+			return (int) value;
+		}
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * @return the largest value counted in the bucket
+	 */
+	static long highestValue(int bucket) {
+		int shift = bucket / SUB_BUCKETS - 1;
+		if (shift <= 0) {
+			return bucket;
+		}
+		long subBucket = bucket - shift * SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	private static int stripes() {
+		int processors = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+		int stripes = 1;
+		while (stripes < processors) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+}
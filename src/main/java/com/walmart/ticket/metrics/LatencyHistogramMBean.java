@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+/**
+ *
+ * JMX view of a {@link LatencyHistogram}.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public interface LatencyHistogramMBean {
+
+	/**
+	 * @return the number of recorded values
+	 */
+	long getCount();
+
+	/**
+	 * @return the mean of the recorded values in nanoseconds
+	 */
+	double getMeanNanos();
+
+	/**
+	 * @return the median in nanoseconds
+	 */
+	long getP50Nanos();
+
+	/**
+	 * @return the 99th percentile in nanoseconds
+	 */
+	long getP99Nanos();
+
+	/**
+	 * @return the 99.9th percentile in nanoseconds
+	 */
+	long getP999Nanos();
+
+	/**
+	 * @return the largest recorded value in nanoseconds
+	 */
+	long getMaxNanos();
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the value at the percentile in nanoseconds
+	 */
+	long getPercentileNanos(double percentile);
+
+	/**
+	 *
+	 * Forget every recorded value.
+	 *
+	 */
+	void reset();
+
+}
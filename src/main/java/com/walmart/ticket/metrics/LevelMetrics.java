@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Outcome of the hold attempts on one venue level. A request spanning several levels counts as a failure on every
+ * level it skipped and as a success on the level which served it.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class LevelMetrics implements LevelMetricsMBean {
+
+	private final int		levelId;
+	private final LongAdder	holdSuccesses	= new LongAdder();
+	private final LongAdder	holdFailures	= new LongAdder();
+
+	/**
+	 * @param levelId
+	 */
+	public LevelMetrics(int levelId) {
+		this.levelId = levelId;
+	}
+
+	/**
+	 * @param success whether the level served the hold
+	 */
+	public void recordHold(boolean success) {
+		(success ? holdSuccesses : holdFailures).increment();
+	}
+
+	public int getLevelId() {
+		return levelId;
+	}
+
+	public long getHoldSuccesses() {
+		return holdSuccesses.sum();
+	}
+
+	public long getHoldFailures() {
+		return holdFailures.sum();
+	}
+
+	public double getHoldSuccessRate() {
+		long successes = holdSuccesses.sum();
+		long attempts = successes + holdFailures.sum();
+		return attempts > 0 ? (double) successes / attempts : 0;
+	}
+
+	public void reset() {
+		holdSuccesses.reset();
+		holdFailures.reset();
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+/**
+ *
+ * JMX view of the {@link LevelMetrics} of one venue level.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public interface LevelMetricsMBean {
+
+	/**
+	 * @return the id of the level
+	 */
+	int getLevelId();
+
+	/**
+	 * @return the number of holds served by the level
+	 */
+	long getHoldSuccesses();
+
+	/**
+	 * @return the number of hold attempts the level could not serve
+	 */
+	long getHoldFailures();
+
+	/**
+	 * @return the share of the hold attempts the level served, between 0 and 1
+	 */
+	double getHoldSuccessRate();
+
+	/**
+	 *
+	 * Reset the counters to zero.
+	 *
+	 */
+	void reset();
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.domain.VenueLevel;
+
+/**
+ *
+ * Latency histograms and counters of one ticket service, published as MBeans under
+ * {@code com.walmart.ticket:type=TicketService,name=<name>}.
+ *
+ * Every histogram and counter is striped, so recording from any number of threads costs a few nanoseconds and never
+ * takes a lock. A service without metrics records nothing at all.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class TicketServiceMetrics implements TicketServiceMetricsMBean {
+
+	public static final String					DOMAIN							= "com.walmart.ticket";
+
+	private final LatencyHistogram				numSeatsAvailableLatency		= new LatencyHistogram();
+	private final LatencyHistogram				findAndHoldSeatsLatency			= new LatencyHistogram();
+	private final LatencyHistogram				findAndHoldSeatsBatchLatency	= new LatencyHistogram();
+	private final LatencyHistogram				reserveSeatsLatency				= new LatencyHistogram();
+	private final LatencyHistogram				extendHoldLatency				= new LatencyHistogram();
+	private final LatencyHistogram				releaseHoldLatency				= new LatencyHistogram();
+	private final LatencyHistogram				sequencerQueueWait				= new LatencyHistogram();
+	private final LatencyHistogram				expirySweepDuration				= new LatencyHistogram();
+	private final LatencyHistogram				expiryLag						= new LatencyHistogram();
+	private final LongAdder						holdsCreated					= new LongAdder();
+	private final LongAdder						holdsRejected					= new LongAdder();
+	private final LongAdder						reservations					= new LongAdder();
+	private final LongAdder						reservationsRejected			= new LongAdder();
+	private final LongAdder						holdsExpired					= new LongAdder();
+	private final LongAdder						holdsExtended					= new LongAdder();
+	private final LongAdder						extensionsRejected				= new LongAdder();
+	private final LongAdder						holdsReleased					= new LongAdder();
+	private final LongAdder						releasesRejected				= new LongAdder();
+	private final Map<Integer, LevelMetrics>	levelMetrics;
+	private final List<ObjectName>				objectNames						= new ArrayList<ObjectName>();
+	private volatile IntSupplier				holdCacheSize					= () -> 0;
+
+	/**
+	 * @param venueLayout the levels to keep hold counters for
+	 */
+	public TicketServiceMetrics(VenueLayout venueLayout) {
+		Map<Integer, LevelMetrics> levelMetrics = new TreeMap<Integer, LevelMetrics>();
+		for (VenueLevel venueLevel : venueLayout.getVenueLevels()) {
+			levelMetrics.put(venueLevel.getLevelId(), new LevelMetrics(venueLevel.getLevelId()));
+		}
+		this.levelMetrics = Collections.unmodifiableMap(levelMetrics);
+	}
+
+	/**
+	 * @return the latency of numSeatsAvailable
+	 */
+	public LatencyHistogram getNumSeatsAvailableLatency() {
+		return numSeatsAvailableLatency;
+	}
+
+	/**
+	 * @return the latency of findAndHoldSeats
+	 */
+	public LatencyHistogram getFindAndHoldSeatsLatency() {
+		return findAndHoldSeatsLatency;
+	}
+
+	/**
+	 * @return the latency of findAndHoldSeatsBatch
+	 */
+	public LatencyHistogram getFindAndHoldSeatsBatchLatency() {
+		return findAndHoldSeatsBatchLatency;
+	}
+
+	/**
+	 * @return the latency of reserveSeats
+	 */
+	public LatencyHistogram getReserveSeatsLatency() {
+		return reserveSeatsLatency;
+	}
+
+	/**
+	 * @return the latency of extendHold
+	 */
+	public LatencyHistogram getExtendHoldLatency() {
+		return extendHoldLatency;
+	}
+
+	/**
+	 * @return the latency of releaseHold
+	 */
+	public LatencyHistogram getReleaseHoldLatency() {
+		return releaseHoldLatency;
+	}
+
+	/**
+	 * @return the time commands wait for the writer thread of a sequenced level
+	 */
+	public LatencyHistogram getSequencerQueueWait() {
+		return sequencerQueueWait;
+	}
+
+	/**
+	 * @return the duration of the expiry sweeps which expired at least one hold
+	 */
+	public LatencyHistogram getExpirySweepDuration() {
+		return expirySweepDuration;
+	}
+
+	/**
+	 * @return how long past their expiration time holds were expired
+	 */
+	public LatencyHistogram getExpiryLag() {
+		return expiryLag;
+	}
+
+	/**
+	 * @param levelId
+	 * @return the hold counters of the level, null if the level is not part of the layout
+	 */
+	public LevelMetrics getLevelMetrics(Integer levelId) {
+		return levelMetrics.get(levelId);
+	}
+
+	/**
+	 * @return the hold counters of every level, by level id
+	 */
+	public Collection<LevelMetrics> getLevelMetrics() {
+		return levelMetrics.values();
+	}
+
+	/**
+	 * @param holdCacheSize the source of {@link #getHoldCacheSize()}
+	 */
+	public void setHoldCacheSize(IntSupplier holdCacheSize) {
+		this.holdCacheSize = holdCacheSize;
+	}
+
+	/**
+	 *
+	 * Count a hold attempt on a level.
+	 *
+	 * @param levelId
+	 * @param success whether the level served the hold
+	 */
+	public void recordLevelHold(Integer levelId, boolean success) {
+		LevelMetrics metrics = levelMetrics.get(levelId);
+		if (metrics != null) {
+			metrics.recordHold(success);
+		}
+	}
+
+	/**
+	 *
+	 * Count a hold request.
+	 *
+	 * @param success whether a level served the request
+	 */
+	public void recordHold(boolean success) {
+		(success ? holdsCreated : holdsRejected).increment();
+	}
+
+	/**
+	 *
+	 * Count a reservation request.
+	 *
+	 * @param success whether the seats were reserved
+	 */
+	public void recordReservation(boolean success) {
+		(success ? reservations : reservationsRejected).increment();
+	}
+
+	/**
+	 *
+	 * Count a hold extension request.
+	 *
+	 * @param success whether the hold was extended
+	 */
+	public void recordExtension(boolean success) {
+		(success ? holdsExtended : extensionsRejected).increment();
+	}
+
+	/**
+	 *
+	 * Count a hold release request.
+	 *
+	 * @param success whether the hold was released
+	 */
+	public void recordRelease(boolean success) {
+		(success ? holdsReleased : releasesRejected).increment();
+	}
+
+	/**
+	 *
+	 * Count an expired hold.
+	 *
+	 * @param lagNanos how long past its expiration time the hold was expired
+	 */
+	public void recordExpiry(long lagNanos) {
+		holdsExpired.increment();
+		expiryLag.record(lagNanos);
+	}
+
+	public int getHoldCacheSize() {
+		return holdCacheSize.getAsInt();
+	}
+
+	public long getHoldsCreated() {
+		return holdsCreated.sum();
+	}
+
+	public long getHoldsRejected() {
+		return holdsRejected.sum();
+	}
+
+	public long getReservations() {
+		return reservations.sum();
+	}
+
+	public long getReservationsRejected() {
+		return reservationsRejected.sum();
+	}
+
+	public long getHoldsExpired() {
+		return holdsExpired.sum();
+	}
+
+	public long getHoldsExtended() {
+		return holdsExtended.sum();
+	}
+
+	public long getExtensionsRejected() {
+		return extensionsRejected.sum();
+	}
+
+	public long getHoldsReleased() {
+		return holdsReleased.sum();
+	}
+
+	public long getReleasesRejected() {
+		return releasesRejected.sum();
+	}
+
+	public void reset() {
+		for (LatencyHistogram latencyHistogram : new LatencyHistogram[] { numSeatsAvailableLatency, findAndHoldSeatsLatency,
+				findAndHoldSeatsBatchLatency, reserveSeatsLatency, extendHoldLatency, releaseHoldLatency, sequencerQueueWait,
+				expirySweepDuration, expiryLag }) {
+			latencyHistogram.reset();
+		}
+		for (LongAdder counter : new LongAdder[] { holdsCreated, holdsRejected, reservations, reservationsRejected, holdsExpired,
+				holdsExtended, extensionsRejected, holdsReleased, releasesRejected }) {
+			counter.reset();
+		}
+		for (LevelMetrics metrics : levelMetrics.values()) {
+			metrics.reset();
+		}
+	}
+
+	/**
+	 *
+	 * Register the metrics with the platform MBean server.
+	 *
+	 * @param name the name of the service, e.g. the event id
+	 * @throws IllegalStateException if the metrics are already registered or the name is taken
+	 */
+	public synchronized void registerMBeans(String name) {
+		if (!objectNames.isEmpty()) {
+			throw new IllegalStateException("The metrics are already registered");
+		}
+		String prefix = DOMAIN + ":type=TicketService,name=" + ObjectName.quote(name);
+		try {
+			register(prefix, this);
+			register(prefix + ",operation=numSeatsAvailable", numSeatsAvailableLatency);
+			register(prefix + ",operation=findAndHoldSeats", findAndHoldSeatsLatency);
+			register(prefix + ",operation=findAndHoldSeatsBatch", findAndHoldSeatsBatchLatency);
+			register(prefix + ",operation=reserveSeats", reserveSeatsLatency);
+			register(prefix + ",operation=extendHold", extendHoldLatency);
+			register(prefix + ",operation=releaseHold", releaseHoldLatency);
+			register(prefix + ",operation=sequencerQueueWait", sequencerQueueWait);
+			register(prefix + ",operation=expirySweep", expirySweepDuration);
+			register(prefix + ",operation=expiryLag", expiryLag);
+			for (LevelMetrics metrics : levelMetrics.values()) {
+				register(prefix + ",level=" + metrics.getLevelId(), metrics);
+			}
+		} catch (JMException jmException) {
+			unregisterMBeans();
+			throw new IllegalStateException("Unable to register the metrics of " + name, jmException);
+		}
+	}
+
+	/**
+	 *
+	 * Remove the metrics from the platform MBean server, e.g. once the service is destroyed.
+	 *
+	 */
+	public synchronized void unregisterMBeans() {
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		for (ObjectName objectName : objectNames) {
+			try {
+				mBeanServer.unregisterMBean(objectName);
+			} catch (JMException jmException) {
+			}
+		}
+		objectNames.clear();
+	}
+
+	/**
+	 * @return the names the metrics are registered under
+	 */
+	public synchronized List<ObjectName> getObjectNames() {
+		return new ArrayList<ObjectName>(objectNames);
+	}
+
+	private void register(String name, Object mBean) throws JMException {
+		ObjectName objectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, objectName);
+		objectNames.add(objectName);
+	}
+
+}
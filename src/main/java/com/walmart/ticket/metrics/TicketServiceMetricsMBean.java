@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+/**
+ *
+ * JMX view of the {@link TicketServiceMetrics} of one ticket service. The latency histograms and the level metrics are
+ * registered as MBeans of their own.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public interface TicketServiceMetricsMBean {
+
+	/**
+	 * @return the number of holds in the hold cache
+	 */
+	int getHoldCacheSize();
+
+	/**
+	 * @return the number of holds created
+	 */
+	long getHoldsCreated();
+
+	/**
+	 * @return the number of hold requests no level could serve
+	 */
+	long getHoldsRejected();
+
+	/**
+	 * @return the number of reservations made
+	 */
+	long getReservations();
+
+	/**
+	 * @return the number of reservations refused because the hold was not found, expired or belongs to another
+	 *         customer
+	 */
+	long getReservationsRejected();
+
+	/**
+	 * @return the number of holds which expired
+	 */
+	long getHoldsExpired();
+
+	/**
+	 * @return the number of holds extended
+	 */
+	long getHoldsExtended();
+
+	/**
+	 * @return the number of extensions refused because the hold was not found, expired or belongs to another customer
+	 */
+	long getExtensionsRejected();
+
+	/**
+	 * @return the number of holds released by their customer
+	 */
+	long getHoldsReleased();
+
+	/**
+	 * @return the number of releases refused because the hold was not found, expired or belongs to another customer
+	 */
+	long getReleasesRejected();
+
+	/**
+	 *
+	 * Reset every counter and histogram to zero.
+	 *
+	 */
+	void reset();
+
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.reservation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import com.walmart.ticket.util.CrockfordBase32;
+
+/**
+ *
+ * Index of the reservations of one event by confirmation code and by customer.
+ *
+ * Reservations are stored column-wise in primitive arrays: the decoded 63 bit id, the reservation time, the level,
+ * the customer and the offset of the seat positions in one shared int array, so a reservation costs a few dozen bytes
+ * and no object of its own. Codes are found through an open addressing table on the ids, customers through a map to
+ * the head of the chain of their reservations, both in O(1). Codes which are not {@link CrockfordBase32} codes, e.g.
+ * from a custom generator, are kept in a separate map.
+ *
+ * Adding takes the write lock, lookups the read lock. A reservation is only removed when it could not be logged, its
+ * slot is then left unused.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class ReservationIndex {
+
+	private static final int				NONE				= -1;
+	private static final long				CUSTOM_CODE			= -1;
+	private static final long				REMOVED				= -2;
+
+	private final StampedLock				lock				= new StampedLock();
+	private final Map<String, Integer>		customerIndex		= new HashMap<String, Integer>();
+	private final Map<String, Integer>		customCodes			= new HashMap<String, Integer>();
+	private final Map<Integer, String>		customCodesBySlot	= new HashMap<Integer, String>();
+	private long[]							ids					= new long[16];
+	private long[]							reservationTimes	= new long[16];
+	private int[]							levelIds			= new int[16];
+	private int[]							customers			= new int[16];
+	private int[]							nextOfCustomer		= new int[16];
+	private int[]							seatOffsets			= new int[17];
+	private int[]							seats				= new int[64];
+	private int[]							slotTable			= new int[32];
+	private String[]						customerEmails		= new String[16];
+	private int[]							customerHeads		= new int[16];
+	private int[]							customerTails		= new int[16];
+	private int								size;
+	private int								numRemoved;
+	private int								numCustomers;
+
+	/**
+	 *
+	 * Index a reservation, unless its code is indexed already.
+	 *
+	 * @param reservationId the confirmation code
+	 * @param customerEmail
+	 * @param reservationTime epoch milliseconds
+	 * @param levelId
+	 * @param positions the positions of the reserved seats within their level inventory
+	 * @return whether the reservation was added
+	 */
+	public boolean add(String reservationId, String customerEmail, long reservationTime, int levelId, int[] positions) {
+		long id = CrockfordBase32.decode(reservationId);
+		long stamp = lock.writeLock();
+		try {
+			if (id >= 0 ? findSlot(id) != NONE : customCodes.containsKey(reservationId)) {
+				return false;
+			}
+			int slot = size;
+			if (slot == ids.length) {
+				grow();
+			}
+			if (id >= 0) {
+				ids[slot] = id;
+			} else {
+				ids[slot] = CUSTOM_CODE;
+				customCodes.put(reservationId, slot);
+				customCodesBySlot.put(slot, reservationId);
+			}
+			reservationTimes[slot] = reservationTime;
+			levelIds[slot] = levelId;
+			int seatOffset = seatOffsets[slot];
+			if (seatOffset + positions.length > seats.length) {
+				seats = Arrays.copyOf(seats, Math.max(seats.length << 1, seatOffset + positions.length));
+			}
+			System.arraycopy(positions, 0, seats, seatOffset, positions.length);
+			seatOffsets[slot + 1] = seatOffset + positions.length;
+			linkCustomer(slot, customerEmail);
+			size++;
+			if (id >= 0) {
+				if (size * 2 > slotTable.length) {
+					rehash(slotTable.length << 1);
+				}
+				insertSlot(slot);
+			}
+			return true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Remove a reservation which could not be logged, so its code is not found and its seats are not snapshotted.
+	 *
+	 * @param reservationId the confirmation code
+	 * @return whether the reservation was removed
+	 */
+	public boolean remove(String reservationId) {
+		if (reservationId == null) {
+			return false;
+		}
+		long id = CrockfordBase32.decode(reservationId);
+		long stamp = lock.writeLock();
+		try {
+			int slot = NONE;
+			if (id >= 0) {
+				slot = findSlot(id);
+			}
+			if (slot == NONE) {
+				Integer customSlot = customCodes.remove(reservationId);
+				if (customSlot == null) {
+					return false;
+				}
+				slot = customSlot;
+				customCodesBySlot.remove(slot);
+			}
+			// The slot stays in the open addressing table, no id matches it any more
+			ids[slot] = REMOVED;
+			unlinkCustomer(slot);
+			numRemoved++;
+			return true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @param reservationId the confirmation code
+	 * @return the reservation, or null if no reservation has the code
+	 */
+	public Reservation find(String reservationId) {
+		if (reservationId == null) {
+			return null;
+		}
+		long id = CrockfordBase32.decode(reservationId);
+		long stamp = lock.readLock();
+		try {
+			int slot = NONE;
+			if (id >= 0) {
+				slot = findSlot(id);
+			}
+			if (slot == NONE) {
+				Integer customSlot = customCodes.get(reservationId);
+				slot = customSlot != null ? customSlot : NONE;
+			}
+			return slot != NONE ? reservation(slot) : null;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @param customerEmail matched ignoring case
+	 * @return the reservations of the customer in the order they were made
+	 */
+	public List<Reservation> findByCustomer(String customerEmail) {
+		if (customerEmail == null) {
+			return Collections.emptyList();
+		}
+		String key = customerEmail.toLowerCase(Locale.ROOT);
+		long stamp = lock.readLock();
+		try {
+			Integer customer = customerIndex.get(key);
+			if (customer == null) {
+				return Collections.emptyList();
+			}
+			List<Reservation> reservations = new ArrayList<Reservation>();
+			for (int slot = customerHeads[customer]; slot != NONE; slot = nextOfCustomer[slot]) {
+				reservations.add(reservation(slot));
+			}
+			return reservations;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Pass every reservation to the action in the order they were added, under the read lock.
+	 *
+	 * @param action
+	 */
+	public void forEach(Consumer<? super Reservation> action) {
+		long stamp = lock.readLock();
+		try {
+			for (int slot = 0; slot < size; slot++) {
+				if (ids[slot] != REMOVED) {
+					action.accept(reservation(slot));
+				}
+			}
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @return the number of reservations
+	 */
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return size - numRemoved;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private Reservation reservation(int slot) {
+		String reservationId = ids[slot] == CUSTOM_CODE ? customCodesBySlot.get(slot) : CrockfordBase32.encode(ids[slot]);
+		return new Reservation(reservationId, customerEmails[customers[slot]], reservationTimes[slot], levelIds[slot],
+				Arrays.copyOfRange(seats, seatOffsets[slot], seatOffsets[slot + 1]));
+	}
+
+	private void linkCustomer(int slot, String customerEmail) {
+		String key = customerEmail.toLowerCase(Locale.ROOT);
+		Integer customer = customerIndex.get(key);
+		if (customer == null) {
+			customer = numCustomers++;
+			if (customer == customerEmails.length) {
+				customerEmails = Arrays.copyOf(customerEmails, customer << 1);
+				customerHeads = Arrays.copyOf(customerHeads, customer << 1);
+				customerTails = Arrays.copyOf(customerTails, customer << 1);
+			}
+			customerEmails[customer] = customerEmail;
+			customerHeads[customer] = NONE;
+			customerIndex.put(key, customer);
+		}
+		if (customerHeads[customer] == NONE) {
+			customerHeads[customer] = slot;
+		} else {
+			nextOfCustomer[customerTails[customer]] = slot;
+		}
+		customerTails[customer] = slot;
+		customers[slot] = customer;
+		nextOfCustomer[slot] = NONE;
+	}
+
+	private void unlinkCustomer(int slot) {
+		int customer = customers[slot];
+		int previous = NONE;
+		for (int current = customerHeads[customer]; current != slot; current = nextOfCustomer[current]) {
+			previous = current;
+		}
+		if (previous == NONE) {
+			customerHeads[customer] = nextOfCustomer[slot];
+		} else {
+			nextOfCustomer[previous] = nextOfCustomer[slot];
+		}
+		if (customerTails[customer] == slot) {
+			customerTails[customer] = previous;
+		}
+	}
+
+	private int findSlot(long id) {
+		int mask = slotTable.length - 1;
+		for (int index = hash(id) & mask;; index = (index + 1) & mask) {
+			int entry = slotTable[index];
+			if (entry == 0) {
+				return NONE;
+			}
+			if (ids[entry - 1] == id) {
+				return entry - 1;
+			}
+		}
+	}
+
+	private void insertSlot(int slot) {
+		int mask = slotTable.length - 1;
+		int index = hash(ids[slot]) & mask;
+		while (slotTable[index] != 0) {
+			index = (index + 1) & mask;
+		}
+		// Slots are stored plus one, 0 marks an empty entry
+		slotTable[index] = slot + 1;
+	}
+
+	private void rehash(int length) {
+		slotTable = new int[length];
+		for (int slot = 0; slot < size; slot++) {
+			if (ids[slot] >= 0) {
+				insertSlot(slot);
+			}
+		}
+	}
+
+	private void grow() {
+		int length = ids.length << 1;
+		ids = Arrays.copyOf(ids, length);
+		reservationTimes = Arrays.copyOf(reservationTimes, length);
+		levelIds = Arrays.copyOf(levelIds, length);
+		customers = Arrays.copyOf(customers, length);
+		nextOfCustomer = Arrays.copyOf(nextOfCustomer, length);
+		seatOffsets = Arrays.copyOf(seatOffsets, length + 1);
+	}
+
+	private static int hash(long id) {
+		long hash = id * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 *
+	 * One reservation as read from the index.
+	 *
+	 */
+	public static final class Reservation {
+
+		private final String	reservationId;
+		private final String	customerEmail;
+		private final long		reservationTime;
+		private final int		levelId;
+		private final int[]		positions;
+
+		private Reservation(String reservationId, String customerEmail, long reservationTime, int levelId, int[] positions) {
+			this.reservationId = reservationId;
+			this.customerEmail = customerEmail;
+			this.reservationTime = reservationTime;
+			this.levelId = levelId;
+			this.positions = positions;
+		}
+
+		/**
+		 * @return the reservationId
+		 */
+		public String getReservationId() {
+			return reservationId;
+		}
+
+		/**
+		 * @return the customerEmail
+		 */
+		public String getCustomerEmail() {
+			return customerEmail;
+		}
+
+		/**
+		 * @return the reservationTime in epoch milliseconds
+		 */
+		public long getReservationTime() {
+			return reservationTime;
+		}
+
+		/**
+		 * @return the levelId
+		 */
+		public int getLevelId() {
+			return levelId;
+		}
+
+		/**
+		 * @return the positions of the reserved seats within their level inventory
+		 */
+		public int[] getPositions() {
+			return positions;
+		}
+	}
+
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.seatmap;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.walmart.ticket.constants.SeatState;
+import com.walmart.ticket.constants.TicketServiceConstants;
+import com.walmart.ticket.domain.SeatMapDelta;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.inventory.LevelInventory;
+import com.walmart.ticket.inventory.SeatChangeListener;
+import com.walmart.ticket.util.Flow;
+import com.walmart.ticket.util.MpscRingBuffer;
+
+/**
+ *
+ * Pushes the seat map of a venue to any number of subscribers as {@link SeatMapDelta}s, so clients keep a local seat
+ * map without polling numSeatsAvailable.
+ *
+ * The level inventories only append the positions of every hold, reservation and release to a bounded
+ * {@link MpscRingBuffer}, one compare-and-set per change. A dispatcher thread collects the changes every
+ * {@link TicketServiceConstants#SEAT_MAP_INTERVAL_NANOS} and marks the changed seats dirty for every subscriber.
+ * Subscribers are served on an executor as their demand allows: a delta is built from the current state of the dirty
+ * seats of one level when it is about to be sent, so a seat changed ten times while a subscriber was not asking only
+ * reaches it once, in its latest state. A slow subscriber therefore holds at most one bit per seat, never a backlog of
+ * deltas, and never slows down the publisher or the other subscribers. When changes arrive faster than the dispatcher
+ * collects them, the whole level is marked dirty instead.
+ *
+ * A new subscriber first receives the whole venue, every seat once, then the deltas. Applied in order, the deltas
+ * always converge to the current seat map.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SeatMapPublisher implements Flow.Publisher<SeatMapDelta>, SeatChangeListener {
+
+	private final VenueLayout								venueLayout;
+	private final Executor									executor;
+	private final MpscRingBuffer<Change>					changes;
+	private final Set<LevelInventory>						overflowed		= ConcurrentHashMap.newKeySet();
+	private final CopyOnWriteArrayList<SeatMapSubscription>	subscriptions	= new CopyOnWriteArrayList<SeatMapSubscription>();
+	private final Dispatcher								dispatcher;
+	private volatile LevelInventory[]						levelInventories;
+	private volatile long									sequence;
+	private volatile boolean								running			= true;
+
+	/**
+	 * @param venueLayout the levels of the venue
+	 * @param levelInventories the inventories of the levels, in the order of the layout
+	 */
+	public SeatMapPublisher(VenueLayout venueLayout, LevelInventory[] levelInventories) {
+		this(venueLayout, levelInventories, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param venueLayout the levels of the venue
+	 * @param levelInventories the inventories of the levels, in the order of the layout
+	 * @param executor the executor subscribers are served on
+	 */
+	public SeatMapPublisher(VenueLayout venueLayout, LevelInventory[] levelInventories, Executor executor) {
+		this.venueLayout = venueLayout;
+		this.executor = executor;
+		this.changes = new MpscRingBuffer<Change>(TicketServiceConstants.SEAT_MAP_CAPACITY);
+		this.dispatcher = new Dispatcher(this);
+		setLevelInventories(levelInventories);
+		this.dispatcher.start();
+	}
+
+	/**
+	 *
+	 * Publish the seats of new level inventories, e.g. after the service was initialized again. Every subscriber
+	 * receives the whole venue again.
+	 *
+	 * @param levelInventories the inventories of the levels, in the order of the layout
+	 */
+	public synchronized void setLevelInventories(LevelInventory[] levelInventories) {
+		LevelInventory[] previousInventories = this.levelInventories;
+		if (previousInventories != null) {
+			for (LevelInventory levelInventory : previousInventories) {
+				levelInventory.setSeatChangeListener(null);
+			}
+		}
+		for (LevelInventory levelInventory : levelInventories) {
+			levelInventory.setSeatChangeListener(this);
+		}
+		this.levelInventories = levelInventories;
+		for (SeatMapSubscription subscription : subscriptions) {
+			subscription.markAllDirty();
+			subscription.signal();
+		}
+	}
+
+	public void subscribe(Flow.Subscriber<? super SeatMapDelta> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("subscriber");
+		}
+		SeatMapSubscription subscription = new SeatMapSubscription(this, subscriber);
+		subscriber.onSubscribe(subscription);
+		synchronized (this) {
+			subscription.markAllDirty();
+			if (running) {
+				subscriptions.add(subscription);
+			} else {
+				subscription.closed = true;
+			}
+		}
+		// The subscription was held busy during onSubscribe, so no signal overlaps it
+		subscription.schedule();
+	}
+
+	/**
+	 * @return the number of subscribers
+	 */
+	public int getNumSubscribers() {
+		return subscriptions.size();
+	}
+
+	public void seatsChanged(LevelInventory levelInventory, int[] positions) {
+		if (!changes.offer(new Change(levelInventory, positions))) {
+			overflowed.add(levelInventory);
+		}
+	}
+
+	public void levelChanged(LevelInventory levelInventory) {
+		overflowed.add(levelInventory);
+	}
+
+	/**
+	 *
+	 * Stop publishing, every subscriber is completed.
+	 *
+	 */
+	public void halt() {
+		synchronized (this) {
+			running = false;
+			for (LevelInventory levelInventory : levelInventories) {
+				levelInventory.setSeatChangeListener(null);
+			}
+		}
+		LockSupport.unpark(dispatcher);
+		for (SeatMapSubscription subscription : subscriptions) {
+			subscription.closed = true;
+			subscription.signal();
+		}
+	}
+
+	/**
+	 *
+	 * Merge the changes collected since the last call and mark them dirty for every subscriber.
+	 *
+	 */
+	private void dispatch() {
+		LevelInventory[] levelInventories = this.levelInventories;
+		BitSet[] changed = null;
+		long sequence = this.sequence;
+		Change change;
+		while ((change = changes.poll()) != null) {
+			int index = indexOf(levelInventories, change.levelInventory);
+			if (index >= 0) {
+				if (changed == null) {
+					changed = new BitSet[levelInventories.length];
+				}
+				if (changed[index] == null) {
+					changed[index] = new BitSet(change.levelInventory.getPositionCount());
+				}
+				for (int position : change.positions) {
+					changed[index].set(position);
+				}
+			}
+			sequence++;
+		}
+		for (LevelInventory levelInventory : overflowed) {
+			overflowed.remove(levelInventory);
+			int index = indexOf(levelInventories, levelInventory);
+			if (index >= 0) {
+				if (changed == null) {
+					changed = new BitSet[levelInventories.length];
+				}
+				changed[index] = allSeats(levelInventory);
+			}
+			sequence++;
+		}
+		this.sequence = sequence;
+		if (changed != null) {
+			for (SeatMapSubscription subscription : subscriptions) {
+				subscription.markDirty(changed, sequence);
+				subscription.signal();
+			}
+		}
+	}
+
+	private int indexOf(LevelInventory[] levelInventories, LevelInventory levelInventory) {
+		int index = venueLayout.indexOf(levelInventory.getLevelId());
+		// Changes of inventories which were replaced meanwhile are covered by the whole venue sent after the replacement
+		return index >= 0 && index < levelInventories.length && levelInventories[index] == levelInventory ? index : -1;
+	}
+
+	private static BitSet allSeats(LevelInventory levelInventory) {
+		BitSet seats = new BitSet(levelInventory.getPositionCount());
+		for (int row = 0; row < levelInventory.getRows(); row++) {
+			int firstPosition = levelInventory.getPosition(row, 0);
+			seats.set(firstPosition, firstPosition + levelInventory.getSeatsPerRow());
+		}
+		return seats;
+	}
+
+	/**
+	 *
+	 * Build the deltas of one level from the current state of its dirty seats, one delta per state.
+	 *
+	 */
+	private static void buildDeltas(LevelInventory levelInventory, BitSet dirty, long sequence, Queue<SeatMapDelta> deltas) {
+		int[][] ranges = new int[SeatState.values().length][];
+		int[] sizes = new int[ranges.length];
+		int lastPosition = -2;
+		SeatState lastState = null;
+		for (int position = dirty.nextSetBit(0); position >= 0; position = dirty.nextSetBit(position + 1)) {
+			SeatState seatState = levelInventory.isReserved(position) ? SeatState.RESERVED
+					: levelInventory.isAvailable(position) ? SeatState.AVAILABLE : SeatState.HELD;
+			int state = seatState.ordinal();
+			if (seatState == lastState && position == lastPosition + 1
+					&& levelInventory.getRow(position) == levelInventory.getRow(lastPosition)) {
+				ranges[state][sizes[state] - 1]++;
+			} else {
+				if (ranges[state] == null) {
+					ranges[state] = new int[24];
+				} else if (sizes[state] + 3 > ranges[state].length) {
+					ranges[state] = Arrays.copyOf(ranges[state], ranges[state].length * 2);
+				}
+				ranges[state][sizes[state]++] = levelInventory.getRow(position);
+				ranges[state][sizes[state]++] = levelInventory.getSeatNumber(position);
+				ranges[state][sizes[state]++] = 1;
+			}
+			lastPosition = position;
+			lastState = seatState;
+		}
+		for (SeatState seatState : SeatState.values()) {
+			int state = seatState.ordinal();
+			if (ranges[state] != null) {
+				deltas.add(new SeatMapDelta(sequence, levelInventory.getLevelId(), seatState,
+						Arrays.copyOf(ranges[state], sizes[state])));
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Positions of seats whose state changed.
+	 *
+	 */
+	private static final class Change {
+
+		private final LevelInventory	levelInventory;
+		private final int[]				positions;
+
+		Change(LevelInventory levelInventory, int[] positions) {
+			this.levelInventory = levelInventory;
+			this.positions = positions;
+		}
+	}
+
+	/**
+	 *
+	 * Dirty seats and demand of one subscriber. Its signals are delivered on the executor by at most one task at a
+	 * time.
+	 *
+	 */
+	private static final class SeatMapSubscription implements Flow.Subscription, Runnable {
+
+		private final SeatMapPublisher						publisher;
+		private final Flow.Subscriber<? super SeatMapDelta>	subscriber;
+		private final AtomicLong							demand	= new AtomicLong();
+		// Busy until subscribe has returned from onSubscribe
+		private final AtomicInteger							pending	= new AtomicInteger(1);
+		private final BitSet[]								dirty;
+		private final long[]								sequences;
+		private final Queue<SeatMapDelta>					deltas	= new ArrayDeque<SeatMapDelta>();
+		private int											nextLevel;
+		private volatile boolean							cancelled;
+		private volatile boolean							closed;
+		private volatile Throwable							error;
+
+		SeatMapSubscription(SeatMapPublisher publisher, Flow.Subscriber<? super SeatMapDelta> subscriber) {
+			this.publisher = publisher;
+			this.subscriber = subscriber;
+			this.dirty = new BitSet[publisher.venueLayout.getVenueLevels().size()];
+			this.sequences = new long[dirty.length];
+		}
+
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException("Requested " + n + " deltas, demand must be positive");
+			} else {
+				long current;
+				do {
+					current = demand.get();
+				} while (current != Long.MAX_VALUE && !demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+			}
+			signal();
+		}
+
+		public void cancel() {
+			cancelled = true;
+			publisher.subscriptions.remove(this);
+		}
+
+		synchronized void markDirty(BitSet[] changed, long sequence) {
+			for (int index = 0; index < changed.length; index++) {
+				if (changed[index] != null) {
+					if (dirty[index] == null) {
+						dirty[index] = (BitSet) changed[index].clone();
+					} else {
+						dirty[index].or(changed[index]);
+					}
+					sequences[index] = sequence;
+				}
+			}
+		}
+
+		synchronized void markAllDirty() {
+			LevelInventory[] levelInventories = publisher.levelInventories;
+			for (int index = 0; index < levelInventories.length; index++) {
+				dirty[index] = allSeats(levelInventories[index]);
+				sequences[index] = publisher.sequence;
+			}
+			deltas.clear();
+		}
+
+		void signal() {
+			if (pending.getAndIncrement() == 0) {
+				schedule();
+			}
+		}
+
+		void schedule() {
+			try {
+				publisher.executor.execute(this);
+			} catch (RejectedExecutionException rejectedExecutionException) {
+				cancel();
+			}
+		}
+
+		public void run() {
+			do {
+				try {
+					deliver();
+				} catch (Throwable throwable) {
+					// A subscriber which throws is treated as cancelled
+					cancel();
+				}
+			} while (pending.decrementAndGet() != 0);
+		}
+
+		private void deliver() {
+			if (cancelled) {
+				return;
+			}
+			if (error != null) {
+				cancel();
+				subscriber.onError(error);
+				return;
+			}
+			if (closed) {
+				cancel();
+				subscriber.onComplete();
+				return;
+			}
+			long remaining;
+			while ((remaining = demand.get()) > 0 && !cancelled) {
+				SeatMapDelta delta = nextDelta();
+				if (delta == null) {
+					break;
+				}
+				if (remaining != Long.MAX_VALUE) {
+					demand.decrementAndGet();
+				}
+				subscriber.onNext(delta);
+			}
+		}
+
+		private synchronized SeatMapDelta nextDelta() {
+			if (deltas.isEmpty()) {
+				LevelInventory[] levelInventories = publisher.levelInventories;
+				for (int count = 0; count < dirty.length && deltas.isEmpty(); count++) {
+					int index = nextLevel;
+					nextLevel = (nextLevel + 1) % dirty.length;
+					if (dirty[index] != null) {
+						BitSet seats = dirty[index];
+						dirty[index] = null;
+						buildDeltas(levelInventories[index], seats, sequences[index], deltas);
+					}
+				}
+			}
+			return deltas.poll();
+		}
+	}
+
+	/**
+	 *
+	 * Thread collecting the changes of all levels at a fixed interval.
+	 *
+	 */
+	private static final class Dispatcher extends Thread {
+
+		private final SeatMapPublisher	publisher;
+
+		Dispatcher(SeatMapPublisher publisher) {
+			super("SeatMapDispatcher");
+			this.publisher = publisher;
+			setDaemon(true);
+		}
+
+		public void run() {
+			while (publisher.running) {
+				publisher.dispatch();
+				LockSupport.parkNanos(TicketServiceConstants.SEAT_MAP_INTERVAL_NANOS);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import com.walmart.ticket.domain.HoldRequest;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatMapDelta;
+import com.walmart.ticket.domain.SeatReservation;
+import com.walmart.ticket.util.Flow;
+
+/**
+ * 
+ * AsyncTicketService is the non-blocking counterpart of {@link TicketService}. Every call returns at once, the result
+ * or the exception of the request completes the returned future.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public interface AsyncTicketService {
+	
+	/**
+	* The number of seats in the requested level that are neither held nor reserved
+	*
+	* @param venueLevel a numeric venue level identifier to limit the search
+	* @return the number of tickets available on the provided level
+	*/
+	CompletableFuture<Integer> numSeatsAvailable(Optional<Integer> venueLevel);
+	
+	/**
+	* Find and hold the best available seats for a customer
+	*
+	* @param numSeats the number of seats to find and hold
+	* @param minLevel the minimum venue level
+	* @param maxLevel the maximum venue level
+	* @param customerEmail unique identifier for the customer
+	* @return a SeatHold object identifying the specific seats and related
+	information
+	*/
+	CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, Optional<Integer> minLevel, Optional<Integer> maxLevel, String customerEmail);
+	
+	/**
+	* Find and hold the best available seats for several customers at once. Requests are served in list order
+	*
+	* @param holdRequests the requests to serve
+	* @return a SeatHold object per request, in the same order, null for the requests which could not be served
+	*/
+	CompletableFuture<List<SeatHold>> findAndHoldSeatsBatch(List<HoldRequest> holdRequests);
+	
+	/**
+	* Commit seats held for a specific customer
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @return a reservation confirmation code
+	*/
+	CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail);
+	
+	/**
+	* Extend a seat hold of a customer, e.g. while the customer is still filling in the payment form
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @param extraMillis the milliseconds added to the expiration time, capped at the maximum lifetime of a hold
+	* @return the SeatHold with its new expiration time
+	*/
+	CompletableFuture<SeatHold> extendHold(int seatHoldId, String customerEmail, long extraMillis);
+	
+	/**
+	* Cancel a seat hold of a customer, e.g. when the customer abandons the checkout, so its seats can be held again at once
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @return whether the hold was released
+	*/
+	CompletableFuture<Boolean> releaseHold(int seatHoldId, String customerEmail);
+	
+	/**
+	* Find a reservation by its confirmation code
+	*
+	* @param reservationId the confirmation code returned by reserveSeats
+	* @return the reservation with its seats, or null if no reservation has the code
+	*/
+	CompletableFuture<SeatReservation> findReservation(String reservationId);
+	
+	/**
+	* Find the reservations of a customer
+	*
+	* @param customerEmail the email address of the customer, matched ignoring case
+	* @return the reservations with their seats in the order they were made
+	*/
+	CompletableFuture<List<SeatReservation>> findReservations(String customerEmail);
+	
+	/**
+	* Publisher of the seat map, pushing the seats which were held, reserved or released as they change. The publisher
+	* never blocks, its subscribers are served on their own executor.
+	*
+	* @return a publisher sending every subscriber the whole venue first, then the changes
+	*/
+	Flow.Publisher<SeatMapDelta> getSeatMapPublisher();
+	
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import com.walmart.ticket.domain.HoldRequest;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatMapDelta;
+import com.walmart.ticket.domain.SeatReservation;
+import com.walmart.ticket.util.Flow;
+
+/**
+ * 
+ * AsyncTicketServiceImpl runs the requests of a {@link TicketService} on an executor and completes a future per request.
+ * 
+ * The seat inventories and the hold cache are lock-free, a request never parks while holding a monitor. Requests can
+ * therefore run on virtual threads without pinning their carrier thread, and a few carrier threads serve any number of
+ * outstanding requests. On a JVM with virtual threads (Java 21 and later) {@link #newRequestExecutor()} starts one
+ * virtual thread per request, on older JVMs it falls back to a work-stealing pool sized to the processors.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class AsyncTicketServiceImpl implements AsyncTicketService {
+
+	private final TicketService	ticketService;
+	private final Executor		executor;
+	private final boolean		ownsExecutor;
+
+	/**
+	 * @param ticketService the service running the requests
+	 */
+	public AsyncTicketServiceImpl(TicketService ticketService) {
+		this(ticketService, newRequestExecutor(), true);
+	}
+
+	/**
+	 * @param ticketService the service running the requests
+	 * @param executor the executor running the requests, owned by the caller
+	 */
+	public AsyncTicketServiceImpl(TicketService ticketService, Executor executor) {
+		this(ticketService, executor, false);
+	}
+
+	private AsyncTicketServiceImpl(TicketService ticketService, Executor executor, boolean ownsExecutor) {
+		this.ticketService = ticketService;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/**
+	 * 
+	 * Create the default executor for requests: one virtual thread per request where the JVM supports it, otherwise a
+	 * work-stealing pool.
+	 * 
+	 * @return a new executor, to be shut down by the caller
+	 */
+	public static ExecutorService newRequestExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException reflectiveOperationException) {
+			return new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		}
+	}
+
+	/**
+	 * 
+	 * Shut down the executor if it was created by this service. The wrapped TicketService is left running.
+	 * 
+	 */
+	public void destroy() {
+		if (ownsExecutor) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+	/**
+	* The number of seats in the requested level that are neither held nor reserved
+	*
+	* @param venueLevel a numeric venue level identifier to limit the search
+	* @return the number of tickets available on the provided level
+	*/
+	public CompletableFuture<Integer> numSeatsAvailable(final Optional<Integer> venueLevel) {
+		return CompletableFuture.supplyAsync(() -> ticketService.numSeatsAvailable(venueLevel), executor);
+	}
+
+	/**
+	* Find and hold the best available seats for a customer
+	*
+	* @param numSeats the number of seats to find and hold
+	* @param minLevel the minimum venue level
+	* @param maxLevel the maximum venue level
+	* @param customerEmail unique identifier for the customer
+	* @return a SeatHold object identifying the specific seats and related
+	information
+	*/
+	public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final Optional<Integer> minLevel, final Optional<Integer> maxLevel,
+			final String customerEmail) {
+		return CompletableFuture.supplyAsync(() -> ticketService.findAndHoldSeats(numSeats, minLevel, maxLevel, customerEmail), executor);
+	}
+
+	/**
+	* Find and hold the best available seats for several customers at once. Requests are served in list order
+	*
+	* @param holdRequests the requests to serve
+	* @return a SeatHold object per request, in the same order, null for the requests which could not be served
+	*/
+	public CompletableFuture<List<SeatHold>> findAndHoldSeatsBatch(final List<HoldRequest> holdRequests) {
+		return CompletableFuture.supplyAsync(() -> ticketService.findAndHoldSeatsBatch(holdRequests), executor);
+	}
+
+	/**
+	* Commit seats held for a specific customer
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @return a reservation confirmation code
+	*/
+	public CompletableFuture<String> reserveSeats(final int seatHoldId, final String customerEmail) {
+		return CompletableFuture.supplyAsync(() -> ticketService.reserveSeats(seatHoldId, customerEmail), executor);
+	}
+
+	/**
+	* Extend a seat hold of a customer, e.g. while the customer is still filling in the payment form
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @param extraMillis the milliseconds added to the expiration time, capped at the maximum lifetime of a hold
+	* @return the SeatHold with its new expiration time
+	*/
+	public CompletableFuture<SeatHold> extendHold(final int seatHoldId, final String customerEmail, final long extraMillis) {
+		return CompletableFuture.supplyAsync(() -> ticketService.extendHold(seatHoldId, customerEmail, extraMillis), executor);
+	}
+
+	/**
+	* Cancel a seat hold of a customer, e.g. when the customer abandons the checkout, so its seats can be held again at once
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @return whether the hold was released
+	*/
+	public CompletableFuture<Boolean> releaseHold(final int seatHoldId, final String customerEmail) {
+		return CompletableFuture.supplyAsync(() -> ticketService.releaseHold(seatHoldId, customerEmail), executor);
+	}
+
+	/**
+	* Find a reservation by its confirmation code
+	*
+	* @param reservationId the confirmation code returned by reserveSeats
+	* @return the reservation with its seats, or null if no reservation has the code
+	*/
+	public CompletableFuture<SeatReservation> findReservation(final String reservationId) {
+		return CompletableFuture.supplyAsync(() -> ticketService.findReservation(reservationId), executor);
+	}
+
+	/**
+	* Find the reservations of a customer
+	*
+	* @param customerEmail the email address of the customer, matched ignoring case
+	* @return the reservations with their seats in the order they were made
+	*/
+	public CompletableFuture<List<SeatReservation>> findReservations(final String customerEmail) {
+		return CompletableFuture.supplyAsync(() -> ticketService.findReservations(customerEmail), executor);
+	}
+
+	/**
+	* Publisher of the seat map, pushing the seats which were held, reserved or released as they change. The publisher
+	* never blocks, its subscribers are served on their own executor.
+	*
+	* @return a publisher sending every subscriber the whole venue first, then the changes
+	*/
+	public Flow.Publisher<SeatMapDelta> getSeatMapPublisher() {
+		return ticketService.getSeatMapPublisher();
+	}
+
+}
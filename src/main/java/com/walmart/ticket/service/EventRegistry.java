@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.exception.EventNotFoundException;
+import com.walmart.ticket.journal.TicketJournal;
+
+/**
+ * 
+ * EventRegistry runs one isolated ticket engine per event. Every event gets its own {@link TicketServiceImpl} built from
+ * its own {@link VenueLayout}, with its own level inventories, hold cache, expiration thread and, when the registry keeps
+ * journals, its own journal directory. Engines share no lock, map or thread, so a hot event never contends with the
+ * others and all its memory is released once it is removed.
+ * 
+ * Looking an event up is a single lock-free read, requests for different events therefore run in parallel on whichever
+ * cores their callers run on. Creating and removing events is rare and serialized.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class EventRegistry {
+
+	private final ConcurrentMap<String, Event>	events	= new ConcurrentHashMap<String, Event>();
+	private final SeatAllocation				seatAllocation;
+	private final InventoryMode					inventoryMode;
+	private final File							journalDirectory;
+	private final boolean						metricsEnabled;
+
+	public EventRegistry() {
+		this(SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED, null);
+	}
+
+	/**
+	 * @param seatAllocation how the seats of a party are picked within a level, for every event
+	 * @param inventoryMode how concurrent requests update the seat inventory of a level, for every event
+	 * @param journalDirectory the directory holding one journal directory per event, null to keep no journals
+	 */
+	public EventRegistry(SeatAllocation seatAllocation, InventoryMode inventoryMode, File journalDirectory) {
+		this(seatAllocation, inventoryMode, journalDirectory, false);
+	}
+
+	/**
+	 * @param seatAllocation how the seats of a party are picked within a level, for every event
+	 * @param inventoryMode how concurrent requests update the seat inventory of a level, for every event
+	 * @param journalDirectory the directory holding one journal directory per event, null to keep no journals
+	 * @param metricsEnabled whether every event records its metrics and publishes them as MBeans named after the event
+	 *            id, see {@link MeteredTicketService}
+	 */
+	public EventRegistry(SeatAllocation seatAllocation, InventoryMode inventoryMode, File journalDirectory, boolean metricsEnabled) {
+		this.seatAllocation = seatAllocation;
+		this.inventoryMode = inventoryMode;
+		this.journalDirectory = journalDirectory;
+		this.metricsEnabled = metricsEnabled;
+	}
+
+	/**
+	 * 
+	 * Create the engine of an event. With journals an event created again after a restart resumes from its journal.
+	 * 
+	 * @param eventId unique identifier of the event, letters, digits, '.', '_' and '-' only
+	 * @param venueLayout the levels of the venue the event takes place in
+	 * @return the TicketService of the event
+	 * @throws IllegalStateException if the event is already registered
+	 */
+	public synchronized TicketService createEvent(String eventId, VenueLayout venueLayout) {
+		if (StringUtils.isEmpty(eventId) || !eventId.matches("[\\w.-]+") || eventId.startsWith(".")) {
+			throw new IllegalArgumentException("Invalid event id " + eventId);
+		}
+		if (venueLayout == null) {
+			throw new IllegalArgumentException("No venue layout for event " + eventId);
+		}
+		if (events.containsKey(eventId)) {
+			throw new IllegalStateException("Event " + eventId + " is already registered");
+		}
+		TicketJournal ticketJournal = journalDirectory != null ? new TicketJournal(new File(journalDirectory, eventId)) : null;
+		TicketServiceImpl ticketServiceImpl = null;
+		TicketService ticketService;
+		try {
+			ticketServiceImpl = new TicketServiceImpl(new TicketHoldCache(), seatAllocation, inventoryMode, ticketJournal, venueLayout);
+			ticketService = metricsEnabled ? MeteredTicketService.meter(ticketServiceImpl, eventId) : ticketServiceImpl;
+		} catch (RuntimeException runtimeException) {
+			if (ticketServiceImpl != null) {
+				ticketServiceImpl.destroy();
+			}
+			if (ticketJournal != null) {
+				ticketJournal.close();
+			}
+			throw runtimeException;
+		}
+		events.put(eventId, new Event(ticketServiceImpl, ticketService, ticketJournal));
+		return ticketService;
+	}
+
+	/**
+	 * @param eventId
+	 * @return the TicketService of the event
+	 * @throws EventNotFoundException if no event is registered with the id
+	 */
+	public TicketService getTicketService(String eventId) {
+		Event event = eventId != null ? events.get(eventId) : null;
+		if (event == null) {
+			throw new EventNotFoundException(eventId);
+		}
+		return event.ticketService;
+	}
+
+	/**
+	 * 
+	 * Stop the engine of an event and drop all its holds, e.g. once the event is over. Its journal, if any, is closed but
+	 * kept on disk.
+	 * 
+	 * @param eventId
+	 * @return whether the event was registered
+	 */
+	public synchronized boolean removeEvent(String eventId) {
+		Event event = eventId != null ? events.remove(eventId) : null;
+		if (event == null) {
+			return false;
+		}
+		event.destroy();
+		return true;
+	}
+
+	/**
+	 * @return the ids of the registered events
+	 */
+	public Set<String> getEventIds() {
+		return Collections.unmodifiableSet(events.keySet());
+	}
+
+	/**
+	 * @return the number of registered events
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	/**
+	 * 
+	 * Stop the engines of all events.
+	 * 
+	 */
+	public synchronized void destroy() {
+		for (String eventId : new ArrayList<String>(events.keySet())) {
+			removeEvent(eventId);
+		}
+	}
+
+	/**
+	 * 
+	 * The engine of one event, the service handed out for it and the journal it owns.
+	 * 
+	 */
+	private static final class Event {
+
+		private final TicketServiceImpl	ticketServiceImpl;
+		private final TicketService		ticketService;
+		private final TicketJournal		ticketJournal;
+
+		private Event(TicketServiceImpl ticketServiceImpl, TicketService ticketService, TicketJournal ticketJournal) {
+			this.ticketServiceImpl = ticketServiceImpl;
+			this.ticketService = ticketService;
+			this.ticketJournal = ticketJournal;
+		}
+
+		private void destroy() {
+			if (ticketService instanceof MeteredTicketService) {
+				((MeteredTicketService) ticketService).destroy();
+			}
+			ticketServiceImpl.destroy();
+			if (ticketJournal != null) {
+				ticketJournal.close();
+			}
+		}
+	}
+
+}
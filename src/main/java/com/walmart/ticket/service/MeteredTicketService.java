@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.walmart.ticket.domain.HoldRequest;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatMapDelta;
+import com.walmart.ticket.domain.SeatReservation;
+import com.walmart.ticket.metrics.TicketServiceMetrics;
+import com.walmart.ticket.util.Flow;
+
+/**
+ * 
+ * MeteredTicketService records the latency and the outcome of every request of a {@link TicketService} in a
+ * {@link TicketServiceMetrics}, e.g. to publish them over JMX. Recording takes two {@link System#nanoTime()} readings
+ * and a few lock-free increments per request.
+ * 
+ * {@link #meter(TicketServiceImpl, String)} also hooks the metrics into the service itself, which then records the hold
+ * attempts per level, the hold cache size, the expiry sweeps and the wait for the writer threads of sequenced levels.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class MeteredTicketService implements TicketService {
+
+	private final TicketService			ticketService;
+	private final TicketServiceMetrics	metrics;
+
+	/**
+	 * @param ticketService the service running the requests
+	 * @param metrics the metrics the requests are recorded in
+	 */
+	public MeteredTicketService(TicketService ticketService, TicketServiceMetrics metrics) {
+		this.ticketService = ticketService;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * 
+	 * Record the metrics of a service and publish them as MBeans.
+	 * 
+	 * @param ticketService the service running the requests
+	 * @param name the name the MBeans are registered under, e.g. the event id, null to not register them
+	 * @return the metered service, {@link #destroy()} unregisters the MBeans
+	 */
+	public static MeteredTicketService meter(TicketServiceImpl ticketService, String name) {
+		TicketServiceMetrics metrics = new TicketServiceMetrics(ticketService.getVenueLayout());
+		if (name != null) {
+			metrics.registerMBeans(name);
+		}
+		ticketService.setMetrics(metrics);
+		return new MeteredTicketService(ticketService, metrics);
+	}
+
+	/**
+	 * @return the metrics
+	 */
+	public TicketServiceMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 
+	 * Unregister the MBeans of the metrics. The service itself is left running.
+	 * 
+	 */
+	public void destroy() {
+		metrics.unregisterMBeans();
+	}
+
+	public int numSeatsAvailable(Optional<Integer> venueLevel) {
+		long startTime = System.nanoTime();
+		try {
+			return ticketService.numSeatsAvailable(venueLevel);
+		} finally {
+			metrics.getNumSeatsAvailableLatency().recordSince(startTime);
+		}
+	}
+
+	public SeatHold findAndHoldSeats(int numSeats, Optional<Integer> minLevel, Optional<Integer> maxLevel, String customerEmail) {
+		long startTime = System.nanoTime();
+		SeatHold seatHold = null;
+		try {
+			seatHold = ticketService.findAndHoldSeats(numSeats, minLevel, maxLevel, customerEmail);
+			return seatHold;
+		} finally {
+			metrics.getFindAndHoldSeatsLatency().recordSince(startTime);
+			metrics.recordHold(seatHold != null);
+		}
+	}
+
+	public List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+		long startTime = System.nanoTime();
+		List<SeatHold> seatHolds = null;
+		try {
+			seatHolds = ticketService.findAndHoldSeatsBatch(holdRequests);
+			return seatHolds;
+		} finally {
+			metrics.getFindAndHoldSeatsBatchLatency().recordSince(startTime);
+			if (seatHolds != null) {
+				for (SeatHold seatHold : seatHolds) {
+					metrics.recordHold(seatHold != null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * A {@link com.walmart.ticket.exception.TicketHoldNotFoundException} counts as a rejected reservation.
+	 * 
+	 */
+	public String reserveSeats(int seatHoldId, String customerEmail) {
+		long startTime = System.nanoTime();
+		boolean reserved = false;
+		try {
+			String reservationId = ticketService.reserveSeats(seatHoldId, customerEmail);
+			reserved = reservationId != null;
+			return reservationId;
+		} finally {
+			metrics.getReserveSeatsLatency().recordSince(startTime);
+			metrics.recordReservation(reserved);
+		}
+	}
+
+	/**
+	 * 
+	 * A {@link com.walmart.ticket.exception.TicketHoldNotFoundException} counts as a rejected extension.
+	 * 
+	 */
+	public SeatHold extendHold(int seatHoldId, String customerEmail, long extraMillis) {
+		long startTime = System.nanoTime();
+		SeatHold seatHold = null;
+		try {
+			seatHold = ticketService.extendHold(seatHoldId, customerEmail, extraMillis);
+			return seatHold;
+		} finally {
+			metrics.getExtendHoldLatency().recordSince(startTime);
+			metrics.recordExtension(seatHold != null);
+		}
+	}
+
+	/**
+	 * 
+	 * A {@link com.walmart.ticket.exception.TicketHoldNotFoundException} counts as a rejected release.
+	 * 
+	 */
+	public boolean releaseHold(int seatHoldId, String customerEmail) {
+		long startTime = System.nanoTime();
+		boolean released = false;
+		try {
+			released = ticketService.releaseHold(seatHoldId, customerEmail);
+			return released;
+		} finally {
+			metrics.getReleaseHoldLatency().recordSince(startTime);
+			metrics.recordRelease(released);
+		}
+	}
+
+	public SeatReservation findReservation(String reservationId) {
+		return ticketService.findReservation(reservationId);
+	}
+
+	public List<SeatReservation> findReservations(String customerEmail) {
+		return ticketService.findReservations(customerEmail);
+	}
+
+	public Flow.Publisher<SeatMapDelta> getSeatMapPublisher() {
+		return ticketService.getSeatMapPublisher();
+	}
+
+}
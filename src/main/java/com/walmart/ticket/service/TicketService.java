@@ -15,9 +15,14 @@
  */
 package com.walmart.ticket.service;
 
+import java.util.List;
 import java.util.Optional;
 
+import com.walmart.ticket.domain.HoldRequest;
 import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatMapDelta;
+import com.walmart.ticket.domain.SeatReservation;
+import com.walmart.ticket.util.Flow;
 
 /**
  * 
@@ -50,6 +55,14 @@ public interface TicketService {
 	*/
 	SeatHold findAndHoldSeats(int numSeats, Optional<Integer> minLevel, Optional<Integer> maxLevel, String customerEmail);
 	
+	/**
+	* Find and hold the best available seats for several customers at once. Requests are served in list order
+	*
+	* @param holdRequests the requests to serve
+	* @return a SeatHold object per request, in the same order, null for the requests which could not be served
+	*/
+	List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests);
+	
 	/**
 	* Commit seats held for a specific customer
 	*
@@ -59,4 +72,46 @@ public interface TicketService {
 	*/
 	String reserveSeats(int seatHoldId, String customerEmail);
 	
+	/**
+	* Extend a seat hold of a customer, e.g. while the customer is still filling in the payment form
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @param extraMillis the milliseconds added to the expiration time, capped at the maximum lifetime of a hold
+	* @return the SeatHold with its new expiration time
+	*/
+	SeatHold extendHold(int seatHoldId, String customerEmail, long extraMillis);
+	
+	/**
+	* Cancel a seat hold of a customer, e.g. when the customer abandons the checkout, so its seats can be held again at once
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @return whether the hold was released
+	*/
+	boolean releaseHold(int seatHoldId, String customerEmail);
+	
+	/**
+	* Find a reservation by its confirmation code
+	*
+	* @param reservationId the confirmation code returned by reserveSeats
+	* @return the reservation with its seats, or null if no reservation has the code
+	*/
+	SeatReservation findReservation(String reservationId);
+	
+	/**
+	* Find the reservations of a customer
+	*
+	* @param customerEmail the email address of the customer, matched ignoring case
+	* @return the reservations with their seats in the order they were made
+	*/
+	List<SeatReservation> findReservations(String customerEmail);
+	
+	/**
+	* Publisher of the seat map, pushing the seats which were held, reserved or released as they change
+	*
+	* @return a publisher sending every subscriber the whole venue first, then the changes
+	*/
+	Flow.Publisher<SeatMapDelta> getSeatMapPublisher();
+	
 }
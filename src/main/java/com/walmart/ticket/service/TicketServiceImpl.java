@@ -15,32 +15,63 @@
  */
 package com.walmart.ticket.service;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.walmart.ticket.cache.TicketHoldCache;
-import com.walmart.ticket.constants.SeatLevel;
-import com.walmart.ticket.domain.ExpirableObject;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.JournalRecordType;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.constants.TicketServiceConstants;
+import com.walmart.ticket.domain.HoldRequest;
 import com.walmart.ticket.domain.Seat;
 import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatMapDelta;
 import com.walmart.ticket.domain.SeatReservation;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.domain.VenueLevel;
 import com.walmart.ticket.exception.InvalidVenueLevelException;
 import com.walmart.ticket.exception.TicketHoldNotFoundException;
-import com.walmart.ticket.util.TicketUtils;
+import com.walmart.ticket.inventory.LevelInventory;
+import com.walmart.ticket.inventory.SequencedLevelInventory;
+import com.walmart.ticket.journal.JournalRecord;
+import com.walmart.ticket.journal.TicketJournal;
+import com.walmart.ticket.journal.VenueSnapshot;
+import com.walmart.ticket.metrics.TicketServiceMetrics;
+import com.walmart.ticket.reservation.ReservationIndex;
+import com.walmart.ticket.reservation.ReservationIndex.Reservation;
+import com.walmart.ticket.seatmap.SeatMapPublisher;
+import com.walmart.ticket.util.CrockfordBase32;
+import com.walmart.ticket.util.Flow;
+import com.walmart.ticket.util.HoldIdAllocator;
+import com.walmart.ticket.util.ReservationIdGenerator;
+import com.walmart.ticket.util.SnowflakeIdGenerator;
 
 /**
  * 
  * TicketService is a service class to find number of seats available, hold seats and reserve seats.
  * 
+ * Seats are claimed with compare-and-set on the level inventories, so holds and reservations never block each other.
+ * In {@link InventoryMode#SEQUENCED} mode every level is instead owned by a writer thread applying the requests in order.
+ * With a {@link TicketJournal} every hold, reservation and expiry is logged, a reservation id is only returned once the
+ * reservation is on disk. Reservations are indexed by confirmation code and customer in a {@link ReservationIndex}.
+ * A SeatHold is either reserved or expired, never both, whichever happens first wins.
+ * Every instance serves one event: it owns the {@link VenueLayout}, the level inventories, the hold cache with its
+ * expiration thread and the journal of that event and shares no state with other instances, see {@link EventRegistry}.
+ * 
  * @author Sarvesh Katariya
  * @version 1.0
  * @since 08/01/2016
@@ -48,11 +79,86 @@ import com.walmart.ticket.util.TicketUtils;
  */
 public class TicketServiceImpl implements TicketService {
 
-	private Map<Integer, Seat[][]>	venueArrangement	= new HashMap<Integer, Seat[][]>();
-	ReadWriteLock					lock				= new ReentrantReadWriteLock();
+	// Shared by every service of the process, so reservation ids are unique across events
+	private static final ReservationIdGenerator	DEFAULT_RESERVATION_ID_GENERATOR	= new SnowflakeIdGenerator(
+			TicketServiceConstants.RESERVATION_NODE_ID);
+
+	private final TicketHoldCache					ticketHoldCache;
+	private final SeatAllocation					seatAllocation;
+	private final InventoryMode						inventoryMode;
+	private final TicketJournal						ticketJournal;
+	private final TicketSnapshotThread				ticketSnapshotThread;
+	private final VenueLayout						venueLayout;
+	private final HoldIdAllocator					holdIdAllocator			= new HoldIdAllocator(TicketServiceConstants.HOLD_ID_STRIPES);
+	private volatile ReservationIdGenerator			reservationIdGenerator	= DEFAULT_RESERVATION_ID_GENERATOR;
+	private volatile Map<Integer, LevelInventory>	venueArrangement		= new TreeMap<Integer, LevelInventory>();
+	private volatile LevelInventory[]				levelInventories		= new LevelInventory[0];
+	private volatile ReservationIndex				reservationIndex		= new ReservationIndex();
+	private volatile TicketServiceMetrics			metrics;
+	private volatile SeatMapPublisher				seatMapPublisher;
+	private volatile long							maxHoldLifetime			= TicketServiceConstants.MAX_HOLD_LIFETIME;
 	
 	public TicketServiceImpl() { 
+		this(new TicketHoldCache());
+	}
+
+	/**
+	 * @param ticketHoldCache the cache holding the seat holds of this service
+	 */
+	public TicketServiceImpl(TicketHoldCache ticketHoldCache) {
+		this(ticketHoldCache, SeatAllocation.FIRST_AVAILABLE);
+	}
+
+	/**
+	 * @param ticketHoldCache the cache holding the seat holds of this service
+	 * @param seatAllocation how the seats of a party are picked within a level
+	 */
+	public TicketServiceImpl(TicketHoldCache ticketHoldCache, SeatAllocation seatAllocation) {
+		this(ticketHoldCache, seatAllocation, InventoryMode.SHARED);
+	}
+
+	/**
+	 * @param ticketHoldCache the cache holding the seat holds of this service
+	 * @param seatAllocation how the seats of a party are picked within a level
+	 * @param inventoryMode how concurrent requests update the seat inventory of a level
+	 */
+	public TicketServiceImpl(TicketHoldCache ticketHoldCache, SeatAllocation seatAllocation, InventoryMode inventoryMode) {
+		this(ticketHoldCache, seatAllocation, inventoryMode, null);
+	}
+
+	/**
+	 * @param ticketHoldCache the cache holding the seat holds of this service
+	 * @param seatAllocation how the seats of a party are picked within a level
+	 * @param inventoryMode how concurrent requests update the seat inventory of a level
+	 * @param ticketJournal the journal holds, reservations and expiries are logged to, null to keep no journal
+	 */
+	public TicketServiceImpl(TicketHoldCache ticketHoldCache, SeatAllocation seatAllocation, InventoryMode inventoryMode,
+			TicketJournal ticketJournal) {
+		this(ticketHoldCache, seatAllocation, inventoryMode, ticketJournal, VenueLayout.defaultLayout());
+	}
+
+	/**
+	 * @param ticketHoldCache the cache holding the seat holds of this service
+	 * @param seatAllocation how the seats of a party are picked within a level
+	 * @param inventoryMode how concurrent requests update the seat inventory of a level
+	 * @param ticketJournal the journal holds, reservations and expiries are logged to, null to keep no journal
+	 * @param venueLayout the levels of the venue
+	 */
+	public TicketServiceImpl(TicketHoldCache ticketHoldCache, SeatAllocation seatAllocation, InventoryMode inventoryMode,
+			TicketJournal ticketJournal, VenueLayout venueLayout) {
+		this.venueLayout = venueLayout;
+		this.ticketHoldCache = ticketHoldCache;
+		this.seatAllocation = seatAllocation;
+		this.inventoryMode = inventoryMode;
+		this.ticketJournal = ticketJournal;
+		this.ticketHoldCache.start();
 		init();
+		if (ticketJournal != null) {
+			this.ticketSnapshotThread = new TicketSnapshotThread(this);
+			this.ticketSnapshotThread.start();
+		} else {
+			this.ticketSnapshotThread = null;
+		}
 	}
 
 	/**
@@ -60,58 +166,158 @@ public class TicketServiceImpl implements TicketService {
 	 * 
 	 * In-memory seat held and reservation information, ideally this information will be stored in some kind of data storage e.g., Relational Database
 	 * 
+	 * With a journal the reserved seats and live holds are restored from the latest snapshot and the journal records after it.
+	 * 
 	 */
 	public void init() {
-		lock.writeLock().lock();
-		try {
-			SeatLevel[] seatLevels = SeatLevel.values();
-			if (seatLevels != null && seatLevels.length > 0) {
-				for (SeatLevel seatLevel : seatLevels) {
-					Seat[][] seats = new Seat[seatLevel.getRows()][seatLevel.getNumberofSeats()];
-					this.venueArrangement.put(seatLevel.getLevelId(), seats);
-				}
-			}
-		} finally {
-			lock.writeLock().unlock();
+		Map<Integer, LevelInventory> venueArrangement = new TreeMap<Integer, LevelInventory>();
+		List<VenueLevel> venueLevels = venueLayout.getVenueLevels();
+		LevelInventory[] levelInventories = new LevelInventory[venueLevels.size()];
+		for (int index = 0; index < levelInventories.length; index++) {
+			VenueLevel venueLevel = venueLevels.get(index);
+			// Seats are ranked once per level here, best available holds only read the resulting index
+			int[] rankedSeats = seatAllocation == SeatAllocation.BEST_AVAILABLE ? venueLevel.rankSeats() : null;
+			LevelInventory levelInventory = inventoryMode == InventoryMode.SEQUENCED
+					? new SequencedLevelInventory(venueLevel.getLevelId(), venueLevel.getRows(), venueLevel.getNumberofSeats(), rankedSeats)
+					: new LevelInventory(venueLevel.getLevelId(), venueLevel.getRows(), venueLevel.getNumberofSeats(), rankedSeats);
+			venueArrangement.put(venueLevel.getLevelId(), levelInventory);
+			levelInventories[index] = levelInventory;
+		}
+		Map<Integer, LevelInventory> previousArrangement = this.venueArrangement;
+		if (previousArrangement != null) {
+			// Holds on the seats of the previous arrangement are void, a journaled hold is restored on the new one
+			dropHolds(previousArrangement);
+		}
+		ReservationIndex reservationIndex = new ReservationIndex();
+		if (ticketJournal != null) {
+			recover(venueArrangement, reservationIndex);
+		}
+		setQueueWaitLatency(venueArrangement, metrics);
+		this.reservationIndex = reservationIndex;
+		this.venueArrangement = venueArrangement;
+		SeatMapPublisher seatMapPublisher;
+		// Under the lock the publisher is created with, a publisher created meanwhile is built from the new inventories
+		synchronized (this) {
+			this.levelInventories = levelInventories;
+			seatMapPublisher = this.seatMapPublisher;
+		}
+		if (seatMapPublisher != null) {
+			seatMapPublisher.setLevelInventories(levelInventories);
+		}
+		halt(previousArrangement);
+	}
+
+	/**
+	 * 
+	 * Halt the expiration of seat holds and drop every hold, e.g. before discarding the service.
+	 * 
+	 */
+	public void destroy() {
+		if (ticketSnapshotThread != null) {
+			ticketSnapshotThread.halt();
+		}
+		ticketHoldCache.halt();
+		SeatMapPublisher seatMapPublisher = this.seatMapPublisher;
+		if (seatMapPublisher != null) {
+			seatMapPublisher.halt();
+		}
+		halt(this.venueArrangement);
+	}
+
+	/**
+	 * @return the venueLayout
+	 */
+	public VenueLayout getVenueLayout() {
+		return venueLayout;
+	}
+
+	/**
+	 * @return the reservationIdGenerator
+	 */
+	public ReservationIdGenerator getReservationIdGenerator() {
+		return reservationIdGenerator;
+	}
+
+	/**
+	 * @param reservationIdGenerator
+	 *            the source of the confirmation codes returned by reserveSeats, e.g. a {@link SnowflakeIdGenerator} with
+	 *            the node id of this server
+	 */
+	public void setReservationIdGenerator(ReservationIdGenerator reservationIdGenerator) {
+		this.reservationIdGenerator = reservationIdGenerator;
+	}
+
+	/**
+	 * @return the maxHoldLifetime
+	 */
+	public long getMaxHoldLifetime() {
+		return maxHoldLifetime;
+	}
+
+	/**
+	 * @param maxHoldLifetime
+	 *            the milliseconds after its creation a hold expires at the latest, however often it is extended
+	 */
+	public void setMaxHoldLifetime(long maxHoldLifetime) {
+		this.maxHoldLifetime = maxHoldLifetime;
+	}
+
+	/**
+	 * @return the metrics, null if the service records none
+	 */
+	public TicketServiceMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 
+	 * Record the hold attempts per level, the hold cache size, the expiry sweeps and the wait for the writer threads of
+	 * sequenced levels. Request latencies are recorded by a {@link MeteredTicketService}.
+	 * 
+	 * @param metrics the metrics to record in, null to stop recording
+	 */
+	public void setMetrics(TicketServiceMetrics metrics) {
+		if (metrics != null) {
+			metrics.setHoldCacheSize(ticketHoldCache::size);
 		}
+		ticketHoldCache.setMetrics(metrics);
+		setQueueWaitLatency(this.venueArrangement, metrics);
+		this.metrics = metrics;
 	}
 
 	/**
 	* The number of seats in the requested level that are neither held nor reserved
 	*
+	* Every level keeps its count of available seats up to date on each hold, reservation, release and expiry, so this
+	* only reads one counter per level, without a lock, a scan or an allocation.
+	*
 	* @param venueLevel a numeric venue level identifier to limit the search
 	* @return the number of tickets available on the provided level
 	*/
 	public int numSeatsAvailable(Optional<Integer> venueLevel) {
 		int numSeatsAvailable = 0;
-		lock.readLock().lock();
-		try {
-			if (venueLevel != null && venueLevel.isPresent()) {
-				Integer levelId = venueLevel.get();
-				if (levelId != null) {
-					Seat[][] seats = this.venueArrangement.get(levelId);
-					if (seats != null) {
-						numSeatsAvailable = numSeatsAvailable + countNumberofSeatsAvailable(seats);
-					} else {
-						throw new InvalidVenueLevelException(levelId);
-					}
-				}
-			} else {
-				Collection<Seat[][]> levelSeats = this.venueArrangement.values();
-				if (levelSeats != null && !levelSeats.isEmpty()) {
-					for (Seat[][] seats : levelSeats) {
-						numSeatsAvailable = numSeatsAvailable + countNumberofSeatsAvailable(seats);
-					}
+		LevelInventory[] levelInventories = this.levelInventories;
+		if (venueLevel != null && venueLevel.isPresent()) {
+			Integer levelId = venueLevel.get();
+			if (levelId != null) {
+				int index = venueLayout.indexOf(levelId);
+				if (index >= 0) {
+					numSeatsAvailable = numSeatsAvailable + levelInventories[index].getNumSeatsAvailable();
+				} else {
+					throw new InvalidVenueLevelException(levelId);
 				}
 			}
-		} finally {
-			lock.readLock().unlock();
+		} else {
+			for (LevelInventory levelInventory : levelInventories) {
+				numSeatsAvailable = numSeatsAvailable + levelInventory.getNumSeatsAvailable();
+			}
 		}
 		return numSeatsAvailable;
 	}
 
 	/**
 	 * Find and hold the best available seats for a customer. Seats are not allocated across different seat levels.
+	 * Within a level seats are picked according to the {@link SeatAllocation} of the service.
 	 *
 	 * @param numSeats
 	 *            the number of seats to find and hold
@@ -129,53 +335,111 @@ public class TicketServiceImpl implements TicketService {
 			return null;
 
 		SeatHold seatHold = null;
-		boolean holdCompleted = false;
-		List<SeatLevel> seatLevels = SeatLevel.getSeatLevels(minLevel, maxLevel);
+		int[] positions = null;
+		List<VenueLevel> seatLevels = venueLayout.getVenueLevels(minLevel, maxLevel);
+		TicketServiceMetrics metrics = this.metrics;
+		LevelInventory[] levelInventories = this.levelInventories;
 		if (seatLevels != null && !seatLevels.isEmpty()) {
-			lock.writeLock().lock();
-			try {
-				for (SeatLevel seatLevel : seatLevels) {
-					if (!holdCompleted) {
-						int numberofSeatsAvailable = numSeatsAvailable(Optional.of(seatLevel.getLevelId()));
-						if (numberofSeatsAvailable >= numSeats) {
-							seatHold = new SeatHold(TicketUtils.generateTicketHoldId(), customerEmail, new Date());
-							Seat[][] seats = this.venueArrangement.get(seatLevel.getLevelId());
-							if (seats != null && seats.length > 0) {
-								for (int row = 0; row < seats.length; row++) {
-									for (int seatNumber = 0; seatNumber < seats[row].length; seatNumber++) {
-										Seat seat = seats[row][seatNumber];
-										if (seat == null) {
-											seat = new Seat(row, seatNumber, seatLevel);
-											seats[row][seatNumber] = seat;
-										}
-										if (!seat.isHold()) {
-											seat.setHold(true);
-											seatHold.getSeats().add(seat);
-										}
-										if (seatHold.getSeats().size() == numSeats) {
-											holdCompleted = true;
-											break;
-										}
-									}
-	
-									if (holdCompleted) {
-										break;
-									}
-								}
-							}
-						}
+			for (VenueLevel seatLevel : seatLevels) {
+				LevelInventory levelInventory = levelInventories[venueLayout.indexOf(seatLevel.getLevelId())];
+				if (levelInventory.getNumSeatsAvailable() < numSeats) {
+					if (metrics != null) {
+						metrics.recordLevelHold(seatLevel.getLevelId(), false);
 					}
+					continue;
 				}
-				if (seatHold != null) {
-					TicketHoldCache.add(seatHold);
+				positions = hold(levelInventory, numSeats);
+				if (metrics != null) {
+					metrics.recordLevelHold(seatLevel.getLevelId(), positions != null);
 				}
-			} finally {
-				lock.writeLock().unlock();
+				if (positions != null) {
+					seatHold = newSeatHold(holdIdAllocator.next(), positions, levelInventory, seatLevel, customerEmail, new Date());
+					break;
+				}
+			}
+			if (seatHold != null) {
+				addSeatHold(seatHold, positions);
 			}
 		}
 		return seatHold;
 	}
 
+	/**
+	 * Find and hold the best available seats for several customers at once, e.g. at on-sale open.
+	 * 
+	 * Every level is visited once for the whole batch: the requests which cover the level and are still unserved are
+	 * handed to the level inventory together, which takes their seats off the available counter in one step and
+	 * continues its seat scan where the previous request stopped. Requests are served in list order, a request which
+	 * does not fit into a level moves on to the next level exactly as with {@link #findAndHoldSeats}.
+	 *
+	 * @param holdRequests
+	 *            the requests to serve
+	 * @return a SeatHold object per request, in the same order, null for the requests which are invalid or could not
+	 *         be served
+	 */
+	public List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+		if (holdRequests == null || holdRequests.isEmpty())
+			return new ArrayList<SeatHold>();
+
+		int size = holdRequests.size();
+		SeatHold[] seatHolds = new SeatHold[size];
+		int[] minLevels = new int[size];
+		int[] maxLevels = new int[size];
+		boolean[] pending = new boolean[size];
+		int numPending = 0;
+		for (int index = 0; index < size; index++) {
+			HoldRequest holdRequest = holdRequests.get(index);
+			if (holdRequest == null || holdRequest.getNumSeats() <= 0 || StringUtils.isEmpty(holdRequest.getCustomerEmail()))
+				continue;
+			minLevels[index] = levelId(holdRequest.getMinLevel(), Integer.MIN_VALUE);
+			maxLevels[index] = levelId(holdRequest.getMaxLevel(), Integer.MAX_VALUE);
+			pending[index] = true;
+			numPending++;
+		}
+
+		int[] requestIndexes = new int[size];
+		int[] partySizes = new int[size];
+		TicketServiceMetrics metrics = this.metrics;
+		for (Map.Entry<Integer, LevelInventory> entry : this.venueArrangement.entrySet()) {
+			if (numPending == 0) {
+				break;
+			}
+			int levelId = entry.getKey();
+			LevelInventory levelInventory = entry.getValue();
+			int numRequests = 0;
+			for (int index = 0; index < size; index++) {
+				if (pending[index] && minLevels[index] <= levelId && levelId <= maxLevels[index]) {
+					requestIndexes[numRequests] = index;
+					partySizes[numRequests] = holdRequests.get(index).getNumSeats();
+					numRequests++;
+				}
+			}
+			if (numRequests == 0) {
+				continue;
+			}
+			int[][] holds = levelInventory.holdAll(numRequests == size ? partySizes : Arrays.copyOf(partySizes, numRequests), seatAllocation);
+			VenueLevel seatLevel = venueLayout.getVenueLevel(levelId);
+			for (int request = 0; request < numRequests; request++) {
+				if (metrics != null) {
+					metrics.recordLevelHold(levelId, holds[request] != null);
+				}
+				if (holds[request] != null) {
+					int index = requestIndexes[request];
+					seatHolds[index] = newSeatHold(holdIdAllocator.next(), holds[request], levelInventory, seatLevel,
+							holdRequests.get(index).getCustomerEmail(), new Date());
+					addSeatHold(seatHolds[index], holds[request]);
+					pending[index] = false;
+					numPending--;
+				}
+			}
+		}
+		List<SeatHold> result = new ArrayList<SeatHold>(size);
+		for (SeatHold seatHold : seatHolds) {
+			result.add(seatHold);
+		}
+		return result;
+	}
+
 	/**
 	* Commit seats held for a specific customer
 	*
@@ -188,62 +452,411 @@ public class TicketServiceImpl implements TicketService {
 		if (seatHoldId <=0 || StringUtils.isEmpty(customerEmail))
 			return null;
 		
-		Object object = TicketHoldCache.get(seatHoldId);
-		SeatHold seatHold = (object != null && object instanceof SeatHold) ? (SeatHold) object : null;
-		if (seatHold != null && customerEmail.equalsIgnoreCase(seatHold.getCustomerEmail()) && !seatHold.shouldExpire()) {
-			lock.writeLock().lock();
-			try {
-				List<Seat> holdSeats = seatHold.getSeats();
-				if (holdSeats != null && !holdSeats.isEmpty()) {
-					reservationId = UUID.randomUUID().toString();
-					SeatReservation seatReservation = new SeatReservation(reservationId, customerEmail, new Date());
-					for (Seat holdSeat : holdSeats) {
-						if (holdSeat != null) {
-							Seat[][] seats = this.venueArrangement.get(holdSeat.getSeatLevel().getLevelId());
-							if (seats != null && seats.length > 0) {
-								Seat seat = seats[holdSeat.getRow()][holdSeat.getSeatNumber()];
-								if (seat != null) {
-									seat.setHold(false);
-									seat.setSeatReservation(seatReservation);
-								}
-							}
+		SeatHold seatHold = ticketHoldCache.get(seatHoldId);
+		if (seatHold != null && customerEmail.equalsIgnoreCase(seatHold.getCustomerEmail()) && !seatHold.shouldExpire()
+				&& seatHold.markReserved()) {
+			int[] positions = seatHold.getPositions();
+			LevelInventory levelInventory = seatHold.getLevelInventory();
+			if (positions.length > 0 && levelInventory != null) {
+				Date reservationDate = new Date();
+				// Indexed before it is logged, so a snapshot taken after the record was written always finds it indexed
+				reservationId = indexReservation(seatHold.getCustomerEmail(), reservationDate.getTime(), levelInventory.getLevelId(), positions);
+				if (reservationId == null) {
+					ticketHoldCache.remove(seatHold);
+					try {
+						if (ticketJournal != null) {
+							ticketJournal.append(new JournalRecord(JournalRecordType.EXPIRE, seatHoldId, levelInventory.getLevelId(),
+									System.currentTimeMillis(), seatHold.getCustomerEmail(), null, positions));
 						}
+					} finally {
+						levelInventory.release(positions);
+					}
+					throw new IllegalStateException("No unused reservation id in " + TicketServiceConstants.RESERVATION_ID_ATTEMPTS + " attempts");
+				}
+				seatHold.setSeatReservation(new SeatReservation(reservationId, customerEmail, reservationDate));
+				levelInventory.reserve(positions);
+				if (ticketJournal != null) {
+					// The confirmation code is only handed out once the reservation is on disk
+					try {
+						ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.RESERVE, seatHoldId, levelInventory.getLevelId(),
+								System.currentTimeMillis(), seatHold.getCustomerEmail(), reservationId, positions));
+					} catch (RuntimeException runtimeException) {
+						// Undone, so memory and journal agree, and the seats are returned as if the hold expired
+						reservationIndex.remove(reservationId);
+						levelInventory.unreserve(positions);
+						seatHold.setSeatReservation(null);
+						ticketHoldCache.remove(seatHold);
+						levelInventory.release(positions);
+						throw runtimeException;
 					}
 				}
-				TicketHoldCache.remove((ExpirableObject) object);
-			} finally {
-				lock.writeLock().unlock();
 			}
+			ticketHoldCache.remove(seatHold);
 		} else {
 			throw new TicketHoldNotFoundException(seatHoldId, customerEmail);
 		}
 		return reservationId;
 	}
 
+	/**
+	* Index a reservation under a new confirmation code. A code the index reads as a Crockford base 32 code is handed out
+	* in the canonical form the index keeps it in, and a code which is taken already is replaced by the next one.
+	*
+	* @return the confirmation code, or null if the generator returned no unused code
+	*/
+	private String indexReservation(String customerEmail, long reservationTime, int levelId, int[] positions) {
+		for (int attempt = 0; attempt < TicketServiceConstants.RESERVATION_ID_ATTEMPTS; attempt++) {
+			String reservationId = reservationIdGenerator.nextReservationId();
+			long id = CrockfordBase32.decode(reservationId);
+			if (id >= 0) {
+				reservationId = CrockfordBase32.encode(id);
+			}
+			if (reservationId != null && reservationIndex.add(reservationId, customerEmail, reservationTime, levelId, positions)) {
+				return reservationId;
+			}
+		}
+		return null;
+	}
+
+	/**
+	* Extend a seat hold of a customer, e.g. while the customer is still filling in the payment form. The hold is moved to
+	* its new expiration time in the hold cache in O(1). A hold never outlives the maximum hold lifetime after it was
+	* created, an extension past it is cut short.
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @param extraMillis the milliseconds added to the expiration time
+	* @return the SeatHold with its new expiration time, or null if the arguments are invalid
+	*/
+	public SeatHold extendHold(int seatHoldId, String customerEmail, long extraMillis) {
+		if (seatHoldId <= 0 || StringUtils.isEmpty(customerEmail) || extraMillis <= 0)
+			return null;
+
+		SeatHold seatHold = ticketHoldCache.get(seatHoldId);
+		if (seatHold == null || !customerEmail.equalsIgnoreCase(seatHold.getCustomerEmail())) {
+			throw new TicketHoldNotFoundException(seatHoldId, customerEmail);
+		}
+		// Extensions of the same hold are applied one after the other by compare and set, no lock is held while the hold
+		// is moved in the cache and the extension is logged
+		long expirationTime;
+		long newExpirationTime;
+		do {
+			if (!seatHold.isHeld() || seatHold.shouldExpire()) {
+				throw new TicketHoldNotFoundException(seatHoldId, customerEmail);
+			}
+			expirationTime = seatHold.getExpirationTime();
+			long maxExpirationTime = seatHold.getHoldTime().getTime() + maxHoldLifetime;
+			newExpirationTime = expirationTime + Math.min(extraMillis, Math.max(0, maxExpirationTime - expirationTime));
+			if (newExpirationTime <= expirationTime) {
+				return seatHold;
+			}
+		} while (!seatHold.compareAndSetExpirationTime(expirationTime, newExpirationTime));
+		// Fails once the hold was reserved or expired meanwhile
+		if (!ticketHoldCache.reschedule(seatHold)) {
+			throw new TicketHoldNotFoundException(seatHoldId, customerEmail);
+		}
+		if (ticketJournal != null) {
+			ticketJournal.append(new JournalRecord(JournalRecordType.EXTEND, seatHoldId, seatHold.getLevelInventory().getLevelId(),
+					newExpirationTime, seatHold.getCustomerEmail(), null, seatHold.getPositions()));
+		}
+		return seatHold;
+	}
+
+	/**
+	* Cancel a seat hold of a customer, e.g. when the customer abandons the checkout. The hold ends as if it expired, it is
+	* dropped from the hold cache and its seats are returned to the free pool of their level before the call returns,
+	* so they can be held again at once.
+	*
+	* @param seatHoldId the seat hold identifier
+	* @param customerEmail the email address of the customer to which the seat hold is assigned
+	* @return whether the hold was released, false if the arguments are invalid
+	*/
+	public boolean releaseHold(int seatHoldId, String customerEmail) {
+		if (seatHoldId <= 0 || StringUtils.isEmpty(customerEmail))
+			return false;
+
+		SeatHold seatHold = ticketHoldCache.get(seatHoldId);
+		// Ending the hold first wins or loses against reserveSeats and expiry, the seats are only ever freed once
+		int[] positions = seatHold != null && customerEmail.equalsIgnoreCase(seatHold.getCustomerEmail()) ? seatHold.markExpired() : null;
+		if (positions == null) {
+			throw new TicketHoldNotFoundException(seatHoldId, customerEmail);
+		}
+		try {
+			seatHold.journalExpiry(positions);
+		} finally {
+			ticketHoldCache.remove(seatHold);
+			seatHold.getLevelInventory().release(positions);
+		}
+		return true;
+	}
+
+	/**
+	* Find a reservation by its confirmation code
+	*
+	* @param reservationId the confirmation code returned by reserveSeats
+	* @return the reservation with its seats, or null if no reservation has the code
+	*/
+	public SeatReservation findReservation(String reservationId) {
+		if (StringUtils.isEmpty(reservationId))
+			return null;
+
+		Reservation reservation = reservationIndex.find(reservationId);
+		return reservation != null ? newSeatReservation(reservation) : null;
+	}
+
+	/**
+	* Find the reservations of a customer
+	*
+	* @param customerEmail the email address of the customer, matched ignoring case
+	* @return the reservations with their seats in the order they were made
+	*/
+	public List<SeatReservation> findReservations(String customerEmail) {
+		List<SeatReservation> seatReservations = new ArrayList<SeatReservation>();
+		if (StringUtils.isEmpty(customerEmail))
+			return seatReservations;
+
+		for (Reservation reservation : reservationIndex.findByCustomer(customerEmail)) {
+			seatReservations.add(newSeatReservation(reservation));
+		}
+		return seatReservations;
+	}
+
+	/**
+	* Publisher of the seat map, pushing the seats which were held, reserved or released as they change. It is started
+	* with the first call, a service nobody subscribes to pays nothing for it.
+	*
+	* @return a publisher sending every subscriber the whole venue first, then the changes
+	*/
+	public Flow.Publisher<SeatMapDelta> getSeatMapPublisher() {
+		SeatMapPublisher seatMapPublisher = this.seatMapPublisher;
+		if (seatMapPublisher == null) {
+			synchronized (this) {
+				seatMapPublisher = this.seatMapPublisher;
+				if (seatMapPublisher == null) {
+					this.seatMapPublisher = seatMapPublisher = new SeatMapPublisher(venueLayout, levelInventories);
+				}
+			}
+		}
+		return seatMapPublisher;
+	}
+
 	/**
 	 * 
-	 * Count the number os seats which are neither held nor reserved.
+	 * Take a snapshot of the reserved seats and the live holds while requests keep being served, so a restart only has to
+	 * replay the journal records after it. Called periodically by the {@link TicketSnapshotThread}.
 	 * 
-	 * @param seats
-	 * @return number of seat available - one which are neither held nor reserved
+	 * @return the journal position the snapshot was taken at
 	 */
-	private int countNumberofSeatsAvailable(Seat[][] seats) {
-		int numSeatsAvailable = 0;
-		if (seats != null && seats.length > 0) {
-			for (int row = 0; row < seats.length; row++) {
-				for (int seatNumber = 0; seatNumber < seats[row].length; seatNumber++) {
-					Seat seat = seats[row][seatNumber];
-					if (seat != null) {
-						if (!seat.isHold() && seat.getSeatReservation() == null) {
-							numSeatsAvailable = numSeatsAvailable + 1;
-						}
-					} else {
-						numSeatsAvailable = numSeatsAvailable + 1;
-					}
+	public long snapshot() {
+		if (ticketJournal == null) {
+			throw new IllegalStateException("The service does not keep a journal");
+		}
+		long journalPosition = ticketJournal.sync();
+		// Holds are copied before the reserved seats: a hold which is reserved meanwhile is then found reserved
+		List<JournalRecord> holds = new ArrayList<JournalRecord>();
+		for (SeatHold seatHold : ticketHoldCache.getSeatHolds()) {
+			if (seatHold.isHeld() && seatHold.getLevelInventory() != null) {
+				holds.add(new JournalRecord(isExtended(seatHold) ? JournalRecordType.EXTEND : JournalRecordType.HOLD, seatHold.getSeatHoldId(), seatHold.getLevelInventory().getLevelId(),
+						seatHold.getExpirationTime(), seatHold.getCustomerEmail(), null, seatHold.getPositions()));
+			}
+		}
+		Map<Integer, long[]> reservedWords = new TreeMap<Integer, long[]>();
+		for (Map.Entry<Integer, LevelInventory> entry : this.venueArrangement.entrySet()) {
+			reservedWords.put(entry.getKey(), entry.getValue().getReservedWords());
+		}
+		final List<JournalRecord> reservations = new ArrayList<JournalRecord>(reservationIndex.size());
+		reservationIndex.forEach(reservation -> reservations.add(new JournalRecord(JournalRecordType.RESERVE, 0, reservation.getLevelId(),
+				reservation.getReservationTime(), reservation.getCustomerEmail(), reservation.getReservationId(), reservation.getPositions())));
+		ticketJournal.writeSnapshot(new VenueSnapshot(journalPosition, System.currentTimeMillis(), reservedWords, holds, reservations));
+		return journalPosition;
+	}
+
+	/**
+	 * 
+	 * Restore the reserved seats, the reservation index and the live holds from the latest snapshot and the journal
+	 * records after it. Holds which expired meanwhile are dropped.
+	 * 
+	 */
+	private void recover(Map<Integer, LevelInventory> venueArrangement, final ReservationIndex reservationIndex) {
+		final Map<Integer, BitSet> reserved = new HashMap<Integer, BitSet>();
+		final Map<Integer, JournalRecord> holds = new LinkedHashMap<Integer, JournalRecord>();
+		final int[] maxSeatHoldId = new int[1];
+		long journalPosition = 0;
+		VenueSnapshot venueSnapshot = ticketJournal.readSnapshot();
+		if (venueSnapshot != null) {
+			journalPosition = venueSnapshot.getJournalPosition();
+			for (Map.Entry<Integer, long[]> entry : venueSnapshot.getReservedWords().entrySet()) {
+				reserved.put(entry.getKey(), BitSet.valueOf(entry.getValue()));
+			}
+			for (JournalRecord hold : venueSnapshot.getHolds()) {
+				holds.put(hold.getSeatHoldId(), hold);
+				maxSeatHoldId[0] = Math.max(maxSeatHoldId[0], hold.getSeatHoldId());
+			}
+			for (JournalRecord reservation : venueSnapshot.getReservations()) {
+				reservationIndex.add(reservation.getReservationId(), reservation.getCustomerEmail(), reservation.getTime(),
+						reservation.getLevelId(), reservation.getPositions());
+			}
+		}
+		ticketJournal.replay(journalPosition, record -> {
+			maxSeatHoldId[0] = Math.max(maxSeatHoldId[0], record.getSeatHoldId());
+			switch (record.getType()) {
+			case HOLD:
+				holds.put(record.getSeatHoldId(), record);
+				break;
+			case RESERVE:
+				BitSet reservedSeats = reserved.get(record.getLevelId());
+				if (reservedSeats == null) {
+					reserved.put(record.getLevelId(), reservedSeats = new BitSet());
 				}
+				for (int position : record.getPositions()) {
+					reservedSeats.set(position);
+				}
+				reservationIndex.add(record.getReservationId(), record.getCustomerEmail(), record.getTime(), record.getLevelId(),
+						record.getPositions());
+				holds.remove(record.getSeatHoldId());
+				break;
+			case EXPIRE:
+				holds.remove(record.getSeatHoldId());
+				break;
+			case EXTEND:
+				// Kept in place of the hold record, an extension of a reserved or expired hold is ignored. Concurrent
+				// extensions may be logged out of order, the latest expiration time wins
+				JournalRecord hold = holds.get(record.getSeatHoldId());
+				if (hold != null && record.getTime() > hold.getTime()) {
+					holds.put(record.getSeatHoldId(), record);
+				}
+				break;
+			}
+		});
+
+		for (Map.Entry<Integer, BitSet> entry : reserved.entrySet()) {
+			LevelInventory levelInventory = venueArrangement.get(entry.getKey());
+			if (levelInventory != null) {
+				levelInventory.restoreReserved(entry.getValue().toLongArray());
 			}
 		}
-		return numSeatsAvailable;
+		// New holds must not reuse the id of a restored hold
+		holdIdAllocator.advanceTo(maxSeatHoldId[0]);
+		long now = System.currentTimeMillis();
+		for (JournalRecord hold : holds.values()) {
+			LevelInventory levelInventory = venueArrangement.get(hold.getLevelId());
+			// A hold whose seats were reserved meanwhile can not be claimed again
+			if (levelInventory == null || hold.getTime() <= now || !levelInventory.holdExact(hold.getPositions())) {
+				continue;
+			}
+			// The creation time of an extended hold is not journaled, it is taken as having used up its lifetime
+			long lifetime = hold.getType() == JournalRecordType.EXTEND ? maxHoldLifetime : TicketServiceConstants.DEFAULT_LIFETIME;
+			SeatHold seatHold = newSeatHold(hold.getSeatHoldId(), hold.getPositions(), levelInventory, venueLayout.getVenueLevel(hold.getLevelId()),
+					hold.getCustomerEmail(), new Date(hold.getTime() - lifetime));
+			seatHold.setExpirationTime(hold.getTime());
+			if (!ticketHoldCache.add(seatHold)) {
+				// No hold could ever expire the seats
+				levelInventory.release(hold.getPositions());
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * Drop the cached holds on the seats of the given arrangement.
+	 * 
+	 */
+	private void dropHolds(Map<Integer, LevelInventory> venueArrangement) {
+		Set<LevelInventory> levelInventories = Collections.newSetFromMap(new IdentityHashMap<LevelInventory, Boolean>());
+		levelInventories.addAll(venueArrangement.values());
+		for (SeatHold seatHold : ticketHoldCache.getSeatHolds()) {
+			if (levelInventories.contains(seatHold.getLevelInventory())) {
+				ticketHoldCache.remove(seatHold);
+			}
+		}
+	}
+
+	/**
+	 * @return whether the hold expires later than a hold which was never extended
+	 */
+	private static boolean isExtended(SeatHold seatHold) {
+		return seatHold.getExpirationTime() > seatHold.getHoldTime().getTime() + TicketServiceConstants.DEFAULT_LIFETIME;
+	}
+
+	/**
+	 * @return positions of the seats held according to the {@link SeatAllocation} of the service, or null
+	 */
+	private int[] hold(LevelInventory levelInventory, int numSeats) {
+		switch (seatAllocation) {
+		case TOGETHER:
+			return levelInventory.holdTogether(numSeats);
+		case BEST_AVAILABLE:
+			return levelInventory.holdBest(numSeats);
+		default:
+			return levelInventory.hold(numSeats);
+		}
+	}
+
+	private SeatHold newSeatHold(int seatHoldId, int[] positions, LevelInventory levelInventory, VenueLevel seatLevel, String customerEmail,
+			Date holdTime) {
+		SeatHold seatHold = new SeatHold(seatHoldId, customerEmail, holdTime);
+		seatHold.setLevelInventory(levelInventory);
+		seatHold.setTicketJournal(ticketJournal);
+		seatHold.setSeatLevel(seatLevel);
+		seatHold.setPositions(positions);
+		return seatHold;
+	}
+
+	private SeatReservation newSeatReservation(Reservation reservation) {
+		SeatReservation seatReservation = new SeatReservation(reservation.getReservationId(), reservation.getCustomerEmail(),
+				new Date(reservation.getReservationTime()));
+		LevelInventory levelInventory = this.venueArrangement.get(reservation.getLevelId());
+		VenueLevel seatLevel = venueLayout.getVenueLevel(reservation.getLevelId());
+		if (levelInventory != null) {
+			for (int position : reservation.getPositions()) {
+				Seat seat = new Seat(levelInventory.getRow(position), levelInventory.getSeatNumber(position), seatLevel);
+				seat.setSeatReservation(seatReservation);
+				seatReservation.getSeats().add(seat);
+			}
+		}
+		return seatReservation;
+	}
+
+	/**
+	 * 
+	 * Make the hold visible to reserveSeats and to expiry. The hold is logged only once it is in the cache, so a
+	 * snapshot taken after the record was written always finds the hold in the cache. Should its id still be taken,
+	 * e.g. by a hold added to the cache directly, the hold gets a fresh id rather than being dropped with its seats held.
+	 * 
+	 */
+	private void addSeatHold(SeatHold seatHold, int[] positions) {
+		while (!ticketHoldCache.add(seatHold)) {
+			seatHold.setSeatHoldId(holdIdAllocator.next());
+		}
+		if (ticketJournal != null) {
+			ticketJournal.append(new JournalRecord(JournalRecordType.HOLD, seatHold.getSeatHoldId(), seatHold.getLevelInventory().getLevelId(),
+					seatHold.getExpirationTime(), seatHold.getCustomerEmail(), null, positions));
+		}
+	}
+
+	/**
+	 * 
+	 * Stop the writer threads of sequenced level inventories. Holds still pointing at them release their seats directly.
+	 * 
+	 */
+	private static void halt(Map<Integer, LevelInventory> venueArrangement) {
+		for (LevelInventory levelInventory : venueArrangement.values()) {
+			if (levelInventory instanceof SequencedLevelInventory) {
+				((SequencedLevelInventory) levelInventory).halt();
+			}
+		}
+	}
+
+	private static void setQueueWaitLatency(Map<Integer, LevelInventory> venueArrangement, TicketServiceMetrics metrics) {
+		for (LevelInventory levelInventory : venueArrangement.values()) {
+			if (levelInventory instanceof SequencedLevelInventory) {
+				((SequencedLevelInventory) levelInventory).setQueueWaitLatency(metrics != null ? metrics.getSequencerQueueWait() : null);
+			}
+		}
+	}
+
+	private static int levelId(Optional<Integer> level, int defaultLevelId) {
+		return (level != null && level.isPresent() && level.get() != null) ? level.get() : defaultLevelId;
 	}
 
 }
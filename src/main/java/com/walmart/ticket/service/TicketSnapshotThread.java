@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import com.walmart.ticket.constants.TicketServiceConstants;
+
+/**
+ * 
+ * Thread responsible to take periodic snapshots of the venue, so a restart only replays the recent journal records.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ * 
+ */
+public class TicketSnapshotThread extends Thread {
+
+	private final TicketServiceImpl	ticketService;
+	private final long				timeToSleep;
+	private volatile boolean		shouldKeepRunning	= true;
+
+	public TicketSnapshotThread(TicketServiceImpl ticketService) {
+		this(ticketService, TicketServiceConstants.SNAPSHOT_INTERVAL);
+	}
+
+	public TicketSnapshotThread(TicketServiceImpl ticketService, long timeToSleep) {
+		super("TicketSnapshotThread");
+		this.ticketService = ticketService;
+		this.timeToSleep = timeToSleep;
+		setPriority(Thread.MIN_PRIORITY);
+		setDaemon(true);
+	}
+
+	public void halt() {
+		shouldKeepRunning = false;
+		interrupt();
+	}
+
+	public void run() {
+		while (shouldKeepRunning) {
+			try {
+				Thread.sleep(timeToSleep);
+			} catch (InterruptedException interruptedException) {
+				continue;
+			}
+			try {
+				ticketService.snapshot();
+			} catch (RuntimeException runtimeException) {
+				// The journal keeps every record, the next snapshot is attempted after the interval
+			}
+		}
+	}
+
+}
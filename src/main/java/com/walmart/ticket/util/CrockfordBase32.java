@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Crockford's base 32 encoding of 63 bit identifiers: digits and upper case letters without I, L, O and U, so codes
+ * are case insensitive and can not be misread. Codes have a fixed length of 13 symbols and the alphabet is in ASCII
+ * order, two codes therefore compare like the identifiers they encode.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public final class CrockfordBase32 {
+
+	public static final int		CODE_LENGTH	= 13;
+
+	private static final char[]	SYMBOLS		= "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+	private static final byte[]	VALUES		= new byte[128];
+
+	static {
+		Arrays.fill(VALUES, (byte) -1);
+		for (int value = 0; value < SYMBOLS.length; value++) {
+			VALUES[SYMBOLS[value]] = (byte) value;
+			VALUES[Character.toLowerCase(SYMBOLS[value])] = (byte) value;
+		}
+		VALUES['O'] = VALUES['o'] = 0;
+		VALUES['I'] = VALUES['i'] = VALUES['L'] = VALUES['l'] = 1;
+	}
+
+	private CrockfordBase32() {
+
+	}
+
+	/**
+	 * @param id a non negative identifier
+	 * @return the 13 symbol code of the identifier
+	 */
+	public static String encode(long id) {
+		if (id < 0) {
+			throw new IllegalArgumentException("Negative id " + id);
+		}
+		char[] code = new char[CODE_LENGTH];
+		for (int index = CODE_LENGTH - 1; index >= 0; index--) {
+			code[index] = SYMBOLS[(int) (id & 31)];
+			id >>>= 5;
+		}
+		return new String(code);
+	}
+
+	/**
+	 *
+	 * Decode a code, ignoring case and hyphens and reading O as 0 and I and L as 1.
+	 *
+	 * @param code
+	 * @return the identifier, or -1 if the code is not valid
+	 */
+	public static long decode(String code) {
+		if (code == null) {
+			return -1;
+		}
+		long id = 0;
+		int symbols = 0;
+		for (int index = 0; index < code.length(); index++) {
+			char symbol = code.charAt(index);
+			if (symbol == '-') {
+				continue;
+			}
+			int value = symbol < VALUES.length ? VALUES[symbol] : -1;
+			// 13 symbols carry 65 bits, the first symbol may therefore only use its three lowest bits
+			if (value < 0 || symbols == CODE_LENGTH || (symbols == 0 && value > 7)) {
+				return -1;
+			}
+			id = (id << 5) | value;
+			symbols++;
+		}
+		return symbols == CODE_LENGTH ? id : -1;
+	}
+
+}
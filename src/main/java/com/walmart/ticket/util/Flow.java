@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+/**
+ *
+ * The reactive streams interfaces of {@code java.util.concurrent.Flow}, which only ships with Java 9 and later. They
+ * are declared with the same names, signatures and rules, so publishers and subscribers move to the JDK interfaces by
+ * changing the import.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public final class Flow {
+
+	private Flow() {
+
+	}
+
+	/**
+	 *
+	 * Producer of items received by subscribers. Every subscriber receives the same items, unless it drops or
+	 * cancels.
+	 *
+	 */
+	public static interface Publisher<T> {
+
+		/**
+		 *
+		 * Add a subscriber. The publisher calls {@link Subscriber#onSubscribe(Subscription)} first, then
+		 * {@link Subscriber#onNext(Object)} as demand is requested, until it completes or the subscription is
+		 * cancelled.
+		 *
+		 * @param subscriber
+		 * @throws NullPointerException if the subscriber is null
+		 */
+		void subscribe(Subscriber<? super T> subscriber);
+	}
+
+	/**
+	 *
+	 * Receiver of items. The methods of one subscriber are called one after the other, never concurrently.
+	 *
+	 */
+	public static interface Subscriber<T> {
+
+		/**
+		 * @param subscription the subscription to request items through
+		 */
+		void onSubscribe(Subscription subscription);
+
+		/**
+		 * @param item the next item
+		 */
+		void onNext(T item);
+
+		/**
+		 * @param throwable the error which terminated the subscription
+		 */
+		void onError(Throwable throwable);
+
+		/**
+		 *
+		 * No item will follow.
+		 *
+		 */
+		void onComplete();
+	}
+
+	/**
+	 *
+	 * Link between a publisher and a subscriber.
+	 *
+	 */
+	public static interface Subscription {
+
+		/**
+		 *
+		 * Add demand for {@code n} more items.
+		 *
+		 * @param n positive, a non-positive value terminates the subscription with an
+		 *            {@link IllegalArgumentException}
+		 */
+		void request(long n);
+
+		/**
+		 *
+		 * Stop receiving items, possibly after a few items already on their way.
+		 *
+		 */
+		void cancel();
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Allocator of seat hold identifiers which never hands out the same identifier twice.
+ *
+ * The identifiers are split into stripes by their remainder modulo the number of stripes, every stripe has its own
+ * counter and a thread always draws from the stripe its thread id maps to. Two stripes never share an identifier, so
+ * threads drawing from different stripes neither collide nor contend, and the counters sit on their own cache lines.
+ * Identifiers are positive and wrap around only after 2^31 holds.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class HoldIdAllocator {
+
+	// 16 longs = 128 bytes between two counters, so no two stripes share a cache line
+	private static final int		PADDING	= 16;
+
+	private final AtomicLongArray	counters;
+	private final int				stripes;
+	private final int				stripeMask;
+	private final long				laps;
+
+	/**
+	 * @param stripes rounded up to the next power of two
+	 */
+	public HoldIdAllocator(int stripes) {
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.stripes = size;
+		this.stripeMask = size - 1;
+		this.counters = new AtomicLongArray(size * PADDING);
+		this.laps = Integer.MAX_VALUE / size;
+	}
+
+	/**
+	 * @return the next identifier of the stripe of the calling thread
+	 */
+	public int next() {
+		int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & stripeMask;
+		long lap = counters.getAndIncrement(stripe * PADDING) % laps;
+		return (int) (lap * stripes) + stripe + 1;
+	}
+
+	/**
+	 *
+	 * Make sure no identifier up to {@code seatHoldId} is handed out again, e.g. after holds were restored from a journal.
+	 *
+	 * @param seatHoldId
+	 */
+	public void advanceTo(int seatHoldId) {
+		long lap = seatHoldId / stripes + 1;
+		for (int stripe = 0; stripe < stripes; stripe++) {
+			while (true) {
+				long current = counters.get(stripe * PADDING);
+				if (current >= lap || counters.compareAndSet(stripe * PADDING, current, lap)) {
+					break;
+				}
+			}
+		}
+	}
+
+}
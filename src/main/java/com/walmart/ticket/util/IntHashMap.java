@@ -0,0 +1,311 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ *
+ * Hash map from non-zero int keys to objects, on open addressing with linear probing, so keys are never boxed and a
+ * lookup allocates nothing.
+ *
+ * Writers take a write lock. Readers probe the arrays under an optimistic stamp and only fall back to the read lock
+ * when a write happened meanwhile, so gets neither block nor write to shared memory in the common case. Removal
+ * shifts the following entries back instead of leaving tombstones, the table therefore never degrades.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class IntHashMap<V> {
+
+	private static final int	EMPTY	= 0;
+
+	private final StampedLock	lock	= new StampedLock();
+	private int[]				keys;
+	private Object[]			values;
+	private int					size;
+
+	public IntHashMap() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity number of entries the map holds without growing
+	 */
+	public IntHashMap(int capacity) {
+		int length = 4;
+		while (length < capacity * 2) {
+			length <<= 1;
+		}
+		this.keys = new int[length];
+		this.values = new Object[length];
+	}
+
+	/**
+	 * @param key
+	 * @return the value the key is mapped to, or null
+	 */
+	public V get(int key) {
+		long stamp = lock.tryOptimisticRead();
+		V value = find(key);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				value = find(key);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @param key
+	 * @return whether the key is mapped
+	 */
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 *
+	 * Map the key to the value unless it is mapped already.
+	 *
+	 * @param key must not be 0
+	 * @param value must not be null
+	 * @return the value the key was already mapped to, or null if the value was added
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(int key, V value) {
+		if (key == EMPTY || value == null) {
+			throw new IllegalArgumentException("Key must not be 0 and value must not be null");
+		}
+		long stamp = lock.writeLock();
+		try {
+			int index = indexOf(keys, key);
+			if (keys[index] == key) {
+				return (V) values[index];
+			}
+			if ((size + 1) * 2 > keys.length) {
+				resize();
+				index = indexOf(keys, key);
+			}
+			values[index] = value;
+			keys[index] = key;
+			size++;
+			return null;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return the value the key was mapped to, or null
+	 */
+	public V remove(int key) {
+		long stamp = lock.writeLock();
+		try {
+			return removeAt(indexOf(keys, key), key);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Remove the key only if it is mapped to the given value.
+	 *
+	 * @param key
+	 * @param value
+	 * @return whether the key was removed
+	 */
+	public boolean remove(int key, V value) {
+		long stamp = lock.writeLock();
+		try {
+			int index = indexOf(keys, key);
+			if (keys[index] != key || values[index] != value) {
+				return false;
+			}
+			removeAt(index, key);
+			return true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Map the key to a new value only if it is mapped to the given value.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue must not be null
+	 * @return whether the value was replaced
+	 */
+	public boolean replace(int key, V oldValue, V newValue) {
+		if (newValue == null) {
+			throw new IllegalArgumentException("Value must not be null");
+		}
+		long stamp = lock.writeLock();
+		try {
+			int index = indexOf(keys, key);
+			if (keys[index] != key || values[index] != oldValue) {
+				return false;
+			}
+			values[index] = newValue;
+			return true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @return the number of mappings
+	 */
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return size;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Pass every value to the action, under the read lock.
+	 *
+	 * @param action
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEachValue(Consumer<? super V> action) {
+		long stamp = lock.readLock();
+		try {
+			for (int index = 0; index < keys.length; index++) {
+				if (keys[index] != EMPTY) {
+					action.accept((V) values[index]);
+				}
+			}
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Remove every mapping.
+	 *
+	 */
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			keys = new int[keys.length];
+			values = new Object[values.length];
+			size = 0;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 *
+	 * Probe for the key. May run concurrently with a writer, the arrays are therefore read once and every probe is
+	 * bounded, a torn result is discarded by the caller's stamp validation.
+	 *
+	 */
+	@SuppressWarnings("unchecked")
+	private V find(int key) {
+		int[] keys = this.keys;
+		Object[] values = this.values;
+		if (keys.length != values.length) {
+			return null;
+		}
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		for (int probe = 0; probe <= mask; probe++) {
+			int current = keys[index];
+			if (current == key) {
+				return (V) values[index];
+			}
+			if (current == EMPTY) {
+				return null;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the slot holding the key, or the empty slot it would be added at
+	 */
+	private static int indexOf(int[] keys, int key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (keys[index] != key && keys[index] != EMPTY) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V removeAt(int index, int key) {
+		if (keys[index] != key || key == EMPTY) {
+			return null;
+		}
+		V value = (V) values[index];
+		int mask = keys.length - 1;
+		// Shift back every following entry of the cluster whose home slot is not between the hole and itself
+		int hole = index;
+		for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+		keys[hole] = EMPTY;
+		values[hole] = null;
+		size--;
+		return value;
+	}
+
+	private void resize() {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] newKeys = new int[oldKeys.length << 1];
+		Object[] newValues = new Object[newKeys.length];
+		for (int index = 0; index < oldKeys.length; index++) {
+			if (oldKeys[index] != EMPTY) {
+				int slot = indexOf(newKeys, oldKeys[index]);
+				newKeys[slot] = oldKeys[index];
+				newValues[slot] = oldValues[index];
+			}
+		}
+		values = newValues;
+		keys = newKeys;
+	}
+
+	private static int hash(int key) {
+		int hash = key * 0x85EBCA6B;
+		return hash ^ (hash >>> 16);
+	}
+
+}
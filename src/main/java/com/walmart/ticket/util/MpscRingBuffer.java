@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Bounded multi-producer single-consumer queue on a ring buffer.
+ *
+ * Every slot carries a sequence number telling whether it is free for the producer of a given lap or filled for
+ * the consumer. Producers claim a slot with one compare-and-set on the tail, the consumer owns the head and never
+ * writes a shared counter, so neither side ever takes a lock.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class MpscRingBuffer<E> {
+
+	private final Object[]			elements;
+	private final AtomicLongArray	sequences;
+	private final int				mask;
+	private final AtomicLong		tail	= new AtomicLong();
+	private long					head;
+
+	/**
+	 * @param capacity rounded up to the next power of two
+	 */
+	public MpscRingBuffer(int capacity) {
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.elements = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int index = 0; index < size; index++) {
+			sequences.set(index, index);
+		}
+		this.mask = size - 1;
+	}
+
+	/**
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return elements.length;
+	}
+
+	/**
+	 *
+	 * Append the element, may be called by any thread.
+	 *
+	 * @param element
+	 * @return false if the buffer is full
+	 */
+	public boolean offer(E element) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) position & mask;
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements[index] = element;
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Take the oldest element, may only be called by the consumer thread.
+	 *
+	 * @return the element, or null if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		int index = (int) head & mask;
+		if (sequences.get(index) != head + 1) {
+			return null;
+		}
+		E element = (E) elements[index];
+		elements[index] = null;
+		sequences.lazySet(index, head + elements.length);
+		head++;
+		return element;
+	}
+
+	/**
+	 * @return whether no element is ready for the consumer
+	 */
+	public boolean isEmpty() {
+		return sequences.get((int) head & mask) != head + 1;
+	}
+
+}
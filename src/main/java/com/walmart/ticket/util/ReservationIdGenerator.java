@@ -15,27 +15,20 @@
  */
 package com.walmart.ticket.util;
 
-import java.util.Random;
-
 /**
+ *
+ * Source of the reservation confirmation codes handed out by reserveSeats.
+ *
  * @author Sarvesh Katariya
  * @version 1.0
  * @since 08/01/2016
  *
- * 
  */
-public class TicketUtils {
-	
-	private TicketUtils() {
-		
-	}
-	
+public interface ReservationIdGenerator {
+
 	/**
-	 * 
-	 * @return unique ticket hold identifier
+	 * @return a reservation id which was never returned before
 	 */
-	public static int generateTicketHoldId() {
-		return new Random().nextInt(Integer.MAX_VALUE);
-	}
+	String nextReservationId();
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *
+ * Snowflake style generator of 63 bit reservation ids, handed out as their 13 symbol {@link CrockfordBase32} code.
+ *
+ * An id is made of, from the highest bit down, 41 bits of milliseconds since 2016-01-01, 10 bits of node id, 4 bits
+ * of stripe and 8 bits of sequence. Like {@link HoldIdAllocator} a thread draws from the stripe its thread id maps to
+ * and every stripe has its own counter on its own cache line, so threads on different stripes never contend. A stripe
+ * hands out up to 256 ids per millisecond, a burst beyond that borrows from the next millisecond instead of waiting,
+ * and a clock going backwards never makes a stripe repeat itself. Ids and their codes therefore sort by creation time
+ * to the millisecond.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SnowflakeIdGenerator implements ReservationIdGenerator {
+
+	public static final long		EPOCH			= 1451606400000L;
+	public static final int			MAX_NODE_ID		= 1023;
+
+	private static final int		SEQUENCE_BITS	= 8;
+	private static final int		STRIPE_BITS		= 4;
+	private static final int		NODE_BITS		= 10;
+	private static final int		NODE_SHIFT		= SEQUENCE_BITS + STRIPE_BITS;
+	private static final int		TIME_SHIFT		= NODE_SHIFT + NODE_BITS;
+	private static final int		STRIPES			= 1 << STRIPE_BITS;
+	private static final int		PADDING			= 16;
+
+	private final long				node;
+	private final AtomicLongArray	counters		= new AtomicLongArray(STRIPES * PADDING);
+
+	/**
+	 * @param nodeId identifier of this node between 0 and {@link #MAX_NODE_ID}, unique among the nodes sharing reservations
+	 */
+	public SnowflakeIdGenerator(int nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+		}
+		this.node = (long) nodeId << NODE_SHIFT;
+	}
+
+	/**
+	 * @return a new id
+	 */
+	public long nextId() {
+		int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & (STRIPES - 1);
+		int index = stripe * PADDING;
+		long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+		while (true) {
+			// The counter is the millisecond shifted left by the sequence bits plus the sequence
+			long current = counters.get(index);
+			long next = Math.max(current + 1, now);
+			if (counters.compareAndSet(index, current, next)) {
+				long millis = next >>> SEQUENCE_BITS;
+				return millis << TIME_SHIFT | node | (long) stripe << SEQUENCE_BITS | (next & ((1 << SEQUENCE_BITS) - 1));
+			}
+		}
+	}
+
+	/**
+	 * @return the confirmation code of a new id
+	 */
+	public String nextReservationId() {
+		return CrockfordBase32.encode(nextId());
+	}
+
+	/**
+	 * @param id
+	 * @return the epoch milliseconds the id was created at
+	 */
+	public static long getCreationTime(long id) {
+		return (id >>> TIME_SHIFT) + EPOCH;
+	}
+
+	/**
+	 * @param id
+	 * @return the node id the id was created on
+	 */
+	public static int getNodeId(long id) {
+		return (int) (id >>> NODE_SHIFT) & MAX_NODE_ID;
+	}
+
+}
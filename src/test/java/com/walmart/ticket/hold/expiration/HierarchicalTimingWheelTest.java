@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.hold.expiration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.hold.expiration.HierarchicalTimingWheel.Timeout;
+
+/**
+ * 
+ * Test class to test the HierarchicalTimingWheel.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class HierarchicalTimingWheelTest extends TestCase {
+
+	HierarchicalTimingWheel<String>	timingWheel;
+	long							now;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		now = System.currentTimeMillis();
+		timingWheel = new HierarchicalTimingWheel<String>(1);
+	}
+
+	public void testExpiresOnTheTickAfterExpirationTime() {
+		timingWheel.schedule("hold", now + 10);
+		Assert.assertTrue(advance(now + 10).isEmpty());
+		List<String> expired = advance(now + 11);
+		Assert.assertEquals(1, expired.size());
+		Assert.assertEquals("hold", expired.get(0));
+		Assert.assertEquals(0, timingWheel.size());
+	}
+
+	public void testExpiresFromEveryLevel() {
+		long[] delays = { 5, 300, 20000, 2000000 };
+		for (long delay : delays) {
+			timingWheel.schedule(String.valueOf(delay), now + delay);
+		}
+		Assert.assertEquals(4, timingWheel.size());
+		for (long delay : delays) {
+			Assert.assertTrue(advance(now + delay).isEmpty());
+			List<String> expired = advance(now + delay + 1);
+			Assert.assertEquals(1, expired.size());
+			Assert.assertEquals(String.valueOf(delay), expired.get(0));
+		}
+		Assert.assertEquals(0, timingWheel.size());
+	}
+
+	public void testCancelledTimeoutNeverExpires() {
+		Timeout<String> timeout = timingWheel.schedule("cancelled", now + 50);
+		timingWheel.schedule("expired", now + 50);
+		Assert.assertTrue(timeout.cancel());
+		Assert.assertFalse(timeout.cancel());
+		List<String> expired = advance(now + 100);
+		Assert.assertEquals(1, expired.size());
+		Assert.assertEquals("expired", expired.get(0));
+	}
+
+	public void testExpiresManyTimeoutsInOneTick() {
+		for (int index = 0; index < 50000; index++) {
+			timingWheel.schedule("hold" + index, now + 1000);
+		}
+		Assert.assertEquals(50000, advance(now + 1001).size());
+	}
+
+	public void testAdvanceReturnsNextDeadline() {
+		List<Timeout<String>> timeouts = new ArrayList<Timeout<String>>();
+		Assert.assertEquals(Long.MAX_VALUE, timingWheel.advance(now, timeouts));
+		timingWheel.schedule("hold", now + 10);
+		Assert.assertEquals(now + 11, timingWheel.advance(now, timeouts));
+		Assert.assertEquals(Long.MAX_VALUE, timingWheel.advance(now + 11, timeouts));
+		Assert.assertEquals(1, timeouts.size());
+	}
+
+	private List<String> advance(long nowMillis) {
+		List<Timeout<String>> timeouts = new ArrayList<Timeout<String>>();
+		timingWheel.advance(nowMillis, timeouts);
+		List<String> expired = new ArrayList<String>();
+		for (Timeout<String> timeout : timeouts) {
+			expired.add(timeout.getItem());
+		}
+		return expired;
+	}
+
+}
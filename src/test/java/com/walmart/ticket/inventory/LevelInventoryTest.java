@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+import java.util.BitSet;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.constants.SeatAllocation;
+
+/**
+ *
+ * Test class to test the LevelInventory.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class LevelInventoryTest extends TestCase {
+
+	LevelInventory levelInventory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		levelInventory = new LevelInventory(1, 3, 100);
+	}
+
+	public void testNumberOfSeatsAvailable() {
+		Assert.assertEquals(300, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldInRowMajorOrder() {
+		int[] positions = levelInventory.hold(102);
+		Assert.assertNotNull(positions);
+		Assert.assertEquals(102, positions.length);
+		Assert.assertEquals(0, levelInventory.getRow(positions[0]));
+		Assert.assertEquals(0, levelInventory.getSeatNumber(positions[0]));
+		Assert.assertEquals(0, levelInventory.getRow(positions[99]));
+		Assert.assertEquals(99, levelInventory.getSeatNumber(positions[99]));
+		Assert.assertEquals(1, levelInventory.getRow(positions[101]));
+		Assert.assertEquals(1, levelInventory.getSeatNumber(positions[101]));
+		Assert.assertEquals(198, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldMoreThanAvailable() {
+		Assert.assertNull(levelInventory.hold(301));
+		Assert.assertNotNull(levelInventory.hold(300));
+		Assert.assertNull(levelInventory.hold(1));
+		Assert.assertEquals(0, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testReleaseReusesSeats() {
+		int[] positions = levelInventory.hold(10);
+		levelInventory.release(new int[] { positions[3] });
+		Assert.assertEquals(291, levelInventory.getNumSeatsAvailable());
+		Assert.assertTrue(levelInventory.isAvailable(positions[3]));
+		int[] reused = levelInventory.hold(1);
+		Assert.assertEquals(positions[3], reused[0]);
+	}
+
+	public void testReservedSeatsAreNotReleased() {
+		int[] positions = levelInventory.hold(5);
+		levelInventory.reserve(positions);
+		levelInventory.release(positions);
+		Assert.assertEquals(295, levelInventory.getNumSeatsAvailable());
+		Assert.assertEquals(5, levelInventory.getNumSeatsReserved());
+		Assert.assertTrue(levelInventory.isReserved(positions[0]));
+	}
+
+	public void testReleaseAllInOnePass() {
+		final int[] notifications = new int[2];
+		int[][] holds = levelInventory.holdAll(new int[] { 40, 100, 30 }, SeatAllocation.FIRST_AVAILABLE);
+		levelInventory.reserve(holds[2]);
+		levelInventory.setSeatChangeListener(new SeatChangeListener() {
+			public void seatsChanged(LevelInventory levelInventory, int[] positions) {
+				notifications[0]++;
+				notifications[1] += positions.length;
+			}
+
+			public void levelChanged(LevelInventory levelInventory) {
+			}
+		});
+		levelInventory.releaseAll(new int[][] { holds[1], holds[0], holds[2] });
+		Assert.assertEquals(1, notifications[0]);
+		Assert.assertEquals(170, notifications[1]);
+		Assert.assertEquals(270, levelInventory.getNumSeatsAvailable());
+		Assert.assertEquals(100, levelInventory.getLongestFreeRun(0));
+		Assert.assertEquals(40, levelInventory.getLongestFreeRun(1));
+		Assert.assertTrue(levelInventory.isReserved(holds[2][0]));
+		Assert.assertEquals(levelInventory.getPosition(0, 0), levelInventory.hold(1)[0]);
+	}
+
+	public void testPosition() {
+		int position = levelInventory.getPosition(2, 70);
+		Assert.assertEquals(2, levelInventory.getRow(position));
+		Assert.assertEquals(70, levelInventory.getSeatNumber(position));
+		try {
+			levelInventory.getPosition(3, 0);
+			fail();
+		} catch (IndexOutOfBoundsException indexOutOfBoundsException) {
+			Assert.assertNotNull(indexOutOfBoundsException);
+		}
+	}
+
+	public void testHoldTogetherInSingleRow() {
+		levelInventory.hold(60);
+		Assert.assertEquals(40, levelInventory.getLongestFreeRun(0));
+		int[] positions = levelInventory.holdTogether(50);
+		Assert.assertNotNull(positions);
+		Assert.assertEquals(1, levelInventory.getRow(positions[0]));
+		Assert.assertEquals(1, levelInventory.getRow(positions[49]));
+		Assert.assertEquals(positions[0] + 49, positions[49]);
+		Assert.assertEquals(50, levelInventory.getLongestFreeRun(1));
+		int[] front = levelInventory.holdTogether(40);
+		Assert.assertEquals(0, levelInventory.getRow(front[0]));
+		Assert.assertEquals(60, levelInventory.getSeatNumber(front[0]));
+	}
+
+	public void testHoldTogetherAcrossWordBoundary() {
+		levelInventory.hold(60);
+		int[] positions = levelInventory.holdTogether(10);
+		Assert.assertEquals(60, levelInventory.getSeatNumber(positions[0]));
+		Assert.assertEquals(69, levelInventory.getSeatNumber(positions[9]));
+		Assert.assertEquals(0, levelInventory.getRow(positions[9]));
+	}
+
+	public void testHoldTogetherFallsBackToFewestRows() {
+		levelInventory.hold(300);
+		levelInventory.release(new int[] { levelInventory.getPosition(0, 5), levelInventory.getPosition(1, 10),
+				levelInventory.getPosition(1, 11), levelInventory.getPosition(1, 12), levelInventory.getPosition(2, 40),
+				levelInventory.getPosition(2, 41) });
+		Assert.assertEquals(1, levelInventory.getLongestFreeRun(0));
+		Assert.assertEquals(3, levelInventory.getLongestFreeRun(1));
+		Assert.assertEquals(2, levelInventory.getLongestFreeRun(2));
+		int[] positions = levelInventory.holdTogether(5);
+		Assert.assertNotNull(positions);
+		Assert.assertEquals(levelInventory.getPosition(1, 10), positions[0]);
+		Assert.assertEquals(levelInventory.getPosition(1, 12), positions[2]);
+		Assert.assertEquals(levelInventory.getPosition(2, 40), positions[3]);
+		Assert.assertEquals(levelInventory.getPosition(2, 41), positions[4]);
+		Assert.assertEquals(1, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldAllInArrivalOrder() {
+		int[][] holds = levelInventory.holdAll(new int[] { 150, 200, 100, 0, 60 }, SeatAllocation.FIRST_AVAILABLE);
+		Assert.assertEquals(150, holds[0].length);
+		Assert.assertNull(holds[1]);
+		Assert.assertEquals(100, holds[2].length);
+		Assert.assertNull(holds[3]);
+		Assert.assertNull(holds[4]);
+		Assert.assertEquals(levelInventory.getPosition(0, 0), holds[0][0]);
+		Assert.assertEquals(levelInventory.getPosition(1, 49), holds[0][149]);
+		Assert.assertEquals(levelInventory.getPosition(1, 50), holds[2][0]);
+		Assert.assertEquals(levelInventory.getPosition(2, 49), holds[2][99]);
+		Assert.assertEquals(50, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldAllTogether() {
+		int[][] holds = levelInventory.holdAll(new int[] { 60, 60, 40 }, SeatAllocation.TOGETHER);
+		Assert.assertEquals(0, levelInventory.getRow(holds[0][0]));
+		Assert.assertEquals(1, levelInventory.getRow(holds[1][0]));
+		Assert.assertEquals(0, levelInventory.getRow(holds[2][0]));
+		Assert.assertEquals(60, levelInventory.getSeatNumber(holds[2][0]));
+		Assert.assertEquals(140, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldBestInRankOrder() {
+		LevelInventory rankedInventory = new LevelInventory(1, 3, 100, reverseRanking(300));
+		int[] positions = rankedInventory.holdBest(3);
+		Assert.assertEquals(rankedInventory.getPosition(2, 99), positions[0]);
+		Assert.assertEquals(rankedInventory.getPosition(2, 97), positions[2]);
+		rankedInventory.release(new int[] { positions[0] });
+		Assert.assertEquals(positions[0], rankedInventory.holdBest(1)[0]);
+		// Seats taken in another mode are skipped
+		rankedInventory.holdTogether(100);
+		Assert.assertEquals(2, rankedInventory.getRow(rankedInventory.holdBest(1)[0]));
+		Assert.assertEquals(196, rankedInventory.getNumSeatsAvailable());
+		int[][] holds = rankedInventory.holdAll(new int[] { 96, 2 }, SeatAllocation.BEST_AVAILABLE);
+		Assert.assertEquals(rankedInventory.getPosition(1, 99), holds[1][0]);
+		Assert.assertEquals(rankedInventory.getPosition(1, 98), holds[1][1]);
+		Assert.assertEquals(98, rankedInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldBestWithoutRankingIsRowMajor() {
+		int[] positions = levelInventory.holdBest(2);
+		Assert.assertEquals(levelInventory.getPosition(0, 0), positions[0]);
+		Assert.assertEquals(levelInventory.getPosition(0, 1), positions[1]);
+	}
+
+	public void testConcurrentHoldsNeverShareSeats() throws InterruptedException {
+		final LevelInventory inventory = new LevelInventory(1, 25, 50);
+		final BitSet[] claimed = new BitSet[8];
+		Thread[] threads = new Thread[claimed.length];
+		for (int index = 0; index < threads.length; index++) {
+			final BitSet seats = claimed[index] = new BitSet();
+			final boolean together = index % 2 == 0;
+			threads[index] = new Thread() {
+				public void run() {
+					int[] positions;
+					while ((positions = together ? inventory.holdTogether(3) : inventory.hold(3)) != null) {
+						for (int position : positions) {
+							seats.set(position);
+						}
+					}
+				}
+			};
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int total = 0;
+		BitSet all = new BitSet();
+		for (BitSet seats : claimed) {
+			total += seats.cardinality();
+			all.or(seats);
+		}
+		Assert.assertEquals(1248, total);
+		Assert.assertEquals(total, all.cardinality());
+		Assert.assertEquals(2, inventory.getNumSeatsAvailable());
+	}
+
+	public void testConcurrentBestHoldsAndReleasesNeverShareSeats() throws InterruptedException {
+		final LevelInventory inventory = new LevelInventory(1, 25, 50, reverseRanking(1250));
+		final BitSet[] claimed = new BitSet[4];
+		Thread[] threads = new Thread[claimed.length];
+		for (int index = 0; index < threads.length; index++) {
+			final BitSet seats = claimed[index] = new BitSet();
+			threads[index] = new Thread() {
+				public void run() {
+					int[] positions;
+					int count = 0;
+					while ((positions = inventory.holdBest(3)) != null) {
+						if (++count % 4 == 0) {
+							inventory.release(positions);
+							continue;
+						}
+						for (int position : positions) {
+							seats.set(position);
+						}
+					}
+				}
+			};
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int total = 0;
+		BitSet all = new BitSet();
+		for (BitSet seats : claimed) {
+			total += seats.cardinality();
+			all.or(seats);
+		}
+		Assert.assertEquals(total, all.cardinality());
+		Assert.assertEquals(1250 - total, inventory.getNumSeatsAvailable());
+		Assert.assertTrue(inventory.getNumSeatsAvailable() < 3);
+	}
+
+	private static int[] reverseRanking(int numSeats) {
+		int[] rankedSeats = new int[numSeats];
+		for (int rank = 0; rank < numSeats; rank++) {
+			rankedSeats[rank] = numSeats - 1 - rank;
+		}
+		return rankedSeats;
+	}
+
+}
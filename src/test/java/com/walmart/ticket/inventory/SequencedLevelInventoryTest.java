@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.inventory;
+
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.constants.SeatAllocation;
+
+/**
+ *
+ * Test class to test the SequencedLevelInventory.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SequencedLevelInventoryTest extends TestCase {
+
+	SequencedLevelInventory levelInventory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		levelInventory = new SequencedLevelInventory(1, 3, 100, 4);
+	}
+
+	public void testCommandsAreApplied() {
+		int[] positions = levelInventory.hold(10);
+		Assert.assertEquals(levelInventory.getPosition(0, 9), positions[9]);
+		int[] together = levelInventory.holdTogether(95);
+		Assert.assertEquals(1, levelInventory.getRow(together[0]));
+		int[][] holds = levelInventory.holdAll(new int[] { 5, 500 }, SeatAllocation.FIRST_AVAILABLE);
+		Assert.assertEquals(levelInventory.getPosition(0, 10), holds[0][0]);
+		Assert.assertNull(holds[1]);
+		levelInventory.reserve(positions);
+		levelInventory.release(together);
+		Assert.assertEquals(10, levelInventory.getNumSeatsReserved());
+		Assert.assertEquals(285, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testHoldBestWithoutRanking() throws Exception {
+		// Applied on the writer thread, which must not wait for a command of its own
+		int[] positions = CompletableFuture.supplyAsync(() -> levelInventory.holdBest(10)).get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(levelInventory.getPosition(0, 0), positions[0]);
+		Assert.assertEquals(levelInventory.getPosition(0, 9), positions[9]);
+		Assert.assertEquals(290, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testConcurrentHoldsThroughFullBuffer() throws InterruptedException {
+		final BitSet[] claimed = new BitSet[16];
+		Thread[] threads = new Thread[claimed.length];
+		for (int index = 0; index < threads.length; index++) {
+			final BitSet seats = claimed[index] = new BitSet();
+			threads[index] = new Thread() {
+				public void run() {
+					int[] positions;
+					while ((positions = levelInventory.hold(7)) != null) {
+						for (int position : positions) {
+							seats.set(position);
+						}
+					}
+				}
+			};
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		BitSet all = new BitSet();
+		int total = 0;
+		for (BitSet seats : claimed) {
+			total += seats.cardinality();
+			all.or(seats);
+		}
+		Assert.assertEquals(294, total);
+		Assert.assertEquals(total, all.cardinality());
+		Assert.assertEquals(6, levelInventory.getNumSeatsAvailable());
+	}
+
+	public void testCommandsAfterHalt() {
+		levelInventory.halt();
+		Assert.assertFalse(levelInventory.isRunning());
+		int[] positions = levelInventory.hold(10);
+		Assert.assertEquals(10, positions.length);
+		levelInventory.release(positions);
+		Assert.assertEquals(300, levelInventory.getNumSeatsAvailable());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		levelInventory.halt();
+		super.tearDown();
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.JournalRecordType;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.exception.JournalException;
+import com.walmart.ticket.exception.TicketHoldNotFoundException;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ *
+ * Test class to test the TicketJournal.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class TicketJournalTest extends TestCase {
+
+	private static final String	TEST_EMAIL		= "sarvesh.katariya@gmail.com";
+	private static final int	SEGMENT_SIZE	= 4096;
+
+	File						directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = Files.createTempDirectory("journal").toFile();
+	}
+
+	public void testReplayAcrossSegments() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		for (int index = 0; index < 200; index++) {
+			ticketJournal.append(new JournalRecord(JournalRecordType.HOLD, index, 1, index, TEST_EMAIL, null, new int[] { index, index + 1 }));
+		}
+		ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.RESERVE, 199, 1, 0, TEST_EMAIL, "R-199", new int[] { 199, 200 }));
+		Assert.assertEquals(ticketJournal.getPosition(), ticketJournal.getDurablePosition());
+		ticketJournal.close();
+		Assert.assertTrue(directory.listFiles().length > 1);
+
+		List<JournalRecord> records = replay(new TicketJournal(directory, SEGMENT_SIZE), 0);
+		Assert.assertEquals(201, records.size());
+		Assert.assertEquals(123, records.get(123).getSeatHoldId());
+		Assert.assertEquals(124, records.get(123).getPositions()[1]);
+		Assert.assertEquals(JournalRecordType.RESERVE, records.get(200).getType());
+		Assert.assertEquals("R-199", records.get(200).getReservationId());
+		Assert.assertNull(records.get(0).getReservationId());
+	}
+
+	public void testAppendAfterReopen() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.HOLD, 1, 1, 0, TEST_EMAIL, null, new int[] { 1 }));
+		long position = ticketJournal.sync();
+		ticketJournal.close();
+
+		ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		Assert.assertEquals(position, ticketJournal.getPosition());
+		ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.EXPIRE, 1, 1, 0, TEST_EMAIL, null, new int[] { 1 }));
+		Assert.assertEquals(2, replay(ticketJournal, 0).size());
+		List<JournalRecord> tail = replay(ticketJournal, position);
+		Assert.assertEquals(1, tail.size());
+		Assert.assertEquals(JournalRecordType.EXPIRE, tail.get(0).getType());
+		ticketJournal.close();
+	}
+
+	public void testTornRecordIsDropped() throws IOException {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.HOLD, 1, 1, 0, TEST_EMAIL, null, new int[] { 1 }));
+		long position = ticketJournal.getPosition();
+		ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.HOLD, 2, 1, 0, TEST_EMAIL, null, new int[] { 2 }));
+		ticketJournal.close();
+		try (RandomAccessFile file = new RandomAccessFile(directory.listFiles()[0], "rw")) {
+			file.seek(position + 12);
+			file.write(0x7F);
+		}
+
+		ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		Assert.assertEquals(position, ticketJournal.getPosition());
+		ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.HOLD, 3, 1, 0, TEST_EMAIL, null, new int[] { 3 }));
+		List<JournalRecord> records = replay(ticketJournal, 0);
+		Assert.assertEquals(2, records.size());
+		Assert.assertEquals(3, records.get(1).getSeatHoldId());
+		ticketJournal.close();
+	}
+
+	public void testAppendRacingCloseNeverHangs() throws Exception {
+		for (int round = 0; round < 200; round++) {
+			TicketJournal ticketJournal = new TicketJournal(new File(directory, "round-" + round), SEGMENT_SIZE);
+			ExecutorService executorService = Executors.newFixedThreadPool(8);
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int thread = 0; thread < 8; thread++) {
+				futures.add(executorService.submit(() -> {
+					try {
+						for (int index = 0;; index++) {
+							ticketJournal.appendAndSync(new JournalRecord(JournalRecordType.HOLD, index, 1, index, TEST_EMAIL, null, new int[] { index }));
+						}
+					} catch (JournalException journalException) {
+						Assert.assertNotNull(journalException);
+					}
+				}));
+			}
+			Thread.sleep(1);
+			ticketJournal.close();
+			for (Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+			executorService.shutdown();
+		}
+	}
+
+	public void testServiceLogsHoldsAndReservations() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED,
+				ticketJournal);
+		try {
+			SeatHold reserved = ticketService.findAndHoldSeats(3, Optional.of(1), null, TEST_EMAIL);
+			SeatHold expired = ticketService.findAndHoldSeats(2, Optional.of(2), null, TEST_EMAIL);
+			String reservationId = ticketService.reserveSeats(reserved.getSeatHoldId(), TEST_EMAIL);
+			expired.expire();
+			ticketJournal.sync();
+
+			List<JournalRecord> records = replay(ticketJournal, 0);
+			Assert.assertEquals(4, records.size());
+			Assert.assertEquals(JournalRecordType.HOLD, records.get(0).getType());
+			Assert.assertEquals(reserved.getExpirationTime(), records.get(0).getTime());
+			Assert.assertEquals(2, records.get(1).getLevelId());
+			Assert.assertEquals(JournalRecordType.RESERVE, records.get(2).getType());
+			Assert.assertEquals(reservationId, records.get(2).getReservationId());
+			Assert.assertEquals(3, records.get(2).getPositions().length);
+			Assert.assertEquals(JournalRecordType.EXPIRE, records.get(3).getType());
+			Assert.assertEquals(expired.getSeatHoldId(), records.get(3).getSeatHoldId());
+		} finally {
+			ticketService.destroy();
+			ticketJournal.close();
+		}
+	}
+
+	public void testRestartFromSnapshotAndJournal() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED,
+				ticketJournal);
+		SeatHold beforeSnapshot = ticketService.findAndHoldSeats(10, Optional.of(1), null, TEST_EMAIL);
+		String reservedBeforeSnapshot = ticketService.reserveSeats(beforeSnapshot.getSeatHoldId(), TEST_EMAIL);
+		SeatHold heldOverSnapshot = ticketService.findAndHoldSeats(20, Optional.of(1), null, TEST_EMAIL);
+		SeatHold expiredOverSnapshot = ticketService.findAndHoldSeats(5, Optional.of(2), null, TEST_EMAIL);
+		for (int index = 0; index < 100; index++) {
+			ticketService.findAndHoldSeats(1, Optional.of(4), null, TEST_EMAIL).expire();
+		}
+		long journalPosition = ticketService.snapshot();
+		Assert.assertEquals(1, directory.list((dir, name) -> name.startsWith("snapshot-")).length);
+		Assert.assertFalse(new File(directory, String.format("journal-%020d.log", 0)).exists());
+		Assert.assertTrue(journalPosition > 0);
+
+		SeatHold afterSnapshot = ticketService.findAndHoldSeats(30, Optional.of(3), null, TEST_EMAIL);
+		String reservedAfterSnapshot = ticketService.reserveSeats(afterSnapshot.getSeatHoldId(), TEST_EMAIL);
+		SeatHold heldAfterSnapshot = ticketService.findAndHoldSeats(40, Optional.of(3), null, TEST_EMAIL);
+		expiredOverSnapshot.expire();
+		ticketJournal.sync();
+		ticketService.destroy();
+		ticketJournal.close();
+
+		ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED, ticketJournal);
+		try {
+			Assert.assertEquals(1250 - 30, ticketService.numSeatsAvailable(Optional.of(1)));
+			Assert.assertEquals(2000, ticketService.numSeatsAvailable(Optional.of(2)));
+			Assert.assertEquals(1500 - 70, ticketService.numSeatsAvailable(Optional.of(3)));
+			Assert.assertEquals(1500, ticketService.numSeatsAvailable(Optional.of(4)));
+			Assert.assertEquals(10, ticketService.findReservation(reservedBeforeSnapshot).getSeats().size());
+			Assert.assertEquals(30, ticketService.findReservation(reservedAfterSnapshot).getSeats().size());
+			Assert.assertEquals(2, ticketService.findReservations(TEST_EMAIL).size());
+			Assert.assertNotNull(ticketService.reserveSeats(heldOverSnapshot.getSeatHoldId(), TEST_EMAIL));
+			Assert.assertNotNull(ticketService.reserveSeats(heldAfterSnapshot.getSeatHoldId(), TEST_EMAIL));
+			try {
+				ticketService.reserveSeats(expiredOverSnapshot.getSeatHoldId(), TEST_EMAIL);
+				fail();
+			} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+				Assert.assertNotNull(ticketHoldNotFoundException);
+			}
+			Assert.assertEquals(6250 - 100, ticketService.numSeatsAvailable(null));
+		} finally {
+			ticketService.destroy();
+			ticketJournal.close();
+		}
+	}
+
+	public void testExtendedHoldsSurviveRestart() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED,
+				ticketJournal);
+		SeatHold extendedOverSnapshot = ticketService.extendHold(ticketService.findAndHoldSeats(10, Optional.of(1), null, TEST_EMAIL)
+				.getSeatHoldId(), TEST_EMAIL, 60000);
+		long expirationOverSnapshot = extendedOverSnapshot.getExpirationTime();
+		ticketService.snapshot();
+		SeatHold extendedAfterSnapshot = ticketService.extendHold(ticketService.findAndHoldSeats(5, Optional.of(2), null, TEST_EMAIL)
+				.getSeatHoldId(), TEST_EMAIL, 30000);
+		long expirationAfterSnapshot = extendedAfterSnapshot.getExpirationTime();
+		ticketJournal.sync();
+		Assert.assertEquals(JournalRecordType.EXTEND, replay(ticketJournal, 0).get(1).getType());
+		ticketService.destroy();
+		ticketJournal.close();
+
+		ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED, ticketJournal);
+		try {
+			// Restored extended holds keep their expiration time and can not be extended any further
+			Assert.assertEquals(expirationOverSnapshot, ticketService.extendHold(extendedOverSnapshot.getSeatHoldId(), TEST_EMAIL, 60000)
+					.getExpirationTime());
+			Assert.assertEquals(expirationAfterSnapshot, ticketService.extendHold(extendedAfterSnapshot.getSeatHoldId(), TEST_EMAIL, 60000)
+					.getExpirationTime());
+			Assert.assertEquals(6250 - 15, ticketService.numSeatsAvailable(null));
+		} finally {
+			ticketService.destroy();
+			ticketJournal.close();
+		}
+	}
+
+	public void testInitAgainRestoresHoldsOnTheNewArrangement() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED,
+				ticketJournal);
+		try {
+			SeatHold released = ticketService.findAndHoldSeats(10, Optional.of(1), null, TEST_EMAIL);
+			SeatHold reserved = ticketService.findAndHoldSeats(5, Optional.of(1), null, TEST_EMAIL);
+			ticketJournal.sync();
+			ticketService.init();
+			Assert.assertEquals(1250 - 15, ticketService.numSeatsAvailable(Optional.of(1)));
+			Assert.assertTrue(ticketService.releaseHold(released.getSeatHoldId(), TEST_EMAIL));
+			Assert.assertEquals(1250 - 5, ticketService.numSeatsAvailable(Optional.of(1)));
+			String reservationId = ticketService.reserveSeats(reserved.getSeatHoldId(), TEST_EMAIL);
+			Assert.assertEquals(5, ticketService.findReservation(reservationId).getSeats().size());
+			Assert.assertEquals(1250 - 5, ticketService.numSeatsAvailable(Optional.of(1)));
+		} finally {
+			ticketService.destroy();
+			ticketJournal.close();
+		}
+	}
+
+	public void testExpiredSeatsReturnWhenJournalFails() throws InterruptedException {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		TicketHoldCache ticketHoldCache = new TicketHoldCache();
+		TicketServiceImpl ticketService = new TicketServiceImpl(ticketHoldCache, SeatAllocation.FIRST_AVAILABLE, InventoryMode.SHARED,
+				ticketJournal);
+		try {
+			SeatHold swept = ticketService.findAndHoldSeats(10, Optional.of(1), null, TEST_EMAIL);
+			SeatHold expired = ticketService.findAndHoldSeats(5, Optional.of(2), null, TEST_EMAIL);
+			SeatHold released = ticketService.findAndHoldSeats(5, Optional.of(3), null, TEST_EMAIL);
+			ticketJournal.close();
+			try {
+				expired.expire();
+				fail();
+			} catch (JournalException journalException) {
+				Assert.assertNotNull(journalException);
+			}
+			Assert.assertEquals(2000, ticketService.numSeatsAvailable(Optional.of(2)));
+			try {
+				ticketService.releaseHold(released.getSeatHoldId(), TEST_EMAIL);
+				fail();
+			} catch (JournalException journalException) {
+				Assert.assertNotNull(journalException);
+			}
+			Assert.assertEquals(1500, ticketService.numSeatsAvailable(Optional.of(3)));
+			Assert.assertNull(ticketHoldCache.get(released.getSeatHoldId()));
+			swept.setExpirationTime(System.currentTimeMillis());
+			Assert.assertTrue(ticketHoldCache.reschedule(swept));
+			for (int wait = 0; wait < 500 && ticketService.numSeatsAvailable(Optional.of(1)) < 1250; wait++) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1250, ticketService.numSeatsAvailable(Optional.of(1)));
+			Assert.assertNull(ticketHoldCache.get(swept.getSeatHoldId()));
+		} finally {
+			ticketService.destroy();
+			ticketJournal.close();
+		}
+	}
+
+	public void testReservedSeatsReturnWhenJournalFails() {
+		TicketJournal ticketJournal = new TicketJournal(directory, SEGMENT_SIZE);
+		TicketHoldCache ticketHoldCache = new TicketHoldCache();
+		TicketServiceImpl ticketService = new TicketServiceImpl(ticketHoldCache, SeatAllocation.FIRST_AVAILABLE, InventoryMode.SEQUENCED,
+				ticketJournal);
+		try {
+			SeatHold seatHold = ticketService.findAndHoldSeats(10, Optional.of(1), null, TEST_EMAIL);
+			ticketJournal.close();
+			try {
+				ticketService.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+				fail();
+			} catch (JournalException journalException) {
+				Assert.assertNotNull(journalException);
+			}
+			Assert.assertEquals(1250, ticketService.numSeatsAvailable(Optional.of(1)));
+			Assert.assertTrue(ticketService.findReservations(TEST_EMAIL).isEmpty());
+			Assert.assertNull(ticketHoldCache.get(seatHold.getSeatHoldId()));
+			Assert.assertNull(seatHold.getSeatReservation());
+		} finally {
+			ticketService.destroy();
+			ticketJournal.close();
+		}
+	}
+
+	private static List<JournalRecord> replay(TicketJournal ticketJournal, long fromPosition) {
+		final List<JournalRecord> records = new ArrayList<JournalRecord>();
+		ticketJournal.replay(fromPosition, record -> records.add(record));
+		return records;
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+		super.tearDown();
+	}
+
+}
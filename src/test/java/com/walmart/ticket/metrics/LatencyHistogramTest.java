@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test class to test the LatencyHistogram.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	public void testBucketsCoverValuesWithinThreePercent() {
+		for (long value = 0; value < (1L << 39); value = value * 3 / 2 + 1) {
+			int bucket = LatencyHistogram.bucket(value);
+			long highestValue = LatencyHistogram.highestValue(bucket);
+			Assert.assertTrue(value <= highestValue);
+			Assert.assertTrue(highestValue - value <= value / 32);
+			Assert.assertTrue(bucket == 0 || LatencyHistogram.highestValue(bucket - 1) < value);
+		}
+	}
+
+	public void testPercentiles() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+		for (long nanos = 1; nanos <= 10000; nanos++) {
+			latencyHistogram.record(nanos * 1000);
+		}
+		Assert.assertEquals(10000, latencyHistogram.getCount());
+		Assert.assertEquals(5000500, latencyHistogram.getMeanNanos(), 1);
+		Assert.assertEquals(5000000, latencyHistogram.getP50Nanos(), 5000000 / 32);
+		Assert.assertEquals(9900000, latencyHistogram.getP99Nanos(), 9900000 / 32);
+		Assert.assertEquals(9990000, latencyHistogram.getP999Nanos(), 9990000 / 32);
+		Assert.assertEquals(10000000, latencyHistogram.getMaxNanos());
+		Assert.assertEquals(10000000, latencyHistogram.getPercentileNanos(100));
+	}
+
+	public void testReset() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+		latencyHistogram.record(-5);
+		latencyHistogram.record(Long.MAX_VALUE);
+		Assert.assertEquals(2, latencyHistogram.getCount());
+		Assert.assertEquals(0, latencyHistogram.getPercentileNanos(50));
+		latencyHistogram.reset();
+		Assert.assertEquals(0, latencyHistogram.getCount());
+		Assert.assertEquals(0, latencyHistogram.getP99Nanos());
+		Assert.assertEquals(0, latencyHistogram.getMaxNanos());
+	}
+
+}
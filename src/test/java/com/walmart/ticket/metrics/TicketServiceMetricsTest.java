@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.exception.TicketHoldNotFoundException;
+import com.walmart.ticket.service.MeteredTicketService;
+import com.walmart.ticket.service.TicketServiceImpl;
+
+/**
+ *
+ * Test class to test the TicketServiceMetrics of a MeteredTicketService.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class TicketServiceMetricsTest extends TestCase {
+
+	public void testRequestsAreRecorded() {
+		TicketServiceImpl ticketServiceImpl = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE,
+				InventoryMode.SEQUENCED, null, VenueLayout.defaultLayout());
+		MeteredTicketService ticketService = MeteredTicketService.meter(ticketServiceImpl, null);
+		try {
+			TicketServiceMetrics metrics = ticketService.getMetrics();
+			ticketService.numSeatsAvailable(Optional.empty());
+			SeatHold seatHold = ticketService.findAndHoldSeats(1300, Optional.empty(), Optional.empty(), "a@b.com");
+			Assert.assertNull(ticketService.findAndHoldSeats(5000, Optional.empty(), Optional.empty(), "a@b.com"));
+			Assert.assertNotNull(ticketService.reserveSeats(seatHold.getSeatHoldId(), "a@b.com"));
+			try {
+				ticketService.reserveSeats(seatHold.getSeatHoldId(), "a@b.com");
+				fail();
+			} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+				Assert.assertNotNull(ticketHoldNotFoundException);
+			}
+			Assert.assertNotNull(ticketService.findAndHoldSeats(10, Optional.empty(), Optional.empty(), "a@b.com"));
+
+			Assert.assertEquals(1, metrics.getNumSeatsAvailableLatency().getCount());
+			Assert.assertEquals(3, metrics.getFindAndHoldSeatsLatency().getCount());
+			Assert.assertEquals(2, metrics.getReserveSeatsLatency().getCount());
+			Assert.assertTrue(metrics.getFindAndHoldSeatsLatency().getMaxNanos() > 0);
+			Assert.assertEquals(2, metrics.getHoldsCreated());
+			Assert.assertEquals(1, metrics.getHoldsRejected());
+			Assert.assertEquals(1, metrics.getReservations());
+			Assert.assertEquals(1, metrics.getReservationsRejected());
+			Assert.assertEquals(1, metrics.getHoldCacheSize());
+			Assert.assertTrue(metrics.getSequencerQueueWait().getCount() > 0);
+			// The first hold skips level 1, the rejected hold fails on every level
+			Assert.assertEquals(1, metrics.getLevelMetrics(1).getHoldSuccesses());
+			Assert.assertEquals(2, metrics.getLevelMetrics(1).getHoldFailures());
+			Assert.assertEquals(1, metrics.getLevelMetrics(2).getHoldSuccesses());
+			Assert.assertEquals(1, metrics.getLevelMetrics(2).getHoldFailures());
+			Assert.assertEquals(0.5, metrics.getLevelMetrics(2).getHoldSuccessRate(), 0.001);
+		} finally {
+			ticketService.destroy();
+			ticketServiceImpl.destroy();
+		}
+	}
+
+	public void testMBeansAreRegistered() throws Exception {
+		TicketServiceImpl ticketServiceImpl = new TicketServiceImpl();
+		MeteredTicketService ticketService = MeteredTicketService.meter(ticketServiceImpl, "concert");
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName service = new ObjectName(TicketServiceMetrics.DOMAIN + ":type=TicketService,name=\"concert\"");
+		ObjectName findAndHoldSeats = new ObjectName(service + ",operation=findAndHoldSeats");
+		try {
+			ticketService.findAndHoldSeats(4, Optional.of(3), Optional.of(3), "a@b.com");
+			Assert.assertEquals(1L, mBeanServer.getAttribute(findAndHoldSeats, "Count"));
+			Assert.assertEquals(1, mBeanServer.getAttribute(service, "HoldCacheSize"));
+			Assert.assertEquals(1L, mBeanServer.getAttribute(new ObjectName(service + ",level=3"), "HoldSuccesses"));
+			try {
+				MeteredTicketService.meter(ticketServiceImpl, "concert");
+				fail();
+			} catch (IllegalStateException illegalStateException) {
+				Assert.assertNotNull(illegalStateException);
+			}
+		} finally {
+			ticketService.destroy();
+			ticketServiceImpl.destroy();
+		}
+		Assert.assertFalse(mBeanServer.isRegistered(service));
+		Assert.assertFalse(mBeanServer.isRegistered(findAndHoldSeats));
+	}
+
+}
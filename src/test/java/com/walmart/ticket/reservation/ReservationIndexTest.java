@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.reservation;
+
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.reservation.ReservationIndex.Reservation;
+import com.walmart.ticket.util.CrockfordBase32;
+
+/**
+ *
+ * Test class to test the ReservationIndex.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class ReservationIndexTest extends TestCase {
+
+	ReservationIndex	reservationIndex;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		reservationIndex = new ReservationIndex();
+	}
+
+	public void testManyReservations() {
+		for (int index = 1; index <= 100000; index++) {
+			Assert.assertTrue(reservationIndex.add(CrockfordBase32.encode(index * 7919L), "customer" + (index % 1000) + "@walmart.com",
+					index, index % 4 + 1, new int[] { index, index + 1 }));
+		}
+		Assert.assertEquals(100000, reservationIndex.size());
+		Reservation reservation = reservationIndex.find(CrockfordBase32.encode(4242 * 7919L));
+		Assert.assertEquals("customer242@walmart.com", reservation.getCustomerEmail());
+		Assert.assertEquals(4242, reservation.getReservationTime());
+		Assert.assertEquals(3, reservation.getLevelId());
+		Assert.assertEquals(4243, reservation.getPositions()[1]);
+		List<Reservation> reservations = reservationIndex.findByCustomer("CUSTOMER242@walmart.com");
+		Assert.assertEquals(100, reservations.size());
+		Assert.assertEquals(242, reservations.get(0).getReservationTime());
+		Assert.assertEquals(99242, reservations.get(99).getReservationTime());
+		Assert.assertNull(reservationIndex.find(CrockfordBase32.encode(1)));
+	}
+
+	public void testAddIsIdempotent() {
+		String reservationId = CrockfordBase32.encode(12345);
+		Assert.assertTrue(reservationIndex.add(reservationId, "a@walmart.com", 1, 1, new int[] { 3 }));
+		Assert.assertFalse(reservationIndex.add(reservationId, "a@walmart.com", 1, 1, new int[] { 3 }));
+		Assert.assertEquals(1, reservationIndex.findByCustomer("a@walmart.com").size());
+	}
+
+	public void testCustomCodes() {
+		Assert.assertTrue(reservationIndex.add("b8a9c0e2-uuid", "a@walmart.com", 1, 2, new int[] { 5, 6, 7 }));
+		Assert.assertFalse(reservationIndex.add("b8a9c0e2-uuid", "a@walmart.com", 1, 2, new int[] { 5, 6, 7 }));
+		Assert.assertEquals("b8a9c0e2-uuid", reservationIndex.find("b8a9c0e2-uuid").getReservationId());
+		Assert.assertEquals(3, reservationIndex.find("b8a9c0e2-uuid").getPositions().length);
+	}
+
+	public void testRemove() {
+		for (int index = 1; index <= 3; index++) {
+			Assert.assertTrue(reservationIndex.add(CrockfordBase32.encode(index), "a@walmart.com", index, 1, new int[] { index }));
+		}
+		Assert.assertTrue(reservationIndex.add("custom", "a@walmart.com", 4, 1, new int[] { 4 }));
+		Assert.assertTrue(reservationIndex.remove(CrockfordBase32.encode(3)));
+		Assert.assertTrue(reservationIndex.remove("custom"));
+		Assert.assertFalse(reservationIndex.remove(CrockfordBase32.encode(3)));
+		Assert.assertNull(reservationIndex.find(CrockfordBase32.encode(3)));
+		Assert.assertNull(reservationIndex.find("custom"));
+		Assert.assertEquals(2, reservationIndex.size());
+		Assert.assertTrue(reservationIndex.add(CrockfordBase32.encode(5), "a@walmart.com", 5, 1, new int[] { 5 }));
+		List<Reservation> reservations = reservationIndex.findByCustomer("a@walmart.com");
+		Assert.assertEquals(3, reservations.size());
+		Assert.assertEquals(5, reservations.get(2).getReservationTime());
+		Assert.assertTrue(reservationIndex.remove(CrockfordBase32.encode(1)));
+		Assert.assertEquals(2, reservationIndex.findByCustomer("a@walmart.com").get(0).getReservationTime());
+		Assert.assertEquals(2, reservationIndex.find(CrockfordBase32.encode(2)).getReservationTime());
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.seatmap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
+import com.walmart.ticket.constants.SeatState;
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatMapDelta;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.domain.VenueLevel;
+import com.walmart.ticket.inventory.LevelInventory;
+import com.walmart.ticket.service.TicketServiceImpl;
+import com.walmart.ticket.util.Flow;
+
+/**
+ *
+ * Test class to test the SeatMapPublisher.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SeatMapPublisherTest extends TestCase {
+
+	private static final String	TEST_EMAIL	= "sarvesh.katariya@gmail.com";
+
+	VenueLayout					venueLayout;
+	LevelInventory				levelInventory;
+	SeatMapPublisher			seatMapPublisher;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		venueLayout = new VenueLayout(Arrays.asList(new VenueLevel(1, "Floor", new Double(50), 2, 10)));
+		levelInventory = new LevelInventory(1, 2, 10);
+		seatMapPublisher = new SeatMapPublisher(venueLayout, new LevelInventory[] { levelInventory }, Runnable::run);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		seatMapPublisher.halt();
+		super.tearDown();
+	}
+
+	public void testNewSubscriberReceivesWholeVenue() throws InterruptedException {
+		TicketServiceImpl ticketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE,
+				InventoryMode.SEQUENCED, null, venueLayout);
+		try {
+			ticketService.findAndHoldSeats(12, Optional.empty(), Optional.empty(), TEST_EMAIL);
+			final SeatMap seatMap = new SeatMap(Long.MAX_VALUE);
+			ticketService.getSeatMapPublisher().subscribe(seatMap);
+			await(() -> seatMap.count(SeatState.HELD) == 12 && seatMap.count(SeatState.AVAILABLE) == 8);
+			// One range per state and row
+			Assert.assertEquals(3, seatMap.numRanges());
+			Assert.assertSame(ticketService.getSeatMapPublisher(), ticketService.getSeatMapPublisher());
+		} finally {
+			ticketService.destroy();
+		}
+	}
+
+	public void testChangesArePushed() throws InterruptedException {
+		final SeatMap seatMap = new SeatMap(Long.MAX_VALUE);
+		seatMapPublisher.subscribe(seatMap);
+		await(() -> seatMap.count(SeatState.AVAILABLE) == 20);
+		int[] positions = levelInventory.hold(5);
+		levelInventory.reserve(Arrays.copyOf(positions, 2));
+		levelInventory.release(positions);
+		int[] together = levelInventory.holdTogether(4);
+		await(() -> seatMap.count(SeatState.RESERVED) == 2 && seatMap.count(SeatState.HELD) == 4);
+		Assert.assertEquals(SeatState.RESERVED, seatMap.states[0][1]);
+		Assert.assertEquals(SeatState.HELD, seatMap.states[0][2]);
+		Assert.assertEquals(SeatState.HELD, seatMap.states[0][5]);
+		Assert.assertEquals(SeatState.AVAILABLE, seatMap.states[0][6]);
+		Assert.assertEquals(levelInventory.getPosition(0, 2), together[0]);
+		long previous = -1;
+		for (SeatMapDelta delta : seatMap.deltas) {
+			Assert.assertTrue(delta.getSequence() >= previous);
+			previous = delta.getSequence();
+		}
+	}
+
+	public void testSlowSubscriberIsConflated() throws InterruptedException {
+		final SeatMap seatMap = new SeatMap(1);
+		seatMapPublisher.subscribe(seatMap);
+		await(() -> seatMap.deltas.size() == 1);
+		for (int round = 0; round < 10000; round++) {
+			levelInventory.release(levelInventory.hold(7));
+		}
+		levelInventory.hold(3);
+		Thread.sleep(50);
+		Assert.assertEquals(1, seatMap.deltas.size());
+		seatMap.subscription.request(Long.MAX_VALUE);
+		await(() -> seatMap.count(SeatState.HELD) == 3);
+		// Only the latest state of the 7 changed seats is sent: held and available
+		Assert.assertEquals(3, seatMap.deltas.size());
+		Assert.assertEquals(17, seatMap.count(SeatState.AVAILABLE));
+	}
+
+	public void testCancelAndHalt() throws InterruptedException {
+		SeatMap cancelled = new SeatMap(Long.MAX_VALUE);
+		final SeatMap completed = new SeatMap(Long.MAX_VALUE);
+		seatMapPublisher.subscribe(cancelled);
+		seatMapPublisher.subscribe(completed);
+		Assert.assertEquals(2, seatMapPublisher.getNumSubscribers());
+		cancelled.subscription.cancel();
+		Assert.assertEquals(1, seatMapPublisher.getNumSubscribers());
+		seatMapPublisher.halt();
+		await(() -> completed.completed);
+		Assert.assertEquals(0, seatMapPublisher.getNumSubscribers());
+		Assert.assertFalse(cancelled.completed);
+
+		SeatMap invalid = new SeatMap(0);
+		new SeatMapPublisher(venueLayout, new LevelInventory[] { levelInventory }, Runnable::run).subscribe(invalid);
+		invalid.subscription.request(-1);
+		Assert.assertTrue(invalid.error instanceof IllegalArgumentException);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		for (int attempt = 0; attempt < 500 && !condition.getAsBoolean(); attempt++) {
+			Thread.sleep(10);
+		}
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+	/**
+	 *
+	 * Client side seat map of one level with 2 rows of 10 seats.
+	 *
+	 */
+	private static final class SeatMap implements Flow.Subscriber<SeatMapDelta> {
+
+		private final long					initialDemand;
+		private final SeatState[][]			states	= new SeatState[2][10];
+		private final List<SeatMapDelta>	deltas	= new CopyOnWriteArrayList<SeatMapDelta>();
+		private volatile Flow.Subscription	subscription;
+		private volatile boolean			completed;
+		private volatile Throwable			error;
+
+		SeatMap(long initialDemand) {
+			this.initialDemand = initialDemand;
+		}
+
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			if (initialDemand > 0) {
+				subscription.request(initialDemand);
+			}
+		}
+
+		public synchronized void onNext(SeatMapDelta delta) {
+			for (int range = 0; range < delta.getNumRanges(); range++) {
+				for (int seat = 0; seat < delta.getNumSeats(range); seat++) {
+					states[delta.getRow(range)][delta.getFirstSeatNumber(range) + seat] = delta.getSeatState();
+				}
+			}
+			deltas.add(delta);
+		}
+
+		public void onError(Throwable throwable) {
+			error = throwable;
+		}
+
+		public void onComplete() {
+			completed = true;
+		}
+
+		synchronized int count(SeatState seatState) {
+			int count = 0;
+			for (SeatState[] row : states) {
+				for (SeatState state : row) {
+					count += state == seatState ? 1 : 0;
+				}
+			}
+			return count;
+		}
+
+		int numRanges() {
+			int numRanges = 0;
+			for (SeatMapDelta delta : deltas) {
+				numRanges += delta.getNumRanges();
+			}
+			return numRanges;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.exception.InvalidVenueLevelException;
+import com.walmart.ticket.exception.TicketHoldNotFoundException;
+
+/**
+ * 
+ * Test class to test the AsyncTicketService.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class AsyncTicketServiceTest extends TestCase {
+
+	TicketServiceImpl		ticketService;
+	AsyncTicketServiceImpl	asyncTicketService;
+
+	private static final String TEST_EMAIL = "sarvesh.katariya@gmail.com";
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		ticketService = new TicketServiceImpl();
+		asyncTicketService = new AsyncTicketServiceImpl(ticketService);
+	}
+
+	public void testHoldAndReserveSeats() throws Exception {
+		String reservationId = asyncTicketService.findAndHoldSeats(10, Optional.of(2), null, TEST_EMAIL)
+				.thenCompose(seatHold -> asyncTicketService.reserveSeats(seatHold.getSeatHoldId(), seatHold.getCustomerEmail()))
+				.get();
+		Assert.assertNotNull(reservationId);
+		Assert.assertEquals(1990, asyncTicketService.numSeatsAvailable(Optional.of(2)).get().intValue());
+	}
+
+	public void testManyOutstandingHolds() throws Exception {
+		List<CompletableFuture<SeatHold>> futures = new ArrayList<CompletableFuture<SeatHold>>();
+		for (int index = 0; index < 1000; index++) {
+			futures.add(asyncTicketService.findAndHoldSeats(5, null, null, TEST_EMAIL));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).get();
+		for (CompletableFuture<SeatHold> future : futures) {
+			Assert.assertEquals(5, future.get().getSeats().size());
+		}
+		Assert.assertEquals(1250, ticketService.numSeatsAvailable(null));
+	}
+
+	public void testExceptionCompletesFuture() throws InterruptedException {
+		try {
+			asyncTicketService.reserveSeats(1234, TEST_EMAIL).get();
+			fail();
+		} catch (ExecutionException executionException) {
+			Assert.assertTrue(executionException.getCause() instanceof TicketHoldNotFoundException);
+		}
+		try {
+			asyncTicketService.numSeatsAvailable(Optional.of(5)).get();
+			fail();
+		} catch (ExecutionException executionException) {
+			Assert.assertTrue(executionException.getCause() instanceof InvalidVenueLevelException);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		asyncTicketService.destroy();
+		ticketService.destroy();
+		super.tearDown();
+	}
+
+}
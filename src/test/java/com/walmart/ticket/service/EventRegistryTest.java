@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.domain.VenueLevel;
+import com.walmart.ticket.exception.EventNotFoundException;
+import com.walmart.ticket.exception.InvalidVenueLevelException;
+import com.walmart.ticket.exception.TicketHoldNotFoundException;
+
+/**
+ * 
+ * Test class to test the EventRegistry.
+ * 
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class EventRegistryTest extends TestCase {
+
+	EventRegistry	eventRegistry;
+	VenueLayout		clubLayout;
+
+	private static final String TEST_EMAIL = "sarvesh.katariya@gmail.com";
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		eventRegistry = new EventRegistry();
+		clubLayout = new VenueLayout(Arrays.asList(new VenueLevel(20, "Floor", new Double(30), 10, 20),
+				new VenueLevel(10, "Mezzanine", new Double(60), 2, 15)));
+	}
+
+	public void testEventsHaveTheirOwnLayout() {
+		TicketService concert = eventRegistry.createEvent("concert", VenueLayout.defaultLayout());
+		TicketService club = eventRegistry.createEvent("club", clubLayout);
+		Assert.assertEquals(6250, concert.numSeatsAvailable(null));
+		Assert.assertEquals(230, club.numSeatsAvailable(null));
+		Assert.assertEquals(30, club.numSeatsAvailable(Optional.of(10)));
+
+		SeatHold seatHold = club.findAndHoldSeats(20, null, null, TEST_EMAIL);
+		Assert.assertEquals("Mezzanine", seatHold.getSeats().get(0).getSeatLevel().getLevelName());
+		seatHold = club.findAndHoldSeats(40, null, null, TEST_EMAIL);
+		Assert.assertEquals(20, seatHold.getSeats().get(39).getSeatLevel().getLevelId().intValue());
+		Assert.assertNull(club.findAndHoldSeats(200, null, null, TEST_EMAIL));
+		try {
+			club.numSeatsAvailable(Optional.of(1));
+			fail();
+		} catch (InvalidVenueLevelException invalidVenueLevelException) {
+			Assert.assertEquals(1, invalidVenueLevelException.getLevelId().intValue());
+		}
+	}
+
+	public void testEventsAreIsolated() {
+		TicketService first = eventRegistry.createEvent("first", clubLayout);
+		TicketService second = eventRegistry.createEvent("second", clubLayout);
+		SeatHold seatHold = first.findAndHoldSeats(200, null, null, TEST_EMAIL);
+		Assert.assertEquals(30, first.numSeatsAvailable(null));
+		Assert.assertEquals(230, second.numSeatsAvailable(null));
+		try {
+			second.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+			fail();
+		} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+			Assert.assertEquals(seatHold.getSeatHoldId(), ticketHoldNotFoundException.getSeatHoldId());
+		}
+		Assert.assertNotNull(eventRegistry.getTicketService("first").reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL));
+	}
+
+	public void testCreateAndRemoveEvents() {
+		eventRegistry.createEvent("event-1", clubLayout);
+		try {
+			eventRegistry.createEvent("event-1", clubLayout);
+			fail();
+		} catch (IllegalStateException illegalStateException) {
+			Assert.assertNotNull(illegalStateException);
+		}
+		try {
+			eventRegistry.createEvent("../event", clubLayout);
+			fail();
+		} catch (IllegalArgumentException illegalArgumentException) {
+			Assert.assertNotNull(illegalArgumentException);
+		}
+		Assert.assertEquals(1, eventRegistry.size());
+		Assert.assertTrue(eventRegistry.removeEvent("event-1"));
+		Assert.assertFalse(eventRegistry.removeEvent("event-1"));
+		Assert.assertTrue(eventRegistry.getEventIds().isEmpty());
+		try {
+			eventRegistry.getTicketService("event-1");
+			fail();
+		} catch (EventNotFoundException eventNotFoundException) {
+			Assert.assertEquals("event-1", eventNotFoundException.getEventId());
+		}
+	}
+
+	public void testInvalidLayout() {
+		try {
+			new VenueLayout(Arrays.asList(new VenueLevel(1, "A", new Double(10), 1, 1), new VenueLevel(1, "B", new Double(10), 1, 1)));
+			fail();
+		} catch (IllegalArgumentException illegalArgumentException) {
+			Assert.assertNotNull(illegalArgumentException);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		eventRegistry.destroy();
+		super.tearDown();
+	}
+
+}
@@ -15,13 +15,23 @@
  */
 package com.walmart.ticket.service;
 
+import java.util.Iterator;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
+import com.walmart.ticket.cache.TicketHoldCache;
+import com.walmart.ticket.constants.InventoryMode;
+import com.walmart.ticket.constants.SeatAllocation;
 import com.walmart.ticket.constants.TicketServiceConstants;
+import com.walmart.ticket.domain.HoldRequest;
 import com.walmart.ticket.domain.SeatHold;
+import com.walmart.ticket.domain.SeatReservation;
+import com.walmart.ticket.domain.VenueLayout;
+import com.walmart.ticket.domain.VenueLevel;
 import com.walmart.ticket.exception.InvalidVenueLevelException;
 import com.walmart.ticket.exception.TicketHoldNotFoundException;
 
@@ -80,6 +90,42 @@ public class TicketServiceTest extends TestCase {
 		}
 	}
 	
+	public void testNumberOfSeatsAvailableWithSparseLevels() {
+		TicketServiceImpl sparseService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.FIRST_AVAILABLE,
+				InventoryMode.SHARED, null, new VenueLayout(Arrays.asList(new VenueLevel(9000, "Upper", new Double(20), 2, 10),
+						new VenueLevel(3, "Floor", new Double(80), 1, 10))));
+		try {
+			Assert.assertNotNull(sparseService.findAndHoldSeats(15, Optional.empty(), Optional.empty(), TEST_EMAIL));
+			Assert.assertEquals(10, sparseService.numSeatsAvailable(Optional.of(3)));
+			Assert.assertEquals(5, sparseService.numSeatsAvailable(Optional.of(9000)));
+			Assert.assertEquals(15, sparseService.numSeatsAvailable(Optional.empty()));
+			sparseService.numSeatsAvailable(Optional.of(4));
+			fail();
+		} catch (InvalidVenueLevelException invalidVenueLevelException) {
+			Assert.assertNotNull(invalidVenueLevelException);
+		} finally {
+			sparseService.destroy();
+		}
+	}
+	
+	public void testfindAndHoldBestAvailableSeats() {
+		TicketServiceImpl bestService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.BEST_AVAILABLE, InventoryMode.SHARED,
+				null, new VenueLayout(Arrays.asList(new VenueLevel(1, "Orchestra", new Double(100), 3, 9))));
+		try {
+			SeatHold seatHold = bestService.findAndHoldSeats(3, Optional.empty(), Optional.empty(), TEST_EMAIL);
+			Assert.assertEquals(0, seatHold.getSeats().get(0).getRow());
+			Assert.assertEquals(4, seatHold.getSeats().get(0).getSeatNumber());
+			Assert.assertEquals(3, seatHold.getSeats().get(1).getSeatNumber());
+			Assert.assertEquals(5, seatHold.getSeats().get(2).getSeatNumber());
+			SeatHold secondRow = bestService.findAndHoldSeats(1, Optional.empty(), Optional.empty(), TEST_EMAIL);
+			Assert.assertEquals(1, secondRow.getSeats().get(0).getRow());
+			Assert.assertEquals(4, secondRow.getSeats().get(0).getSeatNumber());
+			Assert.assertEquals(23, bestService.numSeatsAvailable(Optional.empty()));
+		} finally {
+			bestService.destroy();
+		}
+	}
+	
 	public void testfindAndHoldSeatsWithoutLevel() {
 		SeatHold seatHold = ticketService.findAndHoldSeats(10, null, null, TEST_EMAIL);
 		Assert.assertNotNull(seatHold);
@@ -104,6 +150,53 @@ public class TicketServiceTest extends TestCase {
 		Assert.assertEquals(1470, ticketService.numSeatsAvailable(Optional.of(3)));
 	}
 	
+	public void testfindAndHoldSeatsBatch() {
+		List<SeatHold> seatHolds = ticketService.findAndHoldSeatsBatch(Arrays.asList(
+				new HoldRequest(1200, Optional.of(1), Optional.of(1), TEST_EMAIL),
+				new HoldRequest(100, Optional.of(1), Optional.of(2), TEST_EMAIL),
+				new HoldRequest(40, Optional.of(1), Optional.of(1), TEST_EMAIL),
+				new HoldRequest(0, null, null, TEST_EMAIL),
+				new HoldRequest(20, Optional.of(4), null, TEST_EMAIL)));
+		Assert.assertEquals(5, seatHolds.size());
+		Assert.assertEquals(1200, seatHolds.get(0).getSeats().size());
+		Assert.assertEquals(2, seatHolds.get(1).getSeats().get(0).getSeatLevel().getLevelId().intValue());
+		Assert.assertEquals(1, seatHolds.get(2).getSeats().get(0).getSeatLevel().getLevelId().intValue());
+		Assert.assertNull(seatHolds.get(3));
+		Assert.assertEquals(4, seatHolds.get(4).getSeats().get(0).getSeatLevel().getLevelId().intValue());
+		Assert.assertEquals(10, ticketService.numSeatsAvailable(Optional.of(1)));
+		Assert.assertEquals(1900, ticketService.numSeatsAvailable(Optional.of(2)));
+		Assert.assertEquals(1480, ticketService.numSeatsAvailable(Optional.of(4)));
+		Assert.assertNotNull(ticketService.reserveSeats(seatHolds.get(1).getSeatHoldId(), TEST_EMAIL));
+	}
+	
+	public void testSeatsOfReservedHold() {
+		SeatHold seatHold = ticketService.findAndHoldSeats(3, Optional.of(2), null, TEST_EMAIL);
+		Assert.assertEquals(3, seatHold.getNumSeats());
+		Assert.assertTrue(seatHold.getSeats().get(0).isHold());
+		String reservationId = ticketService.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+		Assert.assertFalse(seatHold.getSeats().get(0).isHold());
+		Assert.assertEquals(reservationId, seatHold.getSeats().get(2).getSeatReservation().getReservationId());
+		Assert.assertEquals(0, seatHold.getSeats().get(2).getRow());
+		Assert.assertEquals(2, seatHold.getSeats().get(2).getSeatNumber());
+	}
+	
+	public void testFindReservations() {
+		SeatHold first = ticketService.findAndHoldSeats(2, Optional.of(3), null, TEST_EMAIL);
+		SeatHold second = ticketService.findAndHoldSeats(4, Optional.of(1), null, TEST_EMAIL);
+		String firstReservationId = ticketService.reserveSeats(first.getSeatHoldId(), TEST_EMAIL);
+		String secondReservationId = ticketService.reserveSeats(second.getSeatHoldId(), TEST_EMAIL);
+		SeatReservation seatReservation = ticketService.findReservation(firstReservationId.toLowerCase());
+		Assert.assertEquals(firstReservationId, seatReservation.getReservationId());
+		Assert.assertEquals(2, seatReservation.getSeats().size());
+		Assert.assertEquals(3, seatReservation.getSeats().get(0).getSeatLevel().getLevelId().intValue());
+		Assert.assertEquals(1, seatReservation.getSeats().get(1).getSeatNumber());
+		List<SeatReservation> seatReservations = ticketService.findReservations(TEST_EMAIL.toUpperCase());
+		Assert.assertEquals(2, seatReservations.size());
+		Assert.assertEquals(secondReservationId, seatReservations.get(1).getReservationId());
+		Assert.assertNull(ticketService.findReservation("0000000000000"));
+		Assert.assertTrue(ticketService.findReservations("nobody@walmart.com").isEmpty());
+	}
+	
 	public void testReserveSeats() {
 		SeatHold seatHold = ticketService.findAndHoldSeats(30, Optional.of(3), Optional.of(4), TEST_EMAIL);
 		Assert.assertNotNull(seatHold);
@@ -115,6 +208,42 @@ public class TicketServiceTest extends TestCase {
 		Assert.assertEquals(6220, ticketService.numSeatsAvailable(null));
 	}
 	
+	public void testReserveSeatsWithTakenOrNonCanonicalReservationId() {
+		Iterator<String> reservationIds = Arrays.asList("0000000000abc", "0000000000ABC", "0000000000ABC", "RES-1").iterator();
+		TicketServiceImpl ticketServiceImpl = (TicketServiceImpl) ticketService;
+		ticketServiceImpl.setReservationIdGenerator(() -> reservationIds.next());
+		SeatHold first = ticketService.findAndHoldSeats(2, Optional.of(3), null, TEST_EMAIL);
+		SeatHold second = ticketService.findAndHoldSeats(2, Optional.of(3), null, TEST_EMAIL);
+		String firstReservationId = ticketService.reserveSeats(first.getSeatHoldId(), TEST_EMAIL);
+		Assert.assertEquals("0000000000ABC", firstReservationId);
+		Assert.assertEquals(firstReservationId, ticketService.findReservation(firstReservationId).getReservationId());
+		Assert.assertEquals("RES-1", ticketService.reserveSeats(second.getSeatHoldId(), TEST_EMAIL));
+		Assert.assertEquals(2, ticketService.findReservations(TEST_EMAIL).size());
+		SeatHold third = ticketService.findAndHoldSeats(2, Optional.of(3), null, TEST_EMAIL);
+		ticketServiceImpl.setReservationIdGenerator(() -> "RES-1");
+		try {
+			ticketService.reserveSeats(third.getSeatHoldId(), TEST_EMAIL);
+			Assert.fail("A taken reservation id must not be handed out");
+		} catch (IllegalStateException illegalStateException) {
+		}
+		Assert.assertEquals(1496, ticketService.numSeatsAvailable(Optional.of(3)));
+		Assert.assertEquals(2, ticketService.findReservations(TEST_EMAIL).size());
+	}
+	
+	public void testReserveSeatsWithSequencedInventory() {
+		TicketServiceImpl sequencedTicketService = new TicketServiceImpl(new TicketHoldCache(), SeatAllocation.TOGETHER, InventoryMode.SEQUENCED);
+		try {
+			SeatHold seatHold = sequencedTicketService.findAndHoldSeats(30, Optional.of(3), Optional.of(4), TEST_EMAIL);
+			Assert.assertEquals(30, seatHold.getSeats().size());
+			Assert.assertEquals(1470, sequencedTicketService.numSeatsAvailable(Optional.of(3)));
+			Assert.assertNotNull(sequencedTicketService.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL));
+			seatHold.expire();
+			Assert.assertEquals(6220, sequencedTicketService.numSeatsAvailable(null));
+		} finally {
+			sequencedTicketService.destroy();
+		}
+	}
+	
 	public void testReserveSeatsWithInvalidHoldId() {
 		SeatHold seatHold = ticketService.findAndHoldSeats(30, Optional.of(2), Optional.of(4), TEST_EMAIL);
 		Assert.assertNotNull(seatHold);
@@ -145,6 +274,64 @@ public class TicketServiceTest extends TestCase {
 		Assert.assertEquals(6220, ticketService.numSeatsAvailable(null));
 	}
 	
+	public void testExtendHold() throws InterruptedException {
+		TicketHoldCache ticketHoldCache = new TicketHoldCache();
+		TicketServiceImpl extendingService = new TicketServiceImpl(ticketHoldCache);
+		extendingService.setMaxHoldLifetime(TicketServiceConstants.DEFAULT_LIFETIME + 1000);
+		try {
+			SeatHold seatHold = extendingService.findAndHoldSeats(10, null, null, TEST_EMAIL);
+			long expirationTime = seatHold.getExpirationTime();
+			Assert.assertEquals(expirationTime + 400, extendingService.extendHold(seatHold.getSeatHoldId(), TEST_EMAIL, 400).getExpirationTime());
+			Assert.assertEquals(seatHold.getHoldTime().getTime() + TicketServiceConstants.DEFAULT_LIFETIME + 1000,
+					extendingService.extendHold(seatHold.getSeatHoldId(), TEST_EMAIL, 60000).getExpirationTime());
+			Assert.assertNull(extendingService.extendHold(seatHold.getSeatHoldId(), TEST_EMAIL, 0));
+			try {
+				extendingService.extendHold(seatHold.getSeatHoldId(), "someone.else@gmail.com", 400);
+				fail();
+			} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+				Assert.assertNotNull(ticketHoldNotFoundException);
+			}
+			// The hold now expires from its new timeout only
+			seatHold.setExpirationTime(System.currentTimeMillis() + 50);
+			Assert.assertTrue(ticketHoldCache.reschedule(seatHold));
+			Thread.sleep(500);
+			Assert.assertFalse(seatHold.isHeld());
+			Assert.assertEquals(6250, extendingService.numSeatsAvailable(null));
+			try {
+				extendingService.extendHold(seatHold.getSeatHoldId(), TEST_EMAIL, 400);
+				fail();
+			} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+				Assert.assertNotNull(ticketHoldNotFoundException);
+			}
+		} finally {
+			extendingService.destroy();
+		}
+	}
+	
+	public void testReleaseHold() {
+		SeatHold seatHold = ticketService.findAndHoldSeats(30, null, null, TEST_EMAIL);
+		Assert.assertFalse(ticketService.releaseHold(seatHold.getSeatHoldId(), null));
+		try {
+			ticketService.releaseHold(seatHold.getSeatHoldId(), "someone.else@gmail.com");
+			fail();
+		} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+			Assert.assertNotNull(ticketHoldNotFoundException);
+		}
+		Assert.assertTrue(ticketService.releaseHold(seatHold.getSeatHoldId(), TEST_EMAIL));
+		Assert.assertEquals(6250, ticketService.numSeatsAvailable(null));
+		Assert.assertFalse(seatHold.isHeld());
+		try {
+			ticketService.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+			fail();
+		} catch (TicketHoldNotFoundException ticketHoldNotFoundException) {
+			Assert.assertNotNull(ticketHoldNotFoundException);
+		}
+		// The released seats are the first ones held again
+		SeatHold nextHold = ticketService.findAndHoldSeats(30, null, null, TEST_EMAIL);
+		Assert.assertEquals(0, nextHold.getSeats().get(0).getRow());
+		Assert.assertEquals(0, nextHold.getSeats().get(0).getSeatNumber());
+	}
+	
 	public void testHoldExpiration() throws InterruptedException {
 		SeatHold seatHold = ticketService.findAndHoldSeats(30, null, null, TEST_EMAIL);
 		Assert.assertNotNull(seatHold);
@@ -171,6 +358,7 @@ public class TicketServiceTest extends TestCase {
 
 	@Override
 	protected void tearDown() throws Exception {
+		((TicketServiceImpl) ticketService).destroy();
 		super.tearDown();
 	}
 	
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.BitSet;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test class to test the HoldIdAllocator.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class HoldIdAllocatorTest extends TestCase {
+
+	public void testConcurrentIdsNeverCollide() throws InterruptedException {
+		final HoldIdAllocator holdIdAllocator = new HoldIdAllocator(4);
+		final int[][] ids = new int[8][50000];
+		Thread[] threads = new Thread[ids.length];
+		for (int index = 0; index < threads.length; index++) {
+			final int[] threadIds = ids[index];
+			threads[index] = new Thread() {
+				public void run() {
+					for (int id = 0; id < threadIds.length; id++) {
+						threadIds[id] = holdIdAllocator.next();
+					}
+				}
+			};
+			threads[index].start();
+		}
+		BitSet seen = new BitSet();
+		for (int index = 0; index < threads.length; index++) {
+			threads[index].join();
+			for (int id : ids[index]) {
+				Assert.assertTrue(id > 0);
+				Assert.assertFalse(seen.get(id));
+				seen.set(id);
+			}
+		}
+	}
+
+	public void testAdvanceTo() {
+		HoldIdAllocator holdIdAllocator = new HoldIdAllocator(16);
+		holdIdAllocator.advanceTo(1000);
+		Assert.assertTrue(holdIdAllocator.next() > 1000);
+		holdIdAllocator.advanceTo(10);
+		Assert.assertTrue(holdIdAllocator.next() > 1000);
+	}
+
+}
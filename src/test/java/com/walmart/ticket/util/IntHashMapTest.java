@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test class to test the IntHashMap.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class IntHashMapTest extends TestCase {
+
+	public void testPutGetRemove() {
+		IntHashMap<String> map = new IntHashMap<String>(2);
+		Assert.assertNull(map.putIfAbsent(7, "seven"));
+		Assert.assertEquals("seven", map.putIfAbsent(7, "other"));
+		Assert.assertEquals("seven", map.get(7));
+		Assert.assertNull(map.get(8));
+		Assert.assertFalse(map.remove(7, "other"));
+		Assert.assertTrue(map.remove(7, "seven"));
+		Assert.assertNull(map.remove(7));
+		Assert.assertEquals(0, map.size());
+		try {
+			map.putIfAbsent(0, "zero");
+			fail();
+		} catch (IllegalArgumentException illegalArgumentException) {
+			Assert.assertNotNull(illegalArgumentException);
+		}
+	}
+
+	public void testMatchesHashMap() {
+		IntHashMap<Integer> map = new IntHashMap<Integer>();
+		Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+		Random random = new Random(42);
+		for (int operation = 0; operation < 200000; operation++) {
+			int key = random.nextInt(2000) + 1;
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				Assert.assertEquals(expected.putIfAbsent(key, operation), map.putIfAbsent(key, operation));
+			}
+		}
+		Assert.assertEquals(expected.size(), map.size());
+		for (int key = 1; key <= 2000; key++) {
+			Assert.assertEquals(expected.get(key), map.get(key));
+		}
+		final int[] count = new int[1];
+		map.forEachValue(value -> count[0]++);
+		Assert.assertEquals(expected.size(), count[0]);
+		map.clear();
+		Assert.assertNull(map.get(expected.keySet().iterator().next()));
+	}
+
+	public void testReadersSeeStableKeysWhileWritersChurn() throws InterruptedException {
+		final IntHashMap<Integer> map = new IntHashMap<Integer>();
+		for (int key = 1; key <= 1000; key++) {
+			map.putIfAbsent(key, key);
+		}
+		final boolean[] failed = new boolean[1];
+		Thread writer = new Thread() {
+			public void run() {
+				for (int round = 0; round < 200; round++) {
+					for (int key = 1001; key <= 3000; key++) {
+						map.putIfAbsent(key, key);
+					}
+					for (int key = 1001; key <= 3000; key++) {
+						map.remove(key);
+					}
+				}
+			}
+		};
+		writer.start();
+		while (writer.isAlive()) {
+			for (int key = 1; key <= 1000; key++) {
+				Integer value = map.get(key);
+				if (value == null || value.intValue() != key) {
+					failed[0] = true;
+				}
+			}
+		}
+		writer.join();
+		Assert.assertFalse(failed[0]);
+		Assert.assertEquals(1000, map.size());
+	}
+
+}
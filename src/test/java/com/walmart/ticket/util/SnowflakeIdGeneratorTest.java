@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.walmart.ticket.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ *
+ * Test class to test the SnowflakeIdGenerator.
+ *
+ * @author Sarvesh Katariya
+ * @version 1.0
+ * @since 08/01/2016
+ *
+ */
+public class SnowflakeIdGeneratorTest extends TestCase {
+
+	public void testIdsAreTimeOrderedAndTagged() {
+		SnowflakeIdGenerator snowflakeIdGenerator = new SnowflakeIdGenerator(513);
+		long before = System.currentTimeMillis();
+		long previous = 0;
+		String previousCode = "";
+		for (int index = 0; index < 10000; index++) {
+			long id = snowflakeIdGenerator.nextId();
+			String code = CrockfordBase32.encode(id);
+			Assert.assertTrue(id > previous);
+			Assert.assertTrue(code.compareTo(previousCode) > 0);
+			Assert.assertEquals(513, SnowflakeIdGenerator.getNodeId(id));
+			previous = id;
+			previousCode = code;
+		}
+		// 10000 ids fit into 40 milliseconds of one stripe even when they are drawn faster
+		Assert.assertTrue(SnowflakeIdGenerator.getCreationTime(previous) >= before);
+		Assert.assertTrue(SnowflakeIdGenerator.getCreationTime(previous) <= System.currentTimeMillis() + 40);
+	}
+
+	public void testConcurrentIdsAreUnique() throws InterruptedException {
+		final SnowflakeIdGenerator snowflakeIdGenerator = new SnowflakeIdGenerator(0);
+		final long[][] ids = new long[8][20000];
+		Thread[] threads = new Thread[ids.length];
+		for (int index = 0; index < threads.length; index++) {
+			final long[] threadIds = ids[index];
+			threads[index] = new Thread() {
+				public void run() {
+					for (int id = 0; id < threadIds.length; id++) {
+						threadIds[id] = snowflakeIdGenerator.nextId();
+					}
+				}
+			};
+			threads[index].start();
+		}
+		Set<Long> seen = new HashSet<Long>();
+		for (int index = 0; index < threads.length; index++) {
+			threads[index].join();
+			for (long id : ids[index]) {
+				Assert.assertTrue(seen.add(id));
+			}
+		}
+	}
+
+	public void testConfirmationCode() {
+		long id = new SnowflakeIdGenerator(7).nextId();
+		String code = CrockfordBase32.encode(id);
+		Assert.assertEquals(CrockfordBase32.CODE_LENGTH, code.length());
+		Assert.assertEquals(id, CrockfordBase32.decode(code));
+		Assert.assertEquals(id, CrockfordBase32.decode(code.toLowerCase()));
+		Assert.assertEquals(id, CrockfordBase32.decode(code.substring(0, 4) + "-" + code.substring(4)));
+		Assert.assertEquals(Long.MAX_VALUE, CrockfordBase32.decode(CrockfordBase32.encode(Long.MAX_VALUE)));
+		Assert.assertEquals(0, CrockfordBase32.decode("OOOOOOOOOOOOO"));
+		Assert.assertEquals(-1, CrockfordBase32.decode("8000000000000"));
+		Assert.assertEquals(-1, CrockfordBase32.decode("U000000000000"));
+		Assert.assertEquals(-1, CrockfordBase32.decode(code.substring(1)));
+	}
+
+}